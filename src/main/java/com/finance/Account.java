@@ -5,6 +5,10 @@ public class Account {
     private String name;
     private AccountType type;
     private double balance;
+    // ISO 4217 code the balance and the account's transactions are in
+    private String currency = FxRates.DEFAULT_CURRENCY;
+    // Bumped by every change to the row; used for optimistic updates
+    private long version;
 
     // Default constructor
     public Account() {
@@ -58,6 +62,22 @@ public class Account {
         this.balance = balance;
     }
 
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Account{" +
@@ -65,6 +85,7 @@ public class Account {
                 ", name='" + name + '\'' +
                 ", type=" + type +
                 ", balance=" + balance +
+                ", currency=" + currency +
                 '}';
     }
 }
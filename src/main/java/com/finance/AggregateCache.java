@@ -0,0 +1,129 @@
+package com.finance;
+
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * Bounded LRU of aggregate query results keyed by query and month, so switching back to a
+ * month the dashboard already showed does not run its GROUP BY again.
+ *
+ * FinanceService drops the months a write touched as soon as the write commits, and drops
+ * everything when a change cannot be pinned to months (currency or rate changes, clearing
+ * the ledger). An ExternalChangeEvent, raised when PRAGMA data_version shows that another
+ * process wrote, also drops everything. Every invalidation bumps a generation; a result is
+ * only stored if the generation did not move while it was read, so a query that raced a
+ * write cannot put the old totals back. Hits, misses and evictions are Metrics counters.
+ */
+public class AggregateCache {
+    static final int MAX_ENTRIES = 256;
+
+    private static AggregateCache instance;
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Object> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long generation;
+    private long hits;
+    private long misses;
+
+    // Package-private so tests can work with their own cache
+    AggregateCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public static synchronized AggregateCache getInstance() {
+        if (instance == null) {
+            AggregateCache cache = new AggregateCache(MAX_ENTRIES);
+            EventBus.getInstance().subscribe(FinanceEvents.ExternalChangeEvent.class, e -> cache.invalidateAll());
+            instance = cache;
+        }
+        return instance;
+    }
+
+    /**
+     * The cached result, or null on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(String query, YearMonth month) {
+        Object value = entries.get(new Key(query, month));
+        if (value != null) {
+            hits++;
+            Metrics.getInstance().increment("aggregates.cache.hits", 1);
+        } else {
+            misses++;
+            Metrics.getInstance().increment("aggregates.cache.misses", 1);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Current generation; take it before reading the database and pass it to put().
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a result read while the cache was at {@code readGeneration}. The value must
+     * not be changed afterwards. Ignored if anything was invalidated since.
+     */
+    public synchronized void put(String query, YearMonth month, Object value, long readGeneration) {
+        if (readGeneration != generation) {
+            Metrics.getInstance().increment("aggregates.cache.stale", 1);
+            return;
+        }
+        entries.put(new Key(query, month), value);
+        Iterator<Key> it = entries.keySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            Metrics.getInstance().increment("aggregates.cache.evictions", 1);
+        }
+    }
+
+    /**
+     * Drops every query's result for {@code month}.
+     */
+    public synchronized void invalidate(YearMonth month) {
+        generation++;
+        entries.keySet().removeIf(k -> k.month.equals(month));
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Fraction of lookups answered from memory since startup, or 0 before the first one.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    private static final class Key {
+        private final String query;
+        private final YearMonth month;
+
+        Key(String query, YearMonth month) {
+            this.query = query;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && k.query.equals(query) && k.month.equals(month);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, month);
+        }
+    }
+}
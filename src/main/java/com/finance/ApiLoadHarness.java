@@ -0,0 +1,137 @@
+package com.finance;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives a running ApiServer with concurrent clients and reports requests per second,
+ * latency percentiles and the status codes seen (304 for ETag hits, 503 for rejected writes).
+ *
+ * Usage: java -cp ... com.finance.ApiLoadHarness [baseUrl] [clients] [seconds] [writePercent]
+ *
+ * Writes add small expense transactions, so point the server at a scratch database:
+ *
+ *     finance --db /tmp/load.db serve --port 8765
+ */
+public class ApiLoadHarness {
+    static final String DEFAULT_URL = "http://127.0.0.1:" + ApiServer.DEFAULT_PORT;
+    static final int DEFAULT_CLIENTS = 64;
+    static final int DEFAULT_SECONDS = 10;
+    static final int DEFAULT_WRITE_PERCENT = 5;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+    private final List<String> reads = List.of("/api/accounts", "/api/categories", "/api/budgets",
+            "/api/aggregates?month=" + YearMonth.now(), "/api/transactions?month=" + YearMonth.now());
+    private int accountId;
+    private int categoryId;
+
+    ApiLoadHarness(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : DEFAULT_URL;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CLIENTS;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SECONDS;
+        int writePercent = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_WRITE_PERCENT;
+        ApiLoadHarness harness = new ApiLoadHarness(url);
+        harness.run(clients, Duration.ofSeconds(seconds), writePercent);
+    }
+
+    void run(int clients, Duration duration, int writePercent) throws Exception {
+        pickTargets();
+        long deadline = System.nanoTime() + duration.toNanos();
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        request(ThreadLocalRandom.current().nextInt(100) < writePercent);
+                    }
+                    return null;
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long total = latency.getCount();
+        System.out.printf("%d clients, %.1f s, %d requests, %.0f req/s%n", clients, elapsed, total, total / elapsed);
+        System.out.printf("latency ms: mean %.2f  p50 %.2f  p99 %.2f  max %.2f%n", latency.getMeanMicros() / 1000.0,
+                latency.getPercentileMicros(50) / 1000.0, latency.getPercentileMicros(99) / 1000.0,
+                latency.getMaxMicros() / 1000.0);
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        statuses.forEach((k, v) -> byStatus.put(k, v.sum()));
+        System.out.println("status: " + byStatus + (failures.sum() > 0 ? "  failed: " + failures.sum() : ""));
+    }
+
+    /**
+     * Finds an account and an expense category for the write mix.
+     */
+    private void pickTargets() throws IOException, InterruptedException {
+        String accounts = get("/api/accounts").body();
+        String categories = get("/api/categories").body();
+        Matcher a = Pattern.compile("\"id\":(\\d+)").matcher(accounts);
+        Matcher c = Pattern.compile("\"id\":(\\d+),\"name\":\"(?:[^\"\\\\]|\\\\.)*\",\"type\":\"EXPENSE\"").matcher(categories);
+        if (!a.find() || !c.find()) {
+            throw new IllegalStateException("The database needs an account and an expense category");
+        }
+        accountId = Integer.parseInt(a.group(1));
+        categoryId = Integer.parseInt(c.group(1));
+    }
+
+    private void request(boolean write) {
+        String path = reads.get(ThreadLocalRandom.current().nextInt(reads.size()));
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response;
+            if (write) {
+                String body = "{\"accountId\":" + accountId + ",\"categoryId\":" + categoryId
+                        + ",\"amount\":0.01,\"date\":\"" + LocalDate.now() + "\",\"note\":\"load test\"}";
+                response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions"))
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+            } else {
+                HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path));
+                String etag = etags.get(path);
+                if (etag != null) {
+                    builder.header("If-None-Match", etag);
+                }
+                response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+                response.headers().firstValue("ETag").ifPresent(e -> etags.put(path, e));
+            }
+            latency.recordNanos(System.nanoTime() - start);
+            statuses.computeIfAbsent(response.statusCode(), k -> new LongAdder()).increment();
+        } catch (IOException e) {
+            failures.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
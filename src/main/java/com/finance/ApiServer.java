@@ -0,0 +1,570 @@
+package com.finance;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Local HTTP/JSON API over FinanceService, for scripts and tools that should not drive the GUI.
+ *
+ *     GET  /api/accounts
+ *     PUT  /api/accounts                           {"id":1,"version":4,"balance":120.0}; 409 if the version is stale
+ *     GET  /api/categories
+ *     GET  /api/transactions?month=YYYY-MM|all     streamed, newest first
+ *     POST /api/transactions                       {"accountId":1,"categoryId":2,"amount":9.5,"date":"2024-05-01","note":"..."}
+ *     POST /api/transfers                          {"fromAccountId":1,"toAccountId":2,"amount":50,"date":"...","memo":"..."}
+ *     GET  /api/aggregates?month=YYYY-MM           balance and expenses by category
+ *     GET  /api/budgets                            budget status per expense category
+ *
+ * Every request runs on its own virtual thread. Transaction lists are written page by page
+ * with chunked encoding, so memory does not grow with the ledger. Aggregate and budget
+ * responses carry an ETag; a matching If-None-Match gets 304 with no body. Writes go to the
+ * DatabaseWriter, which group-commits them; at most a fixed number of API writes may be in
+ * flight, and beyond that the server answers 503 with Retry-After instead of piling up work.
+ * The server only listens on loopback.
+ */
+public class ApiServer {
+    public static final int DEFAULT_PORT = 8765;
+    static final int MAX_PENDING_WRITES = 64;
+    static final long WRITE_TIMEOUT_SECONDS = 30;
+    static final int PAGE_SIZE = 500;
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final FinanceService financeService;
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final Semaphore writePermits;
+
+    public ApiServer(FinanceService financeService, int port) throws IOException {
+        this(financeService, port, MAX_PENDING_WRITES);
+    }
+
+    ApiServer(FinanceService financeService, int port, int maxPendingWrites) throws IOException {
+        this.financeService = financeService;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(requestExecutor);
+        writePermits = new Semaphore(maxPendingWrites);
+    }
+
+    // Handlers are registered here rather than in the constructor, so they never see a
+    // partly constructed server
+    public void start() {
+        server.createContext("/api/accounts", timed("accounts", this::accounts));
+        server.createContext("/api/categories", timed("categories", this::categories));
+        server.createContext("/api/transactions", timed("transactions", this::transactions));
+        server.createContext("/api/transfers", timed("transfers", this::transfer));
+        server.createContext("/api/aggregates", timed("aggregates", this::aggregates));
+        server.createContext("/api/budgets", timed("budgets", this::budgets));
+        server.start();
+        Log.info("API server started", "port", getPort());
+    }
+
+    public void stop() {
+        server.stop(1);
+        requestExecutor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Starts a write if fewer than the maximum are pending; the permit is returned when
+     * the write's future completes.
+     *
+     * @throws RejectedExecutionException if too many writes are pending
+     */
+    <T> CompletableFuture<T> submitWrite(Supplier<CompletableFuture<T>> write) {
+        if (!writePermits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many pending writes");
+        }
+        try {
+            return write.get().whenComplete((r, e) -> writePermits.release());
+        } catch (RuntimeException e) {
+            writePermits.release();
+            throw e;
+        }
+    }
+
+    private void accounts(HttpExchange ex) throws IOException {
+        if ("PUT".equals(ex.getRequestMethod())) {
+            setBalance(ex);
+            return;
+        }
+        if (!requireGet(ex)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (Account a : financeService.getAllAccounts()) {
+            sb.append(sb.length() > 1 ? "," : "").append("{\"id\":").append(a.getId())
+                    .append(",\"name\":").append(FinanceCli.jsonString(a.getName()))
+                    .append(",\"type\":\"").append(a.getType()).append("\",\"balance\":").append(a.getBalance())
+                    .append(",\"currency\":\"").append(a.getCurrency()).append('"')
+                    .append(",\"version\":").append(a.getVersion()).append('}');
+        }
+        send(ex, 200, sb.append(']').toString());
+    }
+
+    /**
+     * Optimistic balance update: succeeds only if the client saw the current version.
+     */
+    private void setBalance(HttpExchange ex) throws IOException {
+        Account account = new Account();
+        double balance;
+        try (InputStream in = ex.getRequestBody()) {
+            Map<String, String> body = parseJsonObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            account.setId(Integer.parseInt(required(body, "id")));
+            account.setVersion(Long.parseLong(required(body, "version")));
+            balance = Double.parseDouble(required(body, "balance"));
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, "Invalid account update: " + e.getMessage());
+            return;
+        }
+        if (!Double.isFinite(balance)) {
+            sendError(ex, 400, "Invalid account update: balance must be a finite number");
+            return;
+        }
+        if (!writePermits.tryAcquire()) {
+            ex.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            sendError(ex, 503, "Too many pending writes");
+            return;
+        }
+        try {
+            if (financeService.setAccountBalance(account, balance)) {
+                send(ex, 200, "{\"id\":" + account.getId() + ",\"version\":" + account.getVersion() + "}");
+            } else {
+                sendError(ex, 409, "Account was changed or does not exist; reload it and retry");
+            }
+        } finally {
+            writePermits.release();
+        }
+    }
+
+    private void categories(HttpExchange ex) throws IOException {
+        if (!requireGet(ex)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (Category c : financeService.getAllCategories()) {
+            sb.append(sb.length() > 1 ? "," : "").append("{\"id\":").append(c.getId())
+                    .append(",\"name\":").append(FinanceCli.jsonString(c.getName()))
+                    .append(",\"type\":\"").append(c.getType()).append("\",\"budgetLimit\":").append(c.getBudgetLimit())
+                    .append(",\"budgetPeriod\":\"").append(c.getBudgetPeriod()).append("\"}");
+        }
+        send(ex, 200, sb.append(']').toString());
+    }
+
+    private void transactions(HttpExchange ex) throws IOException {
+        if ("POST".equals(ex.getRequestMethod())) {
+            addTransaction(ex);
+            return;
+        }
+        if (!requireGet(ex)) {
+            return;
+        }
+        YearMonth month = month(query(ex).get("month"));
+        TransactionQuery query = new TransactionQuery(month, 0, 0, TransactionQuery.SortColumn.DATE, false);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(200, 0); // chunked
+        try (Writer w = new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8)) {
+            w.write('[');
+            boolean first = true;
+            TransactionRow after = null;
+            while (true) {
+                List<TransactionRow> page = financeService.getTransactionPage(query, after, PAGE_SIZE);
+                for (TransactionRow r : page) {
+                    w.write((first ? "" : ",") + "\n{\"id\":" + r.getId() + ",\"date\":\"" + r.getDate()
+                            + "\",\"account\":" + FinanceCli.jsonString(r.getAccountName())
+                            + ",\"category\":" + FinanceCli.jsonString(r.getCategoryName())
+                            + ",\"type\":\"" + r.getCategoryType() + "\",\"amount\":" + r.getAmount()
+                            + ",\"note\":" + (r.getNote() == null ? "null" : FinanceCli.jsonString(r.getNote())) + "}");
+                    first = false;
+                }
+                w.flush();
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                after = page.get(page.size() - 1);
+            }
+            w.write("\n]\n");
+        }
+    }
+
+    private void addTransaction(HttpExchange ex) throws IOException {
+        int accountId;
+        int categoryId;
+        double amount;
+        LocalDate date;
+        String note;
+        try (InputStream in = ex.getRequestBody()) {
+            Map<String, String> body = parseJsonObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            accountId = Integer.parseInt(required(body, "accountId"));
+            categoryId = Integer.parseInt(required(body, "categoryId"));
+            amount = Double.parseDouble(required(body, "amount"));
+            date = body.get("date") == null ? LocalDate.now() : LocalDate.parse(body.get("date"));
+            note = body.get("note");
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            sendError(ex, 400, "Invalid transaction: " + e.getMessage());
+            return;
+        }
+        // Written so that NaN fails too
+        if (!(amount > 0) || !Double.isFinite(amount)) {
+            sendError(ex, 400, "Invalid transaction: amount must be a positive finite number");
+            return;
+        }
+
+        CompletableFuture<Boolean> result;
+        try {
+            result = submitWrite(() -> financeService.addTransactionAsync(accountId, categoryId, amount, date, note, null));
+        } catch (RejectedExecutionException e) {
+            Metrics.getInstance().increment("api.writes.rejected", 1);
+            ex.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            sendError(ex, 503, "Too many pending writes");
+            return;
+        }
+        try {
+            if (result.get(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                send(ex, 201, "{\"status\":\"created\"}");
+            } else {
+                sendError(ex, 422, "Transaction was not saved");
+            }
+        } catch (TimeoutException e) {
+            sendError(ex, 504, "Write timed out");
+        } catch (ExecutionException e) {
+            Log.error("API write failed", e.getCause());
+            sendError(ex, 500, "Write failed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(ex, 500, "Interrupted");
+        }
+    }
+
+    private void transfer(HttpExchange ex) throws IOException {
+        if (!"POST".equals(ex.getRequestMethod())) {
+            ex.getResponseHeaders().set("Allow", "POST");
+            sendError(ex, 405, "Method not allowed");
+            return;
+        }
+        int from;
+        int to;
+        double amount;
+        LocalDate date;
+        String memo;
+        try (InputStream in = ex.getRequestBody()) {
+            Map<String, String> body = parseJsonObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            from = Integer.parseInt(required(body, "fromAccountId"));
+            to = Integer.parseInt(required(body, "toAccountId"));
+            amount = Double.parseDouble(required(body, "amount"));
+            date = body.get("date") == null ? LocalDate.now() : LocalDate.parse(body.get("date"));
+            memo = body.get("memo");
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            sendError(ex, 400, "Invalid transfer: " + e.getMessage());
+            return;
+        }
+        if (from == to || !(amount > 0) || !Double.isFinite(amount)) {
+            sendError(ex, 400, "Invalid transfer: needs two different accounts and a positive amount");
+            return;
+        }
+        CompletableFuture<Long> result;
+        try {
+            result = submitWrite(() -> financeService.transferAsync(from, to, amount, date, memo));
+        } catch (RejectedExecutionException e) {
+            Metrics.getInstance().increment("api.writes.rejected", 1);
+            ex.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            sendError(ex, 503, "Too many pending writes");
+            return;
+        }
+        try {
+            long journalId = result.get(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (journalId > 0) {
+                send(ex, 201, "{\"journalId\":" + journalId + "}");
+            } else {
+                sendError(ex, 422, "Transfer was not posted");
+            }
+        } catch (TimeoutException e) {
+            sendError(ex, 504, "Write timed out");
+        } catch (ExecutionException e) {
+            Log.error("API write failed", e.getCause());
+            sendError(ex, 500, "Write failed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(ex, 500, "Interrupted");
+        }
+    }
+
+    private void aggregates(HttpExchange ex) throws IOException {
+        if (!requireGet(ex)) {
+            return;
+        }
+        YearMonth month = month(query(ex).get("month"));
+        if (month == null) {
+            sendError(ex, 400, "month must be YYYY-MM");
+            return;
+        }
+        Map<String, Double> byCategory = financeService.getExpensesByCategory(month);
+        double expenses = 0;
+        StringBuilder categories = new StringBuilder("{");
+        for (Map.Entry<String, Double> e : byCategory.entrySet()) {
+            categories.append(categories.length() > 1 ? "," : "").append(FinanceCli.jsonString(e.getKey()))
+                    .append(':').append(e.getValue());
+            expenses += e.getValue();
+        }
+        categories.append('}');
+        sendCached(ex, "{\"month\":\"" + month + "\",\"currency\":\"" + FxRates.getInstance().getReportingCurrency()
+                + "\",\"totalBalance\":" + financeService.getTotalBalance()
+                + ",\"totalExpenses\":" + expenses + ",\"expensesByCategory\":" + categories + "}");
+    }
+
+    private void budgets(HttpExchange ex) throws IOException {
+        if (!requireGet(ex)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (BudgetStatus s : financeService.getBudgetStatuses()) {
+            sb.append(sb.length() > 1 ? "," : "").append("{\"categoryId\":").append(s.getCategoryId())
+                    .append(",\"category\":").append(FinanceCli.jsonString(s.getCategoryName()))
+                    .append(",\"period\":\"").append(s.getPeriod()).append("\",\"limit\":").append(s.getLimit())
+                    .append(",\"spent\":").append(s.getSpent()).append(",\"remaining\":").append(s.getRemaining())
+                    .append(",\"exceeded\":").append(s.isExceeded()).append('}');
+        }
+        sendCached(ex, sb.append(']').toString());
+    }
+
+    /**
+     * Wraps a handler with a per-endpoint timer and turns unexpected failures into 500s.
+     */
+    private HttpHandler timed(String name, HttpHandler handler) {
+        LatencyHistogram timer = Metrics.getInstance().timer("api." + name);
+        return ex -> {
+            long start = System.nanoTime();
+            try {
+                handler.handle(ex);
+            } catch (java.time.DateTimeException e) {
+                sendError(ex, 400, "Invalid month: " + e.getMessage());
+            } catch (IOException e) {
+                // Client went away mid-response
+                Log.debug("API response aborted", "path", ex.getRequestURI().getPath(), "error", e.getMessage());
+            } catch (RuntimeException e) {
+                Log.error("API request failed", e, "path", ex.getRequestURI().getPath());
+                try {
+                    sendError(ex, 500, "Internal error");
+                } catch (IOException | RuntimeException ignore) {
+                    // Headers were already sent
+                }
+            } finally {
+                ex.close();
+                timer.recordNanos(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static boolean requireGet(HttpExchange ex) throws IOException {
+        if ("GET".equals(ex.getRequestMethod())) {
+            return true;
+        }
+        ex.getResponseHeaders().set("Allow", "GET");
+        sendError(ex, 405, "Method not allowed");
+        return false;
+    }
+
+    /**
+     * Sends a body with an ETag derived from its content, or 304 if the client already has it.
+     */
+    private static void sendCached(HttpExchange ex, String body) throws IOException {
+        String etag = etag(body);
+        ex.getResponseHeaders().set("ETag", etag);
+        ex.getResponseHeaders().set("Cache-Control", "no-cache");
+        String ifNoneMatch = ex.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.equals(etag) || ifNoneMatch.equals("W/" + etag))) {
+            ex.sendResponseHeaders(304, -1);
+            return;
+        }
+        send(ex, 200, body);
+    }
+
+    static String etag(String body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void send(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange ex, int status, String message) throws IOException {
+        send(ex, status, "{\"error\":" + FinanceCli.jsonString(message) + "}");
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> params = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static YearMonth month(String value) {
+        if (value == null) {
+            return YearMonth.now();
+        }
+        return "all".equalsIgnoreCase(value) ? null : YearMonth.parse(value);
+    }
+
+    private static String required(Map<String, String> body, String key) {
+        String value = body.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException(key + " is required");
+        }
+        return value;
+    }
+
+    /**
+     * Parses a flat JSON object into raw string values; numbers and booleans keep their
+     * literal text and null becomes a missing key. Nested objects and arrays are rejected.
+     */
+    static Map<String, String> parseJsonObject(String json) {
+        Map<String, String> values = new HashMap<>();
+        int[] pos = {skipSpace(json, 0)};
+        expect(json, pos, '{');
+        if (peek(json, pos) == '}') {
+            pos[0]++;
+            return values;
+        }
+        while (true) {
+            String key = parseString(json, pos);
+            expect(json, pos, ':');
+            char c = peek(json, pos);
+            String value;
+            if (c == '"') {
+                value = parseString(json, pos);
+            } else if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("nested values are not supported");
+            } else {
+                int start = pos[0];
+                while (pos[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(pos[0])) < 0) {
+                    pos[0]++;
+                }
+                value = json.substring(start, pos[0]);
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("missing value for " + key);
+                }
+                if ("null".equals(value)) {
+                    value = null;
+                }
+            }
+            if (value != null) {
+                values.put(key, value);
+            }
+            char next = peek(json, pos);
+            pos[0]++;
+            if (next == '}') {
+                return values;
+            }
+            if (next != ',') {
+                throw new IllegalArgumentException("expected , or } at " + (pos[0] - 1));
+            }
+        }
+    }
+
+    private static String parseString(String json, int[] pos) {
+        expect(json, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < json.length()) {
+            char c = json.charAt(pos[0]++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos[0] >= json.length()) {
+                break;
+            }
+            char e = json.charAt(pos[0]++);
+            switch (e) {
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (pos[0] + 4 > json.length()) {
+                        throw new IllegalArgumentException("bad \\u escape");
+                    }
+                    sb.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+                    pos[0] += 4;
+                }
+                default -> sb.append(e);
+            }
+        }
+        throw new IllegalArgumentException("unterminated string");
+    }
+
+    private static void expect(String json, int[] pos, char c) {
+        if (peek(json, pos) != c) {
+            throw new IllegalArgumentException("expected " + c + " at " + pos[0]);
+        }
+        pos[0]++;
+    }
+
+    private static char peek(String json, int[] pos) {
+        pos[0] = skipSpace(json, pos[0]);
+        if (pos[0] >= json.length()) {
+            throw new IllegalArgumentException("unexpected end of JSON");
+        }
+        return json.charAt(pos[0]);
+    }
+
+    private static int skipSpace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
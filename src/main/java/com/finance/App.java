@@ -9,21 +9,38 @@ import java.io.IOException;
 
 public class App extends Application {
     private static DashboardController mainController = null;
+    private static final String METRICS_FILE = "finance-metrics.log";
+    // Set to a port number to serve the local HTTP/JSON API alongside the GUI
+    private static final String API_PORT_PROPERTY = "finance.api.port";
+    private static ApiServer apiServer = null;
 
     @Override
     public void start(Stage stage) throws IOException {
         // Initialize database
         DatabaseHelper.getInstance().initializeDatabase();
 
-        // DEBUG: Print categories present at startup
-        try {
-            java.util.List<Category> _cats = new FinanceService().getAllCategories();
-            System.out.println("DEBUG: Categories count at startup = " + _cats.size());
-            for (Category c : _cats) {
-                System.out.println("DEBUG: Category -> id=" + c.getId() + " name=\"" + c.getName() + "\" type=" + c.getType());
+        // Start the writer now so it watches for changes made by other processes
+        DatabaseWriter.getInstance();
+
+        // Diagnostics: FX responsiveness probe, periodic metrics file and JFR snapshots
+        FxStallProbe.start();
+        Metrics.getInstance().startFileWriter(java.nio.file.Paths.get(METRICS_FILE), 60);
+        JfrEvents.installPeriodicMetrics();
+
+        // Debug logging comes from -Dfinance.log.level=DEBUG or the Diagnostics dialog toggle
+        if (SettingsService.isDebugLogging()) {
+            Log.setLevel(Log.Level.DEBUG);
+        }
+        if (Log.isDebugEnabled()) {
+            for (Category c : new FinanceService().getAllCategories()) {
+                Log.debug("Category at startup", "id", c.getId(), "name", c.getName(), "type", c.getType());
             }
-        } catch (Exception ex) {
-            System.err.println("DEBUG: Error printing categories: " + ex.getMessage());
+        }
+
+        String apiPort = System.getProperty(API_PORT_PROPERTY);
+        if (apiPort != null) {
+            apiServer = new ApiServer(new FinanceService(), Integer.parseInt(apiPort));
+            apiServer.start();
         }
 
         // Load FXML file
@@ -41,7 +58,7 @@ public class App extends Application {
             String sheet = dark ? "/styles/dark.css" : "/styles/styles.css";
             scene.getStylesheets().add(App.class.getResource(sheet).toExternalForm());
         } catch (Exception e) {
-            System.err.println("Warning: Could not load stylesheet: " + e.getMessage());
+            Log.warn("Could not load stylesheet", e);
         }
 
         // Set stage properties
@@ -54,6 +71,13 @@ public class App extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if (apiServer != null) {
+            apiServer.stop();
+        }
+    }
+
     public static void refreshMainDashboard() {
         if (mainController != null) {
             mainController.refreshDashboard();
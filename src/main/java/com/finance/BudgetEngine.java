@@ -0,0 +1,204 @@
+package com.finance;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps per-category expense spending in memory so budget checks don't hit the database.
+ *
+ * Each expense category holds a ring of daily totals covering the longest budget period.
+ * The running total for the current period is only recomputed from the ring when the
+ * period start moves (once a day at most), so checks and updates are O(1) amortized.
+ * Future-dated transactions wait outside the ring and count once their day is reached.
+ * FinanceService owns the single instance and feeds it every posted transaction.
+ */
+public class BudgetEngine {
+    // Longest period is a 31-day month; a few extra days keep backdated entries countable
+    static final int WINDOW_DAYS = 35;
+
+    private static BudgetEngine instance;
+
+    private final Map<Integer, CategoryBudget> budgets = new HashMap<>();
+    private boolean loaded;
+
+    // Package-private so tests can work with their own engine
+    BudgetEngine() {
+    }
+
+    public static synchronized BudgetEngine getInstance() {
+        if (instance == null) {
+            BudgetEngine engine = new BudgetEngine();
+            // Another process or device changed the ledger; reload on next use
+            EventBus.getInstance().subscribe(FinanceEvents.ExternalChangeEvent.class, e -> engine.invalidate());
+            instance = engine;
+        }
+        return instance;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Replaces the engine state with the given categories and daily expense totals.
+     *
+     * @param categories All categories; income categories are ignored
+     * @param dailyTotals Per-category totals keyed by day, covering at least the last WINDOW_DAYS days
+     * @param today The day the totals were read
+     */
+    public synchronized void load(List<Category> categories, Map<Integer, Map<LocalDate, Double>> dailyTotals, LocalDate today) {
+        budgets.clear();
+        for (Category c : categories) {
+            if (c.getType() != CategoryType.EXPENSE) {
+                continue;
+            }
+            CategoryBudget b = new CategoryBudget(c, today.toEpochDay());
+            Map<LocalDate, Double> days = dailyTotals.get(c.getId());
+            if (days != null) {
+                for (Map.Entry<LocalDate, Double> d : days.entrySet()) {
+                    b.add(d.getKey().toEpochDay(), d.getValue());
+                }
+            }
+            budgets.put(c.getId(), b);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Drops all state; the next FinanceService budget call reloads from the database.
+     */
+    public synchronized void invalidate() {
+        budgets.clear();
+        loaded = false;
+    }
+
+    /**
+     * Counts a posted transaction. Amounts for income or unknown categories are ignored.
+     */
+    public synchronized void record(int categoryId, LocalDate date, double amount) {
+        CategoryBudget b = budgets.get(categoryId);
+        if (b != null) {
+            b.add(date.toEpochDay(), amount);
+        }
+    }
+
+    /**
+     * Updates the limit and period of a category.
+     */
+    public synchronized void updateBudget(int categoryId, double limit, BudgetPeriod period) {
+        CategoryBudget b = budgets.get(categoryId);
+        if (b != null) {
+            b.limit = limit;
+            b.period = period;
+            b.periodStart = Long.MIN_VALUE; // force the running total to be recomputed
+        }
+    }
+
+    /**
+     * Returns true if posting {@code amount} today would take the category over its limit.
+     * Income and unknown categories never exceed.
+     */
+    public boolean wouldExceed(int categoryId, double amount) {
+        BudgetStatus status = status(categoryId, LocalDate.now());
+        return status != null && status.wouldExceed(amount);
+    }
+
+    /**
+     * Returns the budget state of one expense category, or null for income or unknown categories.
+     */
+    public synchronized BudgetStatus status(int categoryId, LocalDate today) {
+        CategoryBudget b = budgets.get(categoryId);
+        return b != null ? b.toStatus(today) : null;
+    }
+
+    /**
+     * Returns the budget state of every expense category, ordered by name.
+     */
+    public synchronized List<BudgetStatus> snapshot(LocalDate today) {
+        List<BudgetStatus> statuses = new ArrayList<>(budgets.size());
+        for (CategoryBudget b : budgets.values()) {
+            statuses.add(b.toStatus(today));
+        }
+        statuses.sort((a, b) -> String.CASE_INSENSITIVE_ORDER.compare(
+                a.getCategoryName() != null ? a.getCategoryName() : "",
+                b.getCategoryName() != null ? b.getCategoryName() : ""));
+        return statuses;
+    }
+
+    private static class CategoryBudget {
+        final int id;
+        final String name;
+        double limit;
+        BudgetPeriod period;
+
+        final double[] days = new double[WINDOW_DAYS];
+        long lastDay;              // newest day held in the ring (epoch day)
+        // Amounts dated after lastDay; they join the ring when their day comes
+        final TreeMap<Long, Double> future = new TreeMap<>();
+        long periodStart = Long.MIN_VALUE;
+        double periodTotal;
+
+        CategoryBudget(Category c, long today) {
+            this.id = c.getId();
+            this.name = c.getName();
+            this.limit = c.getBudgetLimit();
+            this.period = c.getBudgetPeriod();
+            this.lastDay = today;
+        }
+
+        void add(long day, double amount) {
+            if (day > lastDay) {
+                // Moving the ring to a future day would push out spending of the current period
+                future.merge(day, amount, Double::sum);
+                return;
+            }
+            if (day <= lastDay - WINDOW_DAYS) {
+                return; // older than any budget period
+            }
+            days[slot(day)] += amount;
+            if (day >= periodStart) {
+                periodTotal += amount;
+            }
+        }
+
+        BudgetStatus toStatus(LocalDate today) {
+            long t = today.toEpochDay();
+            if (t > lastDay) {
+                advanceTo(t);
+            }
+            long start = period.periodStart(today).toEpochDay();
+            if (start != periodStart) {
+                double total = 0.0;
+                for (long d = Math.max(start, lastDay - WINDOW_DAYS + 1); d <= Math.min(t, lastDay); d++) {
+                    total += days[slot(d)];
+                }
+                periodStart = start;
+                periodTotal = total;
+            }
+            return new BudgetStatus(id, name, limit, period, periodTotal);
+        }
+
+        private void advanceTo(long day) {
+            long clearFrom = Math.max(lastDay + 1, day - WINDOW_DAYS + 1);
+            for (long d = clearFrom; d <= day; d++) {
+                days[slot(d)] = 0.0;
+            }
+            lastDay = day;
+            periodStart = Long.MIN_VALUE; // the period may have moved
+            while (!future.isEmpty() && future.firstKey() <= day) {
+                Map.Entry<Long, Double> due = future.pollFirstEntry();
+                if (due.getKey() > day - WINDOW_DAYS) {
+                    days[slot(due.getKey())] += due.getValue();
+                }
+            }
+        }
+
+        private static int slot(long day) {
+            return (int) Math.floorMod(day, (long) WINDOW_DAYS);
+        }
+    }
+}
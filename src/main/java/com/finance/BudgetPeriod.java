@@ -0,0 +1,25 @@
+package com.finance;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+public enum BudgetPeriod {
+    MONTHLY,    // calendar month to date
+    WEEKLY,     // ISO week (Monday) to date
+    ROLLING_30; // the last 30 days including today
+
+    /**
+     * Returns the first day counted towards the budget when evaluating on {@code today}.
+     */
+    public LocalDate periodStart(LocalDate today) {
+        switch (this) {
+            case WEEKLY:
+                return today.with(DayOfWeek.MONDAY);
+            case ROLLING_30:
+                return today.minusDays(29);
+            case MONTHLY:
+            default:
+                return today.withDayOfMonth(1);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.finance;
+
+/**
+ * Point-in-time budget state of one expense category.
+ */
+public class BudgetStatus {
+    private final int categoryId;
+    private final String categoryName;
+    private final double limit;
+    private final BudgetPeriod period;
+    private final double spent;
+
+    public BudgetStatus(int categoryId, String categoryName, double limit, BudgetPeriod period, double spent) {
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.limit = limit;
+        this.period = period;
+        this.spent = spent;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public BudgetPeriod getPeriod() {
+        return period;
+    }
+
+    public double getSpent() {
+        return spent;
+    }
+
+    public double getRemaining() {
+        return limit - spent;
+    }
+
+    /**
+     * Fraction of the budget used so far; 0 when the category has no limit.
+     */
+    public double getRatio() {
+        return limit > 0 ? spent / limit : 0.0;
+    }
+
+    public boolean isExceeded() {
+        return spent > limit;
+    }
+
+    public boolean wouldExceed(double amount) {
+        return spent + amount > limit;
+    }
+
+    @Override
+    public String toString() {
+        return "BudgetStatus{" +
+                "categoryId=" + categoryId +
+                ", categoryName='" + categoryName + '\'' +
+                ", limit=" + limit +
+                ", period=" + period +
+                ", spent=" + spent +
+                '}';
+    }
+}
@@ -0,0 +1,404 @@
+package com.finance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Suggests a category for a transaction from its note.
+ *
+ * Keyword rules come first: every rule keyword and every category name goes into one
+ * Aho-Corasick automaton, so a note is scanned once whatever the number of keywords. A
+ * keyword matches whole words only ("bus" does not match "business"); one written with a
+ * trailing '*' matches the start of a word ("groc*" matches "grocery"). The longest
+ * match wins. Notes no rule matches go to a naive Bayes model over the note's words,
+ * trained on the existing transactions and updated with every new one; it only answers
+ * when its best category has at least {@link #MIN_CONFIDENCE} posterior probability.
+ *
+ * Rules come from category-rules.txt next to finance.db if present, otherwise from the
+ * bundled default. FinanceService owns the single instance and loads it on first use.
+ */
+public class Categorizer {
+    static final double MIN_CONFIDENCE = 0.6;
+    // The model stays quiet until it has seen this many labelled notes
+    static final int MIN_EXAMPLES = 10;
+    private static final String OVERRIDE_FILE = "category-rules.txt";
+
+    private static Categorizer instance;
+
+    private final List<String[]> ruleKeywords = new ArrayList<>();
+    private final List<String> ruleCategories = new ArrayList<>();
+    private Automaton automaton = new Automaton();
+    private boolean loaded;
+
+    // Naive Bayes counts; categories and words are numbered in order of first appearance
+    private final Map<Integer, Integer> slotByCategory = new HashMap<>();
+    private int[] categoryIds = new int[8];
+    private int[] examples = new int[8];
+    private int[] wordTotals = new int[8];
+    private final Map<String, int[]> wordCounts = new HashMap<>();
+    private int totalExamples;
+
+    // Package-private so tests can work with their own categorizer
+    Categorizer() {
+    }
+
+    public static synchronized Categorizer getInstance() {
+        if (instance == null) {
+            Categorizer categorizer = new Categorizer();
+            categorizer.loadDefaultRules();
+            EventBus.getInstance().subscribe(FinanceEvents.ExternalChangeEvent.class, e -> categorizer.invalidate());
+            instance = categorizer;
+        }
+        return instance;
+    }
+
+    private void loadDefaultRules() {
+        Path override = Paths.get(OVERRIDE_FILE);
+        try {
+            if (Files.exists(override)) {
+                try (Reader r = Files.newBufferedReader(override, StandardCharsets.UTF_8)) {
+                    loadRules(r);
+                }
+            } else {
+                try (InputStream in = Categorizer.class.getResourceAsStream("/com/finance/category-rules.txt")) {
+                    if (in != null) {
+                        loadRules(new InputStreamReader(in, StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.error("Error loading category rules", e);
+        }
+    }
+
+    /**
+     * Reads rules of the form {@code keyword, prefix*, keyword = Category Name}; '#' starts
+     * a comment. Takes effect on the next {@link #load}.
+     */
+    public synchronized void loadRules(Reader reader) throws IOException {
+        BufferedReader br = new BufferedReader(reader);
+        String line;
+        while ((line = br.readLine()) != null) {
+            line = line.trim();
+            int eq = line.indexOf('=');
+            if (line.isEmpty() || line.startsWith("#") || eq < 0) {
+                continue;
+            }
+            List<String> kept = new ArrayList<>();
+            for (String w : line.substring(0, eq).toLowerCase(Locale.ROOT).split(",")) {
+                if (!w.isBlank()) {
+                    kept.add(w.trim());
+                }
+            }
+            String category = line.substring(eq + 1).trim();
+            if (!kept.isEmpty() && !category.isEmpty()) {
+                ruleKeywords.add(kept.toArray(new String[0]));
+                ruleCategories.add(category.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Rebuilds the keyword automaton for the given categories and retrains the model.
+     *
+     * @param categories All categories; rules naming an unknown category are skipped
+     * @param labels Category id of each stored note, parallel to {@code notes}
+     */
+    public synchronized void load(List<Category> categories, int[] labels, List<String> notes) {
+        Map<String, Integer> idsByName = new HashMap<>();
+        Automaton a = new Automaton();
+        for (Category c : categories) {
+            String name = c.getName().toLowerCase(Locale.ROOT);
+            idsByName.put(name, c.getId());
+            a.add(name, c.getId());
+        }
+        for (int r = 0; r < ruleKeywords.size(); r++) {
+            Integer id = idsByName.get(ruleCategories.get(r));
+            if (id == null) {
+                continue;
+            }
+            for (String k : ruleKeywords.get(r)) {
+                a.add(k, id);
+            }
+        }
+        a.build();
+        automaton = a;
+
+        slotByCategory.clear();
+        wordCounts.clear();
+        Arrays.fill(examples, 0);
+        Arrays.fill(wordTotals, 0);
+        totalExamples = 0;
+        for (int i = 0; i < notes.size(); i++) {
+            count(labels[i], notes.get(i));
+        }
+        loaded = true;
+    }
+
+    /**
+     * Drops all state; the next FinanceService call reloads from the database.
+     */
+    public synchronized void invalidate() {
+        automaton = new Automaton();
+        loaded = false;
+    }
+
+    /**
+     * Adds one labelled note to the model. Ignored until the model is loaded, since the
+     * load reads every stored note anyway.
+     */
+    public synchronized void learn(int categoryId, String note) {
+        if (loaded) {
+            count(categoryId, note);
+        }
+    }
+
+    private void count(int categoryId, String note) {
+        if (note == null || note.isBlank()) {
+            return;
+        }
+        int slot = slot(categoryId);
+        examples[slot]++;
+        totalExamples++;
+        for (String word : words(note)) {
+            int[] counts = wordCounts.computeIfAbsent(word, w -> new int[categoryIds.length]);
+            if (counts.length <= slot) {
+                counts = Arrays.copyOf(counts, categoryIds.length);
+                wordCounts.put(word, counts);
+            }
+            counts[slot]++;
+            wordTotals[slot]++;
+        }
+    }
+
+    /**
+     * Returns the suggested category id for a note, or -1 when there is none.
+     */
+    public synchronized int classify(String note) {
+        if (note == null || note.isBlank()) {
+            return -1;
+        }
+        String lower = note.toLowerCase(Locale.ROOT);
+        int id = automaton.longestMatch(lower);
+        return id >= 0 ? id : predict(lower);
+    }
+
+    /**
+     * Classifies many notes under one lock; entry i is the suggestion for notes[i] or -1.
+     */
+    public synchronized int[] classifyAll(List<String> notes) {
+        int[] ids = new int[notes.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = classify(notes.get(i));
+        }
+        return ids;
+    }
+
+    private int predict(String lower) {
+        int categories = slotByCategory.size();
+        if (totalExamples < MIN_EXAMPLES || categories < 2) {
+            return -1;
+        }
+        double[] scores = new double[categories];
+        for (int s = 0; s < categories; s++) {
+            scores[s] = Math.log(examples[s] / (double) totalExamples);
+        }
+        int vocabulary = wordCounts.size();
+        boolean known = false;
+        for (String word : words(lower)) {
+            int[] counts = wordCounts.get(word);
+            if (counts == null) {
+                continue;
+            }
+            known = true;
+            for (int s = 0; s < categories; s++) {
+                int c = s < counts.length ? counts[s] : 0;
+                scores[s] += Math.log((c + 1.0) / (wordTotals[s] + vocabulary));
+            }
+        }
+        if (!known) {
+            return -1;
+        }
+        int best = 0;
+        for (int s = 1; s < categories; s++) {
+            if (scores[s] > scores[best]) {
+                best = s;
+            }
+        }
+        // Posterior of the best category: 1 / sum(exp(score - best score))
+        double sum = 0;
+        for (int s = 0; s < categories; s++) {
+            sum += Math.exp(scores[s] - scores[best]);
+        }
+        return 1.0 / sum >= MIN_CONFIDENCE ? categoryIds[best] : -1;
+    }
+
+    private int slot(int categoryId) {
+        Integer slot = slotByCategory.get(categoryId);
+        if (slot == null) {
+            slot = slotByCategory.size();
+            if (slot == categoryIds.length) {
+                categoryIds = Arrays.copyOf(categoryIds, slot * 2);
+                examples = Arrays.copyOf(examples, slot * 2);
+                wordTotals = Arrays.copyOf(wordTotals, slot * 2);
+            }
+            categoryIds[slot] = categoryId;
+            slotByCategory.put(categoryId, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Lower-case words of two or more letters or digits; numbers alone are skipped.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        boolean letter = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char ch = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(ch)) {
+                if (start < 0) {
+                    start = i;
+                    letter = false;
+                }
+                letter |= Character.isLetter(ch);
+            } else if (start >= 0) {
+                if (i - start >= 2 && letter) {
+                    words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Aho-Corasick automaton over chars: a trie of the keywords with failure links, so
+     * one pass over the text finds every keyword occurrence.
+     */
+    static final class Automaton {
+        private final List<Map<Character, Integer>> next = new ArrayList<>();
+        private final List<Integer> fail = new ArrayList<>();
+        // Longest keyword ending at each state (via output links), its category and
+        // whether it may be followed by more of the word
+        private final List<Integer> outLength = new ArrayList<>();
+        private final List<Integer> outCategory = new ArrayList<>();
+        private final List<Boolean> outPrefix = new ArrayList<>();
+
+        Automaton() {
+            newState();
+        }
+
+        private int newState() {
+            next.add(new HashMap<>());
+            fail.add(0);
+            outLength.add(0);
+            outCategory.add(-1);
+            outPrefix.add(false);
+            return next.size() - 1;
+        }
+
+        /**
+         * Adds a keyword; the first category added for a keyword keeps it. A keyword ending
+         * in '*' also matches the start of longer words.
+         */
+        void add(String keyword, int categoryId) {
+            boolean prefix = keyword.endsWith("*");
+            if (prefix) {
+                keyword = keyword.substring(0, keyword.length() - 1);
+            }
+            if (keyword.isEmpty()) {
+                return;
+            }
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                Integer to = next.get(state).get(keyword.charAt(i));
+                if (to == null) {
+                    to = newState();
+                    next.get(state).put(keyword.charAt(i), to);
+                }
+                state = to;
+            }
+            if (outCategory.get(state) < 0) {
+                outLength.set(state, keyword.length());
+                outCategory.set(state, categoryId);
+                outPrefix.set(state, prefix);
+            }
+        }
+
+        /**
+         * Computes failure links breadth-first; call once after the last add().
+         */
+        void build() {
+            ArrayDeque<Integer> queue = new ArrayDeque<>(next.get(0).values());
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (Map.Entry<Character, Integer> e : next.get(state).entrySet()) {
+                    int child = e.getValue();
+                    int f = fail.get(state);
+                    while (f > 0 && !next.get(f).containsKey(e.getKey())) {
+                        f = fail.get(f);
+                    }
+                    Integer to = next.get(f).get(e.getKey());
+                    fail.set(child, to != null && to != child ? to : 0);
+                    // A shorter keyword ending here via the failure link still counts
+                    if (outCategory.get(child) < 0) {
+                        outLength.set(child, outLength.get(fail.get(child)));
+                        outCategory.set(child, outCategory.get(fail.get(child)));
+                        outPrefix.set(child, outPrefix.get(fail.get(child)));
+                    }
+                    queue.add(child);
+                }
+            }
+        }
+
+        /**
+         * Category of the longest keyword that is a word of {@code text}, or starts one for
+         * prefix keywords, or -1.
+         */
+        int longestMatch(String text) {
+            int state = 0;
+            int bestLength = 0;
+            int bestCategory = -1;
+            for (int i = 0; i < text.length(); i++) {
+                char ch = text.charAt(i);
+                Integer to;
+                while ((to = next.get(state).get(ch)) == null && state > 0) {
+                    state = fail.get(state);
+                }
+                state = to == null ? 0 : to;
+                boolean wordEnds = i + 1 == text.length() || !Character.isLetterOrDigit(text.charAt(i + 1));
+                // Walk the output chain for keywords starting at a word boundary
+                for (int s = state; s > 0 && outCategory.get(s) >= 0; s = fail.get(s)) {
+                    int length = outLength.get(s);
+                    int start = i - length + 1;
+                    if (length > bestLength && (wordEnds || outPrefix.get(s))
+                            && (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)))) {
+                        bestLength = length;
+                        bestCategory = outCategory.get(s);
+                    }
+                }
+            }
+            return bestCategory;
+        }
+    }
+}
@@ -5,6 +5,7 @@ public class Category {
     private String name;
     private double budgetLimit;
     private CategoryType type;
+    private BudgetPeriod budgetPeriod = BudgetPeriod.MONTHLY;
 
     // Default constructor
     public Category() {
@@ -58,12 +59,21 @@ public class Category {
         this.type = type;
     }
 
+    public BudgetPeriod getBudgetPeriod() {
+        return budgetPeriod;
+    }
+
+    public void setBudgetPeriod(BudgetPeriod budgetPeriod) {
+        this.budgetPeriod = budgetPeriod != null ? budgetPeriod : BudgetPeriod.MONTHLY;
+    }
+
     @Override
     public String toString() {
         return "Category{" +
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", budgetLimit=" + budgetLimit +
+                ", budgetPeriod=" + budgetPeriod +
                 ", type=" + type +
                 '}';
     }
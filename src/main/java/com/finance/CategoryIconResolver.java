@@ -0,0 +1,124 @@
+package com.finance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps categories to icon literals using keyword rules.
+ *
+ * Rules come from category-icons.txt next to finance.db if present, otherwise from the
+ * bundled default. The keyword scan runs once per category in prepare(); cells then look
+ * the icon up by category id.
+ */
+public class CategoryIconResolver {
+    public static final String DEFAULT_ICON = "fas-bullseye";
+    private static final String OVERRIDE_FILE = "category-icons.txt";
+
+    private final List<String[]> keywords = new ArrayList<>();
+    private final List<String> icons = new ArrayList<>();
+    private final Map<Integer, String> iconsById = new HashMap<>();
+
+    /**
+     * Loads the user's rule file if it exists, else the bundled defaults.
+     */
+    public static CategoryIconResolver loadDefault() {
+        CategoryIconResolver resolver = new CategoryIconResolver();
+        Path override = Paths.get(OVERRIDE_FILE);
+        try {
+            if (Files.exists(override)) {
+                try (Reader r = Files.newBufferedReader(override, StandardCharsets.UTF_8)) {
+                    resolver.loadRules(r);
+                }
+            } else {
+                try (InputStream in = CategoryIconResolver.class.getResourceAsStream("/com/finance/category-icons.txt")) {
+                    if (in != null) {
+                        resolver.loadRules(new InputStreamReader(in, StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.error("Error loading category icon rules", e);
+        }
+        return resolver;
+    }
+
+    /**
+     * Reads rules of the form {@code keyword, keyword = icon-literal}; '#' starts a comment.
+     */
+    public void loadRules(Reader reader) throws IOException {
+        BufferedReader br = new BufferedReader(reader);
+        String line;
+        while ((line = br.readLine()) != null) {
+            line = line.trim();
+            int eq = line.indexOf('=');
+            if (line.isEmpty() || line.startsWith("#") || eq < 0) {
+                continue;
+            }
+            String[] words = line.substring(0, eq).toLowerCase(Locale.ROOT).split("\\s*,\\s*");
+            String icon = line.substring(eq + 1).trim();
+            List<String> kept = new ArrayList<>();
+            for (String w : words) {
+                if (!w.trim().isEmpty()) {
+                    kept.add(w.trim());
+                }
+            }
+            if (!kept.isEmpty() && !icon.isEmpty()) {
+                keywords.add(kept.toArray(new String[0]));
+                icons.add(icon);
+            }
+        }
+        iconsById.clear();
+    }
+
+    /**
+     * Precomputes icons for the given categories so later lookups are a map hit.
+     */
+    public void prepare(List<Category> categories) {
+        iconsById.clear();
+        for (Category c : categories) {
+            iconsById.put(c.getId(), match(c.getName()));
+        }
+    }
+
+    /**
+     * Returns the icon literal for a category.
+     */
+    public String iconFor(Category category) {
+        if (category == null || category.getName() == null) {
+            return DEFAULT_ICON;
+        }
+        String icon = iconsById.get(category.getId());
+        if (icon == null) {
+            icon = match(category.getName());
+            iconsById.put(category.getId(), icon);
+        }
+        return icon;
+    }
+
+    private String match(String name) {
+        if (name == null) {
+            return DEFAULT_ICON;
+        }
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < keywords.size(); i++) {
+            for (String k : keywords.get(i)) {
+                if (lower.contains(k)) {
+                    return icons.get(i);
+                }
+            }
+        }
+        return DEFAULT_ICON;
+    }
+}
@@ -0,0 +1,401 @@
+package com.finance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Passphrase-encrypted, compressed file format for backups and exports.
+ *
+ * The plaintext is cut into {@link #CHUNK_SIZE} chunks; each is deflated (or kept as is
+ * if that does not make it smaller) and sealed with AES-256-GCM on a pool with one
+ * worker per core. At most {@link #WINDOW_PER_THREAD} chunks per worker are in flight,
+ * and finished chunks are written in order, so memory stays a few megabytes whatever
+ * the file size. The key comes from the passphrase via PBKDF2 with a random salt per
+ * file.
+ *
+ * Layout: header (magic, chunk size, PBKDF2 iterations, salt, nonce prefix), then per
+ * chunk a flags byte, the sealed length and the sealed bytes. The nonce is the prefix
+ * plus the chunk index, and the header, index and flags are authenticated with each
+ * chunk, so reordered, dropped or edited chunks fail to open; the last chunk carries a
+ * flag, so a truncated file fails too.
+ */
+public final class ChunkedCipher {
+    static final int CHUNK_SIZE = 1024 * 1024;
+    static final int WINDOW_PER_THREAD = 2;
+    static final int PBKDF2_ITERATIONS = 600_000;
+    // Refuse headers asking for absurd work before the passphrase is even checked
+    private static final int MAX_ITERATIONS = 10_000_000;
+    private static final byte[] MAGIC = "FINENC\0\1".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int SALT_BYTES = 16;
+    private static final int PREFIX_BYTES = 4;
+    private static final int HEADER_BYTES = MAGIC.length + 4 + 4 + SALT_BYTES + PREFIX_BYTES;
+    private static final int TAG_BITS = 128;
+    private static final int FLAG_LAST = 1;
+    private static final int FLAG_DEFLATED = 2;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private ChunkedCipher() {
+    }
+
+    /**
+     * Writes the plaintext for an encrypted file; see {@link #encryptFile(Path, char[], Content)}.
+     */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Encrypts {@code source} into {@code target}; a partial target is deleted on failure.
+     */
+    public static void encryptFile(Path source, Path target, char[] passphrase) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            encryptFile(target, passphrase, in::transferTo);
+        }
+    }
+
+    /**
+     * Encrypts whatever {@code content} writes into {@code target}. If it throws, the
+     * target is deleted rather than left as a shorter file that still opens.
+     */
+    public static void encryptFile(Path target, char[] passphrase, Content content) throws IOException {
+        try {
+            encrypt(Files.newOutputStream(target), passphrase, content);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Encrypts whatever {@code content} writes into {@code out} and closes it. If it throws,
+     * the last chunk is never written, so what reached {@code out} fails to decrypt.
+     */
+    static void encrypt(OutputStream out, char[] passphrase, Content content) throws IOException {
+        try (EncryptingStream sealed = (EncryptingStream) encrypt(out, passphrase)) {
+            try {
+                content.writeTo(sealed);
+            } catch (IOException | RuntimeException e) {
+                sealed.failed = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Decrypts {@code source} into {@code target}; a partial target is deleted on failure.
+     */
+    public static void decryptFile(Path source, Path target, char[] passphrase) throws IOException {
+        try (InputStream in = Files.newInputStream(source); OutputStream out = Files.newOutputStream(target)) {
+            decrypt(in, out, passphrase);
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a stream that encrypts everything written to it into {@code out}. Closing it
+     * writes the last chunk and closes {@code out}; without the close the file is unreadable.
+     * Once a write has failed, closing leaves the last chunk out, so the file is unreadable
+     * too. A failure in the code feeding the stream is not seen here; use
+     * {@link #encryptFile(Path, char[], Content)} for that.
+     */
+    public static OutputStream encrypt(OutputStream out, char[] passphrase) throws IOException {
+        byte[] salt = new byte[SALT_BYTES];
+        byte[] prefix = new byte[PREFIX_BYTES];
+        RANDOM.nextBytes(salt);
+        RANDOM.nextBytes(prefix);
+        byte[] header = ByteBuffer.allocate(HEADER_BYTES)
+                .put(MAGIC).putInt(CHUNK_SIZE).putInt(PBKDF2_ITERATIONS).put(salt).put(prefix)
+                .array();
+        SecretKey key = deriveKey(passphrase, salt, PBKDF2_ITERATIONS);
+        out.write(header);
+        return new EncryptingStream(out, key, header);
+    }
+
+    /**
+     * Decrypts a whole file written by {@link #encrypt} from {@code in} into {@code out}.
+     * Fails with an IOException on a wrong passphrase or a damaged or truncated file.
+     */
+    public static void decrypt(InputStream in, OutputStream out, char[] passphrase) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] header = new byte[HEADER_BYTES];
+        try {
+            data.readFully(header);
+        } catch (EOFException e) {
+            throw new IOException("Not an encrypted finance file");
+        }
+        ByteBuffer h = ByteBuffer.wrap(header);
+        byte[] magic = new byte[MAGIC.length];
+        h.get(magic);
+        int chunkSize = h.getInt();
+        int iterations = h.getInt();
+        if (!Arrays.equals(magic, MAGIC) || chunkSize <= 0 || chunkSize > 64 * CHUNK_SIZE
+                || iterations <= 0 || iterations > MAX_ITERATIONS) {
+            throw new IOException("Not an encrypted finance file");
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        h.get(salt);
+        SecretKey key = deriveKey(passphrase, salt, iterations);
+
+        long start = System.nanoTime();
+        ExecutorService pool = newPool();
+        ArrayDeque<Future<byte[]>> window = new ArrayDeque<>();
+        int maxInFlight = threads() * WINDOW_PER_THREAD;
+        try {
+            boolean last = false;
+            for (long index = 0; !last; index++) {
+                int flags = data.read();
+                if (flags < 0) {
+                    throw new IOException("Encrypted file is truncated");
+                }
+                int length = data.readInt();
+                if (length < TAG_BITS / 8 || length > chunkSize + TAG_BITS / 8) {
+                    throw new IOException("Encrypted file is damaged");
+                }
+                byte[] sealed = new byte[length];
+                data.readFully(sealed);
+                last = (flags & FLAG_LAST) != 0;
+                long i = index;
+                window.add(pool.submit(() -> open(key, header, i, flags, sealed, chunkSize)));
+                while (window.size() >= maxInFlight || (last && !window.isEmpty())) {
+                    out.write(await(window.poll()));
+                }
+            }
+            if (data.read() >= 0) {
+                throw new IOException("Encrypted file has data after its last chunk");
+            }
+        } catch (EOFException e) {
+            throw new IOException("Encrypted file is truncated", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+        Metrics.getInstance().timer("cipher.decrypt").recordNanos(System.nanoTime() - start);
+    }
+
+    private static SecretKey deriveKey(char[] passphrase, byte[] salt, int iterations) throws IOException {
+        PBEKeySpec spec = new PBEKeySpec(passphrase, salt, iterations, 256);
+        try {
+            byte[] raw = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            return new SecretKeySpec(raw, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Key derivation failed", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Compresses and encrypts one chunk into its frame: flags, sealed length, sealed bytes.
+     */
+    private static byte[] seal(SecretKey key, byte[] header, long index, byte[] chunk, boolean last)
+            throws GeneralSecurityException {
+        byte[] body = chunk;
+        int flags = last ? FLAG_LAST : 0;
+        byte[] deflated = deflate(chunk);
+        if (deflated != null) {
+            body = deflated;
+            flags |= FLAG_DEFLATED;
+        }
+        Cipher cipher = cipher(Cipher.ENCRYPT_MODE, key, header, index, flags);
+        byte[] frame = new byte[5 + cipher.getOutputSize(body.length)];
+        int sealed = cipher.doFinal(body, 0, body.length, frame, 5);
+        ByteBuffer.wrap(frame).put((byte) flags).putInt(sealed);
+        return frame;
+    }
+
+    private static byte[] open(SecretKey key, byte[] header, long index, int flags, byte[] sealed, int chunkSize)
+            throws IOException, GeneralSecurityException {
+        byte[] body = cipher(Cipher.DECRYPT_MODE, key, header, index, flags).doFinal(sealed);
+        if ((flags & FLAG_DEFLATED) == 0) {
+            return body;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(body);
+            byte[] chunk = new byte[chunkSize];
+            int n = inflater.inflate(chunk);
+            if (!inflater.finished()) {
+                throw new IOException("Encrypted file is damaged");
+            }
+            return n == chunk.length ? chunk : Arrays.copyOf(chunk, n);
+        } catch (DataFormatException e) {
+            throw new IOException("Encrypted file is damaged", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Deflated chunk, or null when deflating does not save anything (photos, already compressed data)
+    private static byte[] deflate(byte[] chunk) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(chunk);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(chunk.length / 2 + 64);
+            byte[] buf = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+                if (out.size() >= chunk.length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static Cipher cipher(int mode, SecretKey key, byte[] header, long index, int flags)
+            throws GeneralSecurityException {
+        byte[] nonce = ByteBuffer.allocate(12).put(header, HEADER_BYTES - PREFIX_BYTES, PREFIX_BYTES).putLong(index).array();
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(mode, key, new GCMParameterSpec(TAG_BITS, nonce));
+        cipher.updateAAD(header);
+        cipher.updateAAD(ByteBuffer.allocate(9).putLong(index).put((byte) flags).array());
+        return cipher;
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AEADBadTagException) {
+                throw new IOException("Wrong passphrase or damaged file");
+            }
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static int threads() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private static ExecutorService newPool() {
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads(), r -> {
+            Thread t = new Thread(r, "finance-cipher-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Buffers one chunk at a time and hands full chunks to the pool. A full chunk is only
+     * sealed once more data arrives, so the one that turns out last can carry the flag.
+     * After a failed write, close() only closes the target: a file whose writer broke off
+     * must not end in a valid last chunk.
+     */
+    private static final class EncryptingStream extends OutputStream {
+        private final OutputStream out;
+        private final SecretKey key;
+        private final byte[] header;
+        private final ExecutorService pool = newPool();
+        private final ArrayDeque<Future<byte[]>> window = new ArrayDeque<>();
+        private final int maxInFlight = threads() * WINDOW_PER_THREAD;
+        private final long start = System.nanoTime();
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int pos;
+        private long index;
+        private boolean closed;
+        private boolean failed;
+
+        EncryptingStream(OutputStream out, SecretKey key, byte[] header) {
+            this.out = out;
+            this.key = key;
+            this.header = header;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            try {
+                while (len > 0) {
+                    if (pos == CHUNK_SIZE) {
+                        submit(buffer, false);
+                        buffer = new byte[CHUNK_SIZE];
+                        pos = 0;
+                    }
+                    int n = Math.min(len, CHUNK_SIZE - pos);
+                    System.arraycopy(b, off, buffer, pos, n);
+                    pos += n;
+                    off += n;
+                    len -= n;
+                }
+            } catch (IOException | RuntimeException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        private void submit(byte[] chunk, boolean last) throws IOException {
+            long i = index++;
+            window.add(pool.submit(() -> seal(key, header, i, chunk, last)));
+            while (window.size() >= maxInFlight || (last && !window.isEmpty())) {
+                out.write(await(window.poll()));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (out) {
+                if (failed) {
+                    return;
+                }
+                submit(Arrays.copyOf(buffer, pos), true);
+            } finally {
+                buffer = null;
+                pool.shutdownNow();
+            }
+            Metrics.getInstance().timer("cipher.encrypt").recordNanos(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.finance;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small bounded pool of SQLite connections.
+ *
+ * Callers get a handle whose close() gives the connection back instead of closing it,
+ * so the existing try-with-resources code keeps working while several threads (FX,
+ * refresh, API requests) query at the same time. A thread that already holds a
+ * connection gets the same one again: nested helpers then see the caller's open
+ * transaction and can never wait on a pool slot their own thread is holding.
+ * A connection goes back with auto-commit on and any unfinished transaction rolled back.
+ * Connections wait up to five seconds for locks held by other processes, and transactions
+ * begin IMMEDIATE so writers queue on the lock instead of deadlocking.
+ */
+public class ConnectionPool {
+    static final int DEFAULT_SIZE = 8;
+    static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+    static final int BUSY_TIMEOUT_MILLIS = 5_000;
+
+    private final String url;
+    private final int size;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    private final ThreadLocal<Lease> current = new ThreadLocal<>();
+
+    public ConnectionPool(String url, int size, long timeoutMillis) {
+        this.url = url;
+        this.size = size;
+        this.timeoutMillis = timeoutMillis;
+        this.permits = new Semaphore(size, true);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the pool timeout for a free one.
+     *
+     * @return a handle to close when done
+     * @throws SQLException if none became free in time or a new connection failed to open
+     */
+    public Connection acquire() throws SQLException {
+        Lease lease = current.get();
+        if (lease != null && lease.holds > 0) {
+            lease.holds++;
+            return lease.handle();
+        }
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+        Connection physical = idle.poll();
+        boolean opened = false;
+        try {
+            if (physical == null || physical.isClosed()) {
+                physical = open();
+                opened = true;
+            }
+        } catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+        lease = new Lease(physical, opened);
+        current.set(lease);
+        return lease.handle();
+    }
+
+    /**
+     * True if the last acquire on this thread opened a new physical connection.
+     */
+    boolean lastAcquireOpened() {
+        Lease lease = current.get();
+        return lease != null && lease.opened;
+    }
+
+    /**
+     * Connections currently checked out.
+     */
+    public int getActiveCount() {
+        return size - permits.availablePermits();
+    }
+
+    /**
+     * Closes the idle connections; ones in use are returned to the pool as usual and
+     * the pool opens new connections on demand.
+     */
+    public void closeIdle() {
+        Connection c;
+        while ((c = idle.poll()) != null) {
+            try {
+                c.close();
+            } catch (SQLException e) {
+                Log.error("Error closing pooled connection", e);
+            }
+        }
+    }
+
+    private Connection open() throws SQLException {
+        org.sqlite.SQLiteConfig config = new org.sqlite.SQLiteConfig();
+        // Wait for another connection's (or process's) lock instead of failing with SQLITE_BUSY
+        config.setBusyTimeout(BUSY_TIMEOUT_MILLIS);
+        // Take the write lock at BEGIN: a deferred transaction that reads first and writes later
+        // can fail at once with SQLITE_BUSY, without waiting, when another process also writes
+        config.setTransactionMode(org.sqlite.SQLiteConfig.TransactionMode.IMMEDIATE);
+        return DriverManager.getConnection(url, config.toProperties());
+    }
+
+    private void release(Lease lease) {
+        if (current.get() == lease) {
+            current.remove();
+        }
+        Connection physical = lease.physical;
+        try {
+            if (!physical.isClosed()) {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                idle.offer(physical);
+            }
+        } catch (SQLException e) {
+            Log.error("Error returning connection to the pool", e);
+            try {
+                physical.close();
+            } catch (SQLException ignore) {
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * One thread's hold on a physical connection; counts the handles still open.
+     */
+    private final class Lease {
+        final Connection physical;
+        final boolean opened;
+        int holds = 1;
+
+        Lease(Connection physical, boolean opened) {
+            this.physical = physical;
+            this.opened = opened;
+        }
+
+        Connection handle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Handle(this));
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final Lease lease;
+        private boolean closed;
+
+        Handle(Lease lease) {
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (--lease.holds == 0) {
+                            release(lease);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || lease.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection handle is closed");
+                    }
+                    try {
+                        return method.invoke(lease.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -12,7 +12,6 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleButton;
-import javafx.scene.layout.HBox;
 
 import java.net.URL;
 import java.time.LocalDate;
@@ -28,6 +27,9 @@ public class DashboardController implements Initializable {
     @FXML
     private PieChart expensesChart;
     
+    @FXML
+    private javafx.scene.chart.StackedBarChart<String, Number> expensesHistoryChart;
+    
     @FXML
     private TextField amountField;
     
@@ -40,6 +42,15 @@ public class DashboardController implements Initializable {
     @FXML
     private TextArea noteField;
     
+    @FXML
+    private Button attachReceiptButton;
+    
+    @FXML
+    private javafx.scene.image.ImageView receiptPreview;
+    
+    // Store key of the receipt attached to the transaction being entered
+    private String pendingReceiptKey;
+    
     @FXML
     private Button saveButton;
     
@@ -58,24 +69,108 @@ public class DashboardController implements Initializable {
     @FXML
     private Button settingsButton;
     
+    @FXML
+    private javafx.scene.control.TableView<TransactionRow> transactionTable;
+    
+    @FXML
+    private javafx.scene.control.TableColumn<TransactionRow, LocalDate> dateColumn;
+    
+    @FXML
+    private javafx.scene.control.TableColumn<TransactionRow, String> accountColumn;
+    
+    @FXML
+    private javafx.scene.control.TableColumn<TransactionRow, String> categoryColumn;
+    
+    @FXML
+    private javafx.scene.control.TableColumn<TransactionRow, Double> amountColumn;
+    
+    @FXML
+    private javafx.scene.control.TableColumn<TransactionRow, String> noteColumn;
+    
+    @FXML
+    private javafx.scene.control.TableColumn<TransactionRow, String> receiptColumn;
+    
+    @FXML
+    private ComboBox<Category> tableCategoryFilter;
+    
+    private LazyTransactionList transactionRows;
+    
+    private final ObservableList<Account> accountItems = FXCollections.observableArrayList();
+    
+    private final ObservableList<Category> categoryItems = FXCollections.observableArrayList();
+    
+    private final CategoryIconResolver categoryIcons = CategoryIconResolver.loadDefault();
+    
+    // Placeholder entry of the table's category filter; id 0 means no filter
+    private static final Category ALL_CATEGORIES_FILTER = new Category(0, "All categories", 0.0, null);
+    
+    @FXML
+    private TextField searchField;
+    
+    @FXML
+    private javafx.scene.control.ListView<NoteSearchHit> searchResultsList;
+    
+    @FXML
+    private Button searchMoreButton;
+    
+    private static final int SEARCH_PAGE_SIZE = 50;
+    
+    // Searches run off the FX thread; the generation counter drops results of outdated queries
+    private final java.util.concurrent.ExecutorService searchExecutor = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "finance-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private final javafx.animation.PauseTransition searchDebounce = new javafx.animation.PauseTransition(javafx.util.Duration.millis(250));
+    private long searchGeneration;
+    
     private FinanceService financeService;
     
+    private RecurringScheduler recurringScheduler;
+    
+    // Category the note suggested; replaced as the note changes until the user picks another
+    private Category suggestedCategory;
+    
+    private static final int HISTORY_MONTHS = 6;
+    
+    private ExpensesChartModel expensesChartModel;
+    
+    // Balance, chart and list reloads are marked dirty here and run batched off the FX thread
+    private final DashboardRefreshScheduler refreshScheduler = new DashboardRefreshScheduler(javafx.application.Platform::runLater);
+    private volatile java.time.YearMonth selectedMonth = java.time.YearMonth.now();
+    
+    // Loads the chart data of months the user may pick next into the AggregateCache
+    private MonthPrefetcher monthPrefetcher;
+    
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         financeService = new FinanceService();
-        
-        // Load total balance
-        updateTotalBalance();
+        recurringScheduler = new RecurringScheduler(financeService);
+        monthPrefetcher = new MonthPrefetcher(month -> {
+            financeService.getExpensesByCategory(month);
+            financeService.getMonthlyExpensesByCategory(month.minusMonths(HISTORY_MONTHS - 1), month);
+        });
         
         // Initialize month selector (last 12 months)
         populateMonthSelector();
 
-        // Load PieChart data for the selected month
-        loadExpensesChart(java.time.YearMonth.now());
+        expensesChartModel = new ExpensesChartModel(expensesChart, expensesHistoryChart);
+        setupComboBoxCells();
+        setupCategorySuggestion();
+        
+        // Lazily paged transaction table
+        setupTransactionTable();
         
-        // Load ComboBoxes
-        loadAccounts();
-        loadCategories();
+        // Balance, chart and ComboBoxes load through the refresh scheduler
+        setupRefreshScheduler();
+        refreshScheduler.markDirty(DashboardRefreshScheduler.Region.BALANCE,
+                DashboardRefreshScheduler.Region.CHART, DashboardRefreshScheduler.Region.REFERENCE_LISTS);
+        
+        // Debounced as-you-type note search
+        setupNoteSearch();
+        
+        // React to budget, balance and recurring events without blocking the save flow
+        subscribeToEvents();
         
         // Check for recurring bill alerts
         checkRecurringAlerts();
@@ -86,6 +181,8 @@ public class DashboardController implements Initializable {
             handleExport();
         });
 
+        attachReceiptButton.setOnAction(e -> handleAttachReceipt());
+
         // Show a subtle notification after successful export (uses ControlsFX)
         // Add hover animation for save button
         saveButton.setOnAction(e -> {
@@ -157,10 +254,13 @@ public class DashboardController implements Initializable {
         dialog.setHeaderText("Application Settings");
         javafx.scene.control.ButtonType resetBtn = new javafx.scene.control.ButtonType("Reset Balances", javafx.scene.control.ButtonBar.ButtonData.LEFT);
         javafx.scene.control.ButtonType resetClearBtn = new javafx.scene.control.ButtonType("Reset & Clear All Transactions", javafx.scene.control.ButtonBar.ButtonData.OTHER);
+        javafx.scene.control.ButtonType diagnosticsBtn = new javafx.scene.control.ButtonType("Diagnostics", javafx.scene.control.ButtonBar.ButtonData.HELP);
         javafx.scene.control.ButtonType closeBtn = new javafx.scene.control.ButtonType("Close", javafx.scene.control.ButtonBar.ButtonData.CANCEL_CLOSE);
-        dialog.getButtonTypes().setAll(resetBtn, resetClearBtn, closeBtn);
+        dialog.getButtonTypes().setAll(resetBtn, resetClearBtn, diagnosticsBtn, closeBtn);
         dialog.showAndWait().ifPresent(bt -> {
-            if (bt == resetBtn) {
+            if (bt == diagnosticsBtn) {
+                DiagnosticsDialog.show(refreshScheduler);
+            } else if (bt == resetBtn) {
                 SettingsDialog.showResetBalancesConfirmation();
             } else if (bt == resetClearBtn) {
                 SettingsDialog.showResetAndClearConfirmation();
@@ -169,221 +269,336 @@ public class DashboardController implements Initializable {
     }
 
     /**
-     * Updates the total balance label with the sum of all account balances.
+     * Registers the loader for each dashboard region. Loaders run on the refresh thread
+     * and return the UI update, which the scheduler applies on the FX thread.
      */
-    private void updateTotalBalance() {
-        double totalBalance = financeService.getTotalBalance();
-        totalBalanceLabel.setText(String.format("Total Balance: $%.2f", totalBalance));
+    private void setupRefreshScheduler() {
+        refreshScheduler.register(DashboardRefreshScheduler.Region.BALANCE, () -> {
+            double totalBalance = financeService.getTotalBalance();
+            return () -> totalBalanceLabel.setText(totalBalanceText(totalBalance));
+        });
+        
+        // The chart model is thread-safe and applies its own updates on the next pulse
+        refreshScheduler.register(DashboardRefreshScheduler.Region.CHART, () -> {
+            java.time.YearMonth month = selectedMonth;
+            expensesChartModel.updateTotals(financeService.getExpensesByCategory(month));
+            expensesChartModel.updateHistory(financeService.getMonthlyExpensesByCategory(month.minusMonths(HISTORY_MONTHS - 1), month));
+            return null;
+        });
+        
+        refreshScheduler.register(DashboardRefreshScheduler.Region.REFERENCE_LISTS, () -> {
+            List<Account> accounts = financeService.getAllAccounts();
+            List<Category> categories = financeService.getAllCategories();
+            // Train the categorizer here so the entry form never waits for it
+            financeService.getCategorizer();
+            return () -> {
+                accountItems.setAll(accounts);
+                showCategories(categories);
+            };
+        });
+        
+        refreshScheduler.register(DashboardRefreshScheduler.Region.TRANSACTIONS, () -> transactionRows::reload);
+    }
+    
+    public DashboardRefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
     }
     
     /**
-     * Loads the expenses by category data into the PieChart.
+     * Installs the account and category cell factories. Called once; refreshes only
+     * replace the items, so existing cells and their icon nodes are reused.
      */
-    private void loadExpensesChart(java.time.YearMonth month) {
-        Map<String, Double> expensesByCategory = financeService.getExpensesByCategory(month);
-        
-        ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
+    private void setupComboBoxCells() {
+        accountComboBox.setItems(accountItems);
+        accountComboBox.setCellFactory(param -> new IconListCell<>(DashboardController::accountIcon, DashboardController::displayText));
+        accountComboBox.setButtonCell(new IconListCell<>(DashboardController::accountIcon, DashboardController::displayText));
         
-        for (Map.Entry<String, Double> entry : expensesByCategory.entrySet()) {
-            pieChartData.add(new PieChart.Data(entry.getKey(), entry.getValue()));
+        categoryComboBox.setItems(categoryItems);
+        categoryComboBox.setCellFactory(param -> new IconListCell<>(categoryIcons::iconFor, DashboardController::displayText));
+        categoryComboBox.setButtonCell(new IconListCell<>(categoryIcons::iconFor, DashboardController::displayText));
+    }
+    
+    /**
+     * Selects the category suggested by the note as the user types, unless they already
+     * picked a category themselves. Stays quiet until the categorizer has been loaded.
+     */
+    private void setupCategorySuggestion() {
+        noteField.textProperty().addListener((obs, oldText, text) -> {
+            Category selected = categoryComboBox.getValue();
+            if (selected != null && selected != suggestedCategory) {
+                return;
+            }
+            Categorizer categorizer = Categorizer.getInstance();
+            int id = categorizer.isLoaded() ? categorizer.classify(text) : -1;
+            suggestedCategory = categoryItems.stream().filter(c -> c.getId() == id).findFirst().orElse(null);
+            if (suggestedCategory != null) {
+                categoryComboBox.getSelectionModel().select(suggestedCategory);
+            } else {
+                categoryComboBox.getSelectionModel().clearSelection();
+            }
+        });
+    }
+    
+    /**
+     * Puts the categories into the category ComboBox and the table filter, keeping the filter selection.
+     */
+    private void showCategories(List<Category> categories) {
+        categoryIcons.prepare(categories);
+        categoryItems.setAll(categories);
+        Category selectedFilter = tableCategoryFilter.getValue();
+        ObservableList<Category> filterList = FXCollections.observableArrayList(ALL_CATEGORIES_FILTER);
+        filterList.addAll(categories);
+        tableCategoryFilter.setItems(filterList);
+        if (selectedFilter != null) {
+            filterList.stream().filter(c -> c.getId() == selectedFilter.getId()).findFirst()
+                    .ifPresent(tableCategoryFilter::setValue);
         }
-
-        // If no data, show a placeholder slice
-        boolean empty = pieChartData.isEmpty();
-        if (empty) {
-            pieChartData.add(new PieChart.Data("No expenses", 1));
-            expensesChart.setLegendVisible(false);
-            expensesChart.setLabelsVisible(false);
-        } else {
-            expensesChart.setLegendVisible(true);
-            expensesChart.setLabelsVisible(true);
+    }
+    
+    private static String displayText(Account account) {
+        return account.getName() + " (" + account.getType() + ")";
+    }
+    
+    private static String displayText(Category category) {
+        return category.getName() + " (" + category.getType() + ")";
+    }
+    
+    // Icon literal for each account type
+    private static String accountIcon(Account account) {
+        if (account == null || account.getType() == null) {
+            return "fas-credit-card";
         }
-
-        expensesChart.setData(pieChartData);
-        expensesChart.setStartAngle(90);
-
-        // Palette
-        String[] colors = new String[] {"#3db2a3", "#ffb86b", "#ff6b6b", "#6b8cff", "#9b59b6", "#f39c12", "#7bd389", "#e37bff"};
-
-        // Apply colors and tooltips when nodes are available
-        for (int i = 0; i < pieChartData.size(); i++) {
-            final int idx = i;
-            PieChart.Data d = pieChartData.get(i);
-            d.nodeProperty().addListener((obs, oldNode, newNode) -> {
-                if (newNode != null) {
-                    newNode.setStyle("-fx-pie-color: " + colors[idx % colors.length] + ";");
-                    javafx.scene.control.Tooltip t = new javafx.scene.control.Tooltip(d.getName() + ": " + String.format("$%.2f", d.getPieValue()));
-                    javafx.scene.control.Tooltip.install(newNode, t);
-                }
-            });
+        switch (account.getType()) {
+            case CASH:
+                return "fas-money-bill-wave";
+            case BANK:
+                return "fas-university";
+            case DIGITAL:
+            default:
+                return "fas-credit-card";
         }
     }
     
     /**
-     * Loads all accounts into the account ComboBox.
+     * Posts recurring bills that became due since the last run, off the FX thread since
+     * the catch-up waits for its write. The resulting RecurringPostedEvent is shown as a
+     * notification by the event listener.
      */
-    private void loadAccounts() {
-        List<Account> accounts = financeService.getAllAccounts();
-        ObservableList<Account> accountList = FXCollections.observableArrayList(accounts);
-        accountComboBox.setItems(accountList);
+    private void checkRecurringAlerts() {
+        java.util.concurrent.CompletableFuture.supplyAsync(() -> {
+            recurringScheduler.runCatchUp();
+            return recurringScheduler.upcoming(7);
+        }).thenAcceptAsync(upcoming -> {
+            if (!upcoming.isEmpty()) {
+                statusBarLabel.setText(String.format("Status: %d recurring bill(s) due in the next 7 days (next: %s on %s)",
+                        upcoming.size(), upcoming.get(0).getExpense().getName(), upcoming.get(0).getDueDate()));
+            }
+        }, javafx.application.Platform::runLater).exceptionally(e -> {
+            Log.error("Error checking recurring bills", e);
+            return null;
+        });
+    }
+
+    /**
+     * Sets up the transaction table on top of a LazyTransactionList. Sorting and filtering
+     * are pushed down to SQLite by changing the list's query instead of sorting in memory.
+     */
+    private void setupTransactionTable() {
+        transactionRows = new LazyTransactionList(financeService);
+        transactionTable.setItems(transactionRows);
+        transactionTable.setFixedCellSize(28);
+        transactionTable.setPlaceholder(new Label("No transactions"));
         
-        // Set cell factory to display account with an icon
-        accountComboBox.setCellFactory(param -> new javafx.scene.control.ListCell<Account>() {
+        dateColumn.setCellValueFactory(c -> new javafx.beans.property.ReadOnlyObjectWrapper<>(
+                c.getValue() != null ? c.getValue().getDate() : null));
+        accountColumn.setCellValueFactory(c -> new javafx.beans.property.ReadOnlyStringWrapper(
+                c.getValue() != null ? c.getValue().getAccountName() : null));
+        categoryColumn.setCellValueFactory(c -> new javafx.beans.property.ReadOnlyStringWrapper(
+                c.getValue() != null ? c.getValue().getCategoryName() : null));
+        amountColumn.setCellValueFactory(c -> new javafx.beans.property.ReadOnlyObjectWrapper<>(
+                c.getValue() != null ? c.getValue().getAmount() : null));
+        noteColumn.setCellValueFactory(c -> new javafx.beans.property.ReadOnlyStringWrapper(
+                c.getValue() != null ? c.getValue().getNote() : null));
+        receiptColumn.setCellValueFactory(c -> new javafx.beans.property.ReadOnlyStringWrapper(
+                c.getValue() != null ? c.getValue().getImagePath() : null));
+        receiptColumn.setCellFactory(col -> new ReceiptCell());
+        amountColumn.setCellFactory(col -> new javafx.scene.control.TableCell<TransactionRow, Double>() {
             @Override
-            protected void updateItem(Account item, boolean empty) {
+            protected void updateItem(Double item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                    setGraphic(null);
-                } else {
-                    javafx.scene.Node icon = getAccountIconNode(item);
-                    icon.setStyle("-fx-font-size: 14px; -fx-padding: 0 8 0 0;");
-                    Label text = new Label(item.getName() + " (" + item.getType() + ")");
-                    HBox h = new HBox(icon, text);
-                    h.setSpacing(6);
-                    setGraphic(h);
-                }
+                setText(empty || item == null ? null : String.format("$%.2f", item));
+            }
+        });
+        
+        // Sorting happens server-side: translate the table's sort order into the query
+        transactionTable.setSortPolicy(table -> {
+            TransactionQuery.SortColumn column = TransactionQuery.SortColumn.DATE;
+            boolean ascending = false;
+            if (!table.getSortOrder().isEmpty()) {
+                javafx.scene.control.TableColumn<TransactionRow, ?> first = table.getSortOrder().get(0);
+                column = first == amountColumn ? TransactionQuery.SortColumn.AMOUNT : TransactionQuery.SortColumn.DATE;
+                ascending = first.getSortType() == javafx.scene.control.TableColumn.SortType.ASCENDING;
+            }
+            TransactionQuery q = transactionRows.getQuery();
+            if (q.getSortColumn() != column || q.isAscending() != ascending) {
+                transactionRows.setQuery(q.withSort(column, ascending));
             }
+            return true;
         });
         
-        // Set button cell to display account with icon
-        accountComboBox.setButtonCell(new javafx.scene.control.ListCell<Account>() {
+        tableCategoryFilter.setConverter(new javafx.util.StringConverter<Category>() {
             @Override
-            protected void updateItem(Account item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                    setGraphic(null);
-                } else {
-                    javafx.scene.Node icon = getAccountIconNode(item);
-                    icon.setStyle("-fx-font-size: 14px; -fx-padding: 0 8 0 0;");
-                    Label text = new Label(item.getName() + " (" + item.getType() + ")");
-                    HBox h = new HBox(icon, text);
-                    h.setSpacing(6);
-                    setGraphic(h);
-                }
+            public String toString(Category object) {
+                return object != null ? object.getName() : "";
+            }
+
+            @Override
+            public Category fromString(String string) {
+                return null;
             }
         });
+        tableCategoryFilter.valueProperty().addListener((obs, oldV, newV) ->
+                transactionRows.setQuery(transactionRows.getQuery().withCategory(newV != null ? newV.getId() : 0)));
+        
+        transactionRows.setQuery(transactionRows.getQuery().withMonth(
+                monthComboBox.getValue() != null ? monthComboBox.getValue() : java.time.YearMonth.now()));
     }
-    
+
     /**
-     * Loads all categories into the category ComboBox.
+     * Wires the note search box: typing restarts a short debounce timer, and the query
+     * then runs on the search thread so the FX thread never waits on SQLite.
      */
-    private void loadCategories() {
-        List<Category> categories = financeService.getAllCategories();
-        ObservableList<Category> categoryList = FXCollections.observableArrayList(categories);
-        categoryComboBox.setItems(categoryList);
-        
-        // Set cell factory to display category with an icon
-        categoryComboBox.setCellFactory(param -> new javafx.scene.control.ListCell<Category>() {
+    private void setupNoteSearch() {
+        searchResultsList.setPlaceholder(new Label("Type to search notes"));
+        searchResultsList.setCellFactory(param -> new javafx.scene.control.ListCell<NoteSearchHit>() {
             @Override
-            protected void updateItem(Category item, boolean empty) {
+            protected void updateItem(NoteSearchHit item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
                     setText(null);
-                    setGraphic(null);
                 } else {
-                    javafx.scene.Node icon = getCategoryIconNode(item);
-                    icon.setStyle("-fx-font-size: 14px; -fx-padding: 0 8 0 0;");
-                    Label text = new Label(item.getName() + " (" + item.getType() + ")");
-                    HBox h = new HBox(icon, text);
-                    h.setSpacing(6);
-                    setGraphic(h);
+                    setText(String.format("%s  %s  $%.2f  %s", item.getDate(),
+                            item.getCategoryName() != null ? item.getCategoryName() : "?", item.getAmount(), item.getSnippet()));
                 }
             }
         });
         
-        // Set button cell to display category with icon
-        categoryComboBox.setButtonCell(new javafx.scene.control.ListCell<Category>() {
-            @Override
-            protected void updateItem(Category item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                    setGraphic(null);
-                } else {
-                    javafx.scene.Node icon = getCategoryIconNode(item);
-                    icon.setStyle("-fx-font-size: 14px; -fx-padding: 0 8 0 0;");
-                    Label text = new Label(item.getName() + " (" + item.getType() + ")");
-                    HBox h = new HBox(icon, text);
-                    h.setSpacing(6);
-                    setGraphic(h);
-                }
+        searchDebounce.setOnFinished(e -> runNoteSearch(searchField.getText(), null));
+        searchField.textProperty().addListener((obs, oldV, newV) -> searchDebounce.playFromStart());
+        searchMoreButton.setOnAction(e -> {
+            List<NoteSearchHit> items = searchResultsList.getItems();
+            if (!items.isEmpty()) {
+                runNoteSearch(searchField.getText(), items.get(items.size() - 1));
             }
         });
     }
-    
+
     /**
-     * Checks for recurring expenses due today and displays alerts.
+     * Runs a note search in the background and shows the page when it arrives, unless a
+     * newer query was started in the meantime.
      */
-    private void checkRecurringAlerts() {
-        List<String> alerts = financeService.checkRecurringDue();
-        
-        if (!alerts.isEmpty()) {
-            StringBuilder alertMessage = new StringBuilder("Recurring Bills Due Today:\n\n");
-            for (String alert : alerts) {
-                alertMessage.append("• ").append(alert).append("\n");
+    private void runNoteSearch(String text, NoteSearchHit after) {
+        final long generation = after == null ? ++searchGeneration : searchGeneration;
+        javafx.concurrent.Task<List<NoteSearchHit>> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected List<NoteSearchHit> call() {
+                return financeService.searchNotes(text, after, SEARCH_PAGE_SIZE);
             }
-            
-            Alert alert = new Alert(Alert.AlertType.WARNING);
-            alert.setTitle("Recurring Bills Due");
-            alert.setHeaderText("You have recurring expenses due today!");
-            alert.setContentText(alertMessage.toString());
-            alert.showAndWait();
-        }
+        };
+        task.setOnSucceeded(e -> {
+            if (generation != searchGeneration) {
+                return;
+            }
+            List<NoteSearchHit> page = task.getValue();
+            if (after == null) {
+                searchResultsList.getItems().setAll(page);
+                searchResultsList.setPlaceholder(new Label(text.isBlank() ? "Type to search notes" : "No matching notes"));
+            } else {
+                searchResultsList.getItems().addAll(page);
+            }
+            boolean more = page.size() == SEARCH_PAGE_SIZE;
+            searchMoreButton.setVisible(more);
+            searchMoreButton.setManaged(more);
+        });
+        searchExecutor.execute(task);
     }
 
-    // Helper to map a category to an ikon FontIcon node
-    private javafx.scene.Node getCategoryIconNode(Category category) {
-        org.kordamp.ikonli.javafx.FontIcon icon = new org.kordamp.ikonli.javafx.FontIcon();
-        if (category == null || category.getName() == null) {
-            icon.setIconLiteral("fas-bullseye");
-            return icon;
-        }
-        String name = category.getName().toLowerCase();
-        if (name.contains("groc")) icon.setIconLiteral("fas-shopping-cart");
-        else if (name.contains("util")) icon.setIconLiteral("fas-lightbulb");
-        else if (name.contains("trans") || name.contains("taxi") || name.contains("uber") || name.contains("bus")) icon.setIconLiteral("fas-car");
-        else if (name.contains("salary") || name.contains("income")) icon.setIconLiteral("fas-briefcase");
-        else icon.setIconLiteral("fas-bullseye");
-        return icon;
+    // The total is converted into the reporting currency, so label it with that currency
+    private static String totalBalanceText(double total) {
+        String symbol = java.util.Currency.getInstance(FxRates.getInstance().getReportingCurrency()).getSymbol();
+        return String.format("Total Balance: %s%.2f", symbol, total);
     }
 
-    // Helper to map an account to an icon node
-    private javafx.scene.Node getAccountIconNode(Account account) {
-        org.kordamp.ikonli.javafx.FontIcon icon = new org.kordamp.ikonli.javafx.FontIcon();
-        icon.getStyleClass().add("icon");
-        if (account == null || account.getType() == null) {
-            icon.setIconLiteral("fas-credit-card");
-            return icon;
+    /**
+     * Subscribes the dashboard to finance events. Events arrive on the event thread,
+     * so every handler hops to the FX thread before touching the UI.
+     */
+    private void subscribeToEvents() {
+        FinanceEvents.installDefaultListeners(financeService);
+        EventBus bus = EventBus.getInstance();
+        
+        bus.subscribe(FinanceEvents.BalanceChangedEvent.class, e -> javafx.application.Platform.runLater(() ->
+            totalBalanceLabel.setText(totalBalanceText(e.getTotalBalance()))));
+        
+        bus.subscribe(FinanceEvents.BudgetThresholdEvent.class, e -> javafx.application.Platform.runLater(() -> {
+            BudgetStatus st = e.getStatus();
+            String text = String.format("%s has used %.0f%% of its budget (%.2f of %.2f).",
+                    st.getCategoryName(), st.getRatio() * 100, st.getSpent(), st.getLimit());
+            showNotification(e.getThresholdPercent() >= 100 ? "Budget Exceeded" : "Budget " + e.getThresholdPercent() + "% Reached",
+                    text, true);
+        }));
+        
+        // Transfers move money between accounts without touching expenses
+        bus.subscribe(FinanceEvents.TransferPostedEvent.class, e ->
+            refreshScheduler.markDirty(DashboardRefreshScheduler.Region.REFERENCE_LISTS));
+        
+        bus.subscribe(FinanceEvents.FxRatesChangedEvent.class, e ->
+            refreshScheduler.markDirty(DashboardRefreshScheduler.Region.BALANCE, DashboardRefreshScheduler.Region.CHART));
+        
+        // Another app instance or the CLI wrote to finance.db: reload everything, coalesced.
+        // The cached engines drop their own state on the same event.
+        bus.subscribe(FinanceEvents.ExternalChangeEvent.class, e -> refreshScheduler.markAllDirty());
+        
+        bus.subscribe(FinanceEvents.RecurringPostedEvent.class, e -> javafx.application.Platform.runLater(() -> {
+            StringBuilder text = new StringBuilder();
+            boolean anyPosted = false;
+            for (RecurringScheduler.Occurrence o : e.getOccurrences()) {
+                text.append(String.format("%s (%s): %.2f%s%n", o.getExpense().getName(), o.getDueDate(),
+                        o.getExpense().getAmount(), o.isPosted() ? "" : " - not posted"));
+                anyPosted |= o.isPosted();
+            }
+            if (anyPosted) {
+                refreshScheduler.markDirty(DashboardRefreshScheduler.Region.CHART, DashboardRefreshScheduler.Region.TRANSACTIONS);
+            }
+            showNotification("Recurring Bills Due", text.toString().trim(), true);
+        }));
+    }
+
+    /**
+     * Shows a non-blocking ControlsFX notification in the corner of the dashboard.
+     */
+    private void showNotification(String title, String text, boolean warning) {
+        org.controlsfx.control.Notifications n = org.controlsfx.control.Notifications.create()
+                .title(title)
+                .text(text)
+                .position(javafx.geometry.Pos.BOTTOM_RIGHT)
+                .hideAfter(javafx.util.Duration.seconds(warning ? 8 : 4));
+        if (totalBalanceLabel.getScene() != null && totalBalanceLabel.getScene().getWindow() != null) {
+            n.owner(totalBalanceLabel.getScene().getWindow());
         }
-        switch (account.getType()) {
-            case CASH:
-                icon.setIconLiteral("fas-money-bill-wave");
-                break;
-            case BANK:
-                icon.setIconLiteral("fas-university");
-                break;
-            case DIGITAL:
-            default:
-                icon.setIconLiteral("fas-credit-card");
-                break;
+        if (warning) {
+            n.showWarning();
+        } else {
+            n.showInformation();
         }
-        return icon;
     }
-    
+
     /**
      * Public method called to refresh the dashboard UI (balances, charts, lists).
      */
     public void refreshDashboard() {
-        javafx.application.Platform.runLater(() -> {
-            updateTotalBalance();
-            java.time.YearMonth sel = monthComboBox.getValue() != null ? monthComboBox.getValue() : java.time.YearMonth.now();
-            loadExpensesChart(sel);
-            loadAccounts();
-            loadCategories();
-            statusBarLabel.setText("Status: Dashboard refreshed.");
-        });
+        refreshScheduler.markAllDirty();
+        javafx.application.Platform.runLater(() -> statusBarLabel.setText("Status: Dashboard refreshed."));
     }
 
     private void populateMonthSelector() {
@@ -408,13 +623,21 @@ public class DashboardController implements Initializable {
         });
         monthComboBox.getSelectionModel().selectFirst();
         monthComboBox.valueProperty().addListener((obs, oldV, newV) -> {
-            if (newV != null) loadExpensesChart(newV);
+            if (newV != null) {
+                selectedMonth = newV;
+                refreshScheduler.markDirty(DashboardRefreshScheduler.Region.CHART);
+                monthPrefetcher.selected(newV);
+                if (transactionRows != null) {
+                    transactionRows.setQuery(transactionRows.getQuery().withMonth(newV));
+                }
+            }
         });
+        monthPrefetcher.selected(monthComboBox.getValue());
     }
 
     /**
      * Handles the Save button click event.
-     * Validates input, checks budget warning, and saves the transaction.
+     * Validates input and saves the transaction; budget alerts follow as notifications.
      */
     @FXML
     private void handleSave() {
@@ -445,33 +668,8 @@ public class DashboardController implements Initializable {
             Account selectedAccount = accountComboBox.getSelectionModel().getSelectedItem();
             String note = noteField.getText().trim();
             
-            // Check budget warning before saving
-            String budgetWarning = financeService.checkBudgetWarning(selectedCategory.getId(), amount);
-            
-            if (budgetWarning != null) {
-                // Show warning dialog
-                Alert warningAlert = new Alert(Alert.AlertType.WARNING);
-                warningAlert.setTitle("Budget Warning");
-                warningAlert.setHeaderText("Budget Limit Exceeded");
-                warningAlert.setContentText(budgetWarning + "\n\nDo you still want to proceed?");
-                
-                // Add buttons
-                javafx.scene.control.ButtonType proceedButton = new javafx.scene.control.ButtonType("Proceed", javafx.scene.control.ButtonBar.ButtonData.OK_DONE);
-                javafx.scene.control.ButtonType cancelButton = new javafx.scene.control.ButtonType("Cancel", javafx.scene.control.ButtonBar.ButtonData.CANCEL_CLOSE);
-                warningAlert.getButtonTypes().setAll(proceedButton, cancelButton);
-                
-                // Show dialog and wait for user response
-                warningAlert.showAndWait().ifPresent(buttonType -> {
-                    if (buttonType == proceedButton) {
-                        // User chose to proceed, save the transaction
-                        saveTransaction(selectedAccount.getId(), selectedCategory.getId(), amount, note);
-                    }
-                    // If cancel, do nothing
-                });
-            } else {
-                // No warning, proceed with saving
-                saveTransaction(selectedAccount.getId(), selectedCategory.getId(), amount, note);
-            }
+            // Budget thresholds are reported asynchronously through BudgetThresholdEvent
+            saveTransaction(selectedAccount.getId(), selectedCategory.getId(), amount, note);
             
         } catch (NumberFormatException e) {
             showErrorAlert("Validation Error", "Please enter a valid number for the amount.");
@@ -479,45 +677,126 @@ public class DashboardController implements Initializable {
     }
     
     /**
-     * Saves the transaction and refreshes the UI.
+     * Queues the transaction on the database writer and refreshes the UI once it is
+     * committed. Save stays disabled meanwhile so a double click does not book it twice.
      */
     private void saveTransaction(int accountId, int categoryId, double amount, String note) {
-        boolean success = financeService.addTransaction(
+        saveButton.setDisable(true);
+        statusBarLabel.setText("Status: Saving transaction...");
+        financeService.addTransactionAsync(
             accountId,
             categoryId,
             amount,
             LocalDate.now(),
             note.isEmpty() ? null : note,
-            null // image_path not implemented yet
-        );
-        
+            pendingReceiptKey
+        ).thenAcceptAsync(this::transactionSaved, javafx.application.Platform::runLater);
+    }
+    
+    private void transactionSaved(boolean success) {
+        saveButton.setDisable(false);
         if (success) {
             // Clear form
             amountField.clear();
             categoryComboBox.getSelectionModel().clearSelection();
             accountComboBox.getSelectionModel().clearSelection();
             noteField.clear();
+            pendingReceiptKey = null;
+            receiptPreview.setImage(null);
             
-            // Refresh UI
-            updateTotalBalance();
-            java.time.YearMonth sel = monthComboBox.getValue() != null ? monthComboBox.getValue() : java.time.YearMonth.now();
-            loadExpensesChart(sel);
+            // Refresh UI (the balance label follows from BalanceChangedEvent)
+            refreshScheduler.markDirty(DashboardRefreshScheduler.Region.CHART, DashboardRefreshScheduler.Region.TRANSACTIONS);
             
             // Update status bar
             statusBarLabel.setText("Status: Transaction saved successfully!");
             
-            // Show success message
-            Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
-            successAlert.setTitle("Success");
-            successAlert.setHeaderText("Transaction Saved");
-            successAlert.setContentText("The transaction has been saved successfully.");
-            successAlert.showAndWait();
+            showNotification("Transaction Saved", "The transaction has been saved successfully.", false);
         } else {
             showErrorAlert("Error", "Failed to save transaction. Please try again.");
             statusBarLabel.setText("Status: Error saving transaction!");
         }
     }
     
+    /**
+     * Lets the user pick a receipt image, copies it into the receipt store off the FX
+     * thread and shows its thumbnail next to the button. Saving waits until the receipt
+     * is stored, so it is attached to the transaction it was picked for.
+     */
+    private void handleAttachReceipt() {
+        javafx.stage.FileChooser chooser = new javafx.stage.FileChooser();
+        chooser.setTitle("Attach Receipt");
+        chooser.getExtensionFilters().add(new javafx.stage.FileChooser.ExtensionFilter(
+                "Images", "*.jpg", "*.jpeg", "*.png", "*.gif", "*.bmp"));
+        java.io.File file = chooser.showOpenDialog(attachReceiptButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        ReceiptStore store = ReceiptStore.getInstance();
+        statusBarLabel.setText("Status: Storing receipt...");
+        saveButton.setDisable(true);
+        attachReceiptButton.setDisable(true);
+        store.storeAsync(file.toPath())
+            .thenCompose(key -> store.thumbnail(key).thenApply(bytes -> Map.entry(key, bytes)))
+            .whenComplete((stored, error) -> javafx.application.Platform.runLater(() -> {
+                saveButton.setDisable(false);
+                attachReceiptButton.setDisable(false);
+                if (error != null) {
+                    Log.error("Error storing receipt", error, "file", file);
+                    showErrorAlert("Receipt Error", "Could not store the receipt image.");
+                    statusBarLabel.setText("Status: Error storing receipt!");
+                    return;
+                }
+                pendingReceiptKey = stored.getKey();
+                receiptPreview.setImage(toImage(stored.getValue()));
+                statusBarLabel.setText("Status: Receipt attached");
+            }));
+    }
+    
+    private static javafx.scene.image.Image toImage(byte[] png) {
+        return png == null ? null : new javafx.scene.image.Image(new java.io.ByteArrayInputStream(png));
+    }
+    
+    /**
+     * Table cell showing a receipt thumbnail. Only cells on screen ask the store for one;
+     * a thumbnail not in memory yet is filled in when it arrives, unless the cell has
+     * been reused for another row meanwhile.
+     */
+    private static final class ReceiptCell extends javafx.scene.control.TableCell<TransactionRow, String> {
+        private final javafx.scene.image.ImageView view = new javafx.scene.image.ImageView();
+        
+        ReceiptCell() {
+            view.setFitHeight(24);
+            view.setFitWidth(48);
+            view.setPreserveRatio(true);
+        }
+        
+        @Override
+        protected void updateItem(String key, boolean empty) {
+            super.updateItem(key, empty);
+            if (empty || key == null) {
+                setGraphic(null);
+                return;
+            }
+            ReceiptStore store = ReceiptStore.getInstance();
+            byte[] cached = store.cachedThumbnail(key);
+            if (cached != null) {
+                show(cached);
+                return;
+            }
+            setGraphic(null);
+            store.thumbnail(key).thenAccept(bytes -> javafx.application.Platform.runLater(() -> {
+                if (key.equals(getItem())) {
+                    show(bytes);
+                }
+            }));
+        }
+        
+        private void show(byte[] png) {
+            view.setImage(toImage(png));
+            setGraphic(png == null ? null : view);
+        }
+    }
+    
     /**
      * Handles export of the selected month to CSV.
      */
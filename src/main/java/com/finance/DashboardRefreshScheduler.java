@@ -0,0 +1,188 @@
+package com.finance;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces dashboard refreshes. Callers mark regions dirty; after the changes stop for
+ * DEBOUNCE_MILLIS (or at most MAX_DELAY_MILLIS after the first mark) every dirty region
+ * runs its loader once on a background thread, and the UI update it returns is handed to
+ * the UI executor. A burst of N changes therefore costs one query per region, not N full reloads.
+ */
+public class DashboardRefreshScheduler {
+    public enum Region {
+        BALANCE, CHART, REFERENCE_LISTS, TRANSACTIONS
+    }
+
+    static final long DEBOUNCE_MILLIS = 150;
+    static final long MAX_DELAY_MILLIS = 1000;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "finance-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Executor uiExecutor;
+    private final long debounceMillis;
+    private final long maxDelayMillis;
+
+    private final Map<Region, Supplier<Runnable>> loaders = new EnumMap<>(Region.class);
+    private final Map<Region, Stats> stats = new EnumMap<>(Region.class);
+
+    // Guarded by this
+    private final Set<Region> dirty = EnumSet.noneOf(Region.class);
+    private final Map<Region, Long> dirtySince = new EnumMap<>(Region.class);
+    private long firstMarkNanos;
+    private ScheduledFuture<?> pendingFlush;
+
+    /**
+     * @param uiExecutor runs the UI updates, normally {@code Platform::runLater}
+     */
+    public DashboardRefreshScheduler(Executor uiExecutor) {
+        this(uiExecutor, DEBOUNCE_MILLIS, MAX_DELAY_MILLIS);
+    }
+
+    DashboardRefreshScheduler(Executor uiExecutor, long debounceMillis, long maxDelayMillis) {
+        this.uiExecutor = uiExecutor;
+        this.debounceMillis = debounceMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        for (Region region : Region.values()) {
+            stats.put(region, new Stats());
+        }
+    }
+
+    /**
+     * Sets the loader for a region. The loader runs on the refresh thread and returns the
+     * update to apply on the UI thread (or null for none).
+     */
+    public synchronized void register(Region region, Supplier<Runnable> loader) {
+        loaders.put(region, loader);
+    }
+
+    /**
+     * Marks regions as needing a refresh and (re)starts the debounce timer.
+     */
+    public synchronized void markDirty(Region... regions) {
+        long now = System.nanoTime();
+        if (dirty.isEmpty()) {
+            firstMarkNanos = now;
+        }
+        for (Region region : regions) {
+            if (dirty.add(region)) {
+                dirtySince.put(region, now);
+            }
+            stats.get(region).marked();
+        }
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+        }
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(now - firstMarkNanos);
+        long delay = Math.max(0, Math.min(debounceMillis, maxDelayMillis - waitedMillis));
+        pendingFlush = worker.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks every region dirty.
+     */
+    public void markAllDirty() {
+        markDirty(Region.values());
+    }
+
+    public Stats getStats(Region region) {
+        return stats.get(region);
+    }
+
+    private void flush() {
+        Set<Region> regions;
+        Map<Region, Long> since;
+        synchronized (this) {
+            regions = dirty.isEmpty() ? EnumSet.noneOf(Region.class) : EnumSet.copyOf(dirty);
+            since = new EnumMap<>(dirtySince);
+            dirty.clear();
+            dirtySince.clear();
+            pendingFlush = null;
+        }
+        for (Region region : regions) {
+            Supplier<Runnable> loader;
+            synchronized (this) {
+                loader = loaders.get(region);
+            }
+            if (loader == null) {
+                continue;
+            }
+            long start = System.nanoTime();
+            Runnable update;
+            try {
+                update = loader.get();
+            } catch (RuntimeException e) {
+                Log.error("Error refreshing dashboard region", e, "region", region);
+                continue;
+            }
+            long queryNanos = System.nanoTime() - start;
+            long markedAt = since.getOrDefault(region, start);
+            uiExecutor.execute(() -> {
+                if (update != null) {
+                    update.run();
+                }
+                stats.get(region).refreshed(queryNanos, System.nanoTime() - markedAt);
+            });
+        }
+    }
+
+    /**
+     * Refresh counters for one region. Latency runs from the first mark of a batch until
+     * its UI update has been applied.
+     */
+    public static class Stats {
+        private long marks;
+        private long refreshes;
+        private long totalQueryNanos;
+        private long maxQueryNanos;
+        private long totalLatencyNanos;
+
+        synchronized void marked() {
+            marks++;
+        }
+
+        synchronized void refreshed(long queryNanos, long latencyNanos) {
+            refreshes++;
+            totalQueryNanos += queryNanos;
+            maxQueryNanos = Math.max(maxQueryNanos, queryNanos);
+            totalLatencyNanos += latencyNanos;
+        }
+
+        public synchronized long getMarks() {
+            return marks;
+        }
+
+        public synchronized long getRefreshes() {
+            return refreshes;
+        }
+
+        public synchronized double getAverageQueryMillis() {
+            return refreshes == 0 ? 0 : totalQueryNanos / 1e6 / refreshes;
+        }
+
+        public synchronized double getMaxQueryMillis() {
+            return maxQueryNanos / 1e6;
+        }
+
+        public synchronized double getAverageLatencyMillis() {
+            return refreshes == 0 ? 0 : totalLatencyNanos / 1e6 / refreshes;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("marks=%d, refreshes=%d, avgQuery=%.1fms, maxQuery=%.1fms, avgLatency=%.1fms",
+                    marks, refreshes, getAverageQueryMillis(), getMaxQueryMillis(), getAverageLatencyMillis());
+        }
+    }
+}
@@ -1,23 +1,33 @@
 package com.finance;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 public class DatabaseHelper {
-    private static final String DB_URL = "jdbc:sqlite:finance.db";
+    // System property naming the database file; read once, when the singleton is created
+    public static final String DB_PATH_PROPERTY = "finance.db.path";
+    private static final String DEFAULT_DB_PATH = "finance.db";
+    // Rows a new database starts with, as (name, ...) VALUES lists
+    private static final String SEED_ACCOUNTS =
+            "('Cash', 'CASH', 100.0), ('Checking', 'BANK', 1000.0), ('Credit Card', 'DIGITAL', 500.0)";
+    private static final String SEED_CATEGORIES = "('Groceries', 500.0, 'EXPENSE'), ('Utilities', 200.0, 'EXPENSE'), "
+            + "('Transport', 150.0, 'EXPENSE'), ('Salary', 0.0, 'INCOME')";
     private static DatabaseHelper instance;
-    private Connection connection;
+    private final String dbPath;
+    private final String dbUrl;
+    private final ConnectionPool pool;
 
     // Private constructor for singleton pattern
     private DatabaseHelper() {
-        try {
-            connection = DriverManager.getConnection(DB_URL);
-        } catch (SQLException e) {
-            System.err.println("Error connecting to database: " + e.getMessage());
-            e.printStackTrace();
-        }
+        this(System.getProperty(DB_PATH_PROPERTY, DEFAULT_DB_PATH));
+    }
+
+    // Package-private so tests can open a second database next to the singleton's
+    DatabaseHelper(String dbPath) {
+        this.dbPath = dbPath;
+        dbUrl = "jdbc:sqlite:" + dbPath;
+        pool = new ConnectionPool(dbUrl, ConnectionPool.DEFAULT_SIZE, ConnectionPool.DEFAULT_TIMEOUT_MILLIS);
     }
 
     // Singleton instance getter
@@ -28,15 +38,28 @@ public class DatabaseHelper {
         return instance;
     }
 
-    // Get database connection
+    // Borrow a pooled connection; closing it returns it to the pool. The time spent
+    // waiting for a free connection (or opening one) is recorded as connection wait.
     public Connection getConnection() {
+        JfrEvents.ConnectionEvent event = JfrEvents.isRecorderActive() ? new JfrEvents.ConnectionEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long start = System.nanoTime();
+        Connection connection = null;
         try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(DB_URL);
-            }
+            connection = pool.acquire();
         } catch (SQLException e) {
-            System.err.println("Error getting database connection: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error getting database connection", e);
+        }
+        Metrics.getInstance().recordConnectionWait(System.nanoTime() - start);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.reopened = pool.lastAcquireOpened();
+                event.threadName = Thread.currentThread().getName();
+                event.commit();
+            }
         }
         return connection;
     }
@@ -48,7 +71,9 @@ public class DatabaseHelper {
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
                 name TEXT NOT NULL,
                 type TEXT NOT NULL CHECK(type IN ('CASH', 'DIGITAL', 'BANK')),
-                balance REAL NOT NULL DEFAULT 0.0
+                balance REAL NOT NULL DEFAULT 0.0,
+                version INTEGER NOT NULL DEFAULT 0,
+                currency TEXT NOT NULL DEFAULT 'USD'
             )
             """;
 
@@ -57,7 +82,8 @@ public class DatabaseHelper {
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
                 name TEXT NOT NULL,
                 budget_limit REAL NOT NULL DEFAULT 0.0,
-                type TEXT NOT NULL CHECK(type IN ('INCOME', 'EXPENSE'))
+                type TEXT NOT NULL CHECK(type IN ('INCOME', 'EXPENSE')),
+                budget_period TEXT NOT NULL DEFAULT 'MONTHLY' CHECK(budget_period IN ('MONTHLY', 'WEEKLY', 'ROLLING_30'))
             )
             """;
 
@@ -70,6 +96,7 @@ public class DatabaseHelper {
                 date TEXT NOT NULL,
                 note TEXT,
                 image_path TEXT,
+                fingerprint INTEGER,
                 FOREIGN KEY (account_id) REFERENCES Accounts(id) ON DELETE CASCADE,
                 FOREIGN KEY (category_id) REFERENCES Categories(id) ON DELETE CASCADE
             )
@@ -80,77 +107,376 @@ public class DatabaseHelper {
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
                 name TEXT NOT NULL,
                 amount REAL NOT NULL,
-                due_day INTEGER NOT NULL CHECK(due_day >= 1 AND due_day <= 31)
+                due_day INTEGER NOT NULL CHECK(due_day >= 1 AND due_day <= 31),
+                account_id INTEGER,
+                category_id INTEGER,
+                frequency TEXT NOT NULL DEFAULT 'MONTHLY' CHECK(frequency IN ('WEEKLY', 'MONTHLY', 'YEARLY', 'CUSTOM')),
+                interval_count INTEGER NOT NULL DEFAULT 1 CHECK(interval_count >= 1),
+                anchor_date TEXT,
+                next_due TEXT
+            )
+            """;
+
+        // Small key/value store for engine state such as the recurring scheduler watermark
+        String createAppStateTable = """
+            CREATE TABLE IF NOT EXISTS AppState (
+                key TEXT PRIMARY KEY,
+                value TEXT
+            )
+            """;
+
+        // Double-entry journal for money moving between accounts: one row per posting and
+        // one signed leg per account touched. The legs of a posting always sum to zero.
+        String createJournalTable = """
+            CREATE TABLE IF NOT EXISTS Journal (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                date TEXT NOT NULL,
+                memo TEXT
+            )
+            """;
+
+        String createJournalLegsTable = """
+            CREATE TABLE IF NOT EXISTS JournalLegs (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                journal_id INTEGER NOT NULL,
+                account_id INTEGER NOT NULL,
+                amount REAL NOT NULL,
+                FOREIGN KEY (journal_id) REFERENCES Journal(id) ON DELETE CASCADE,
+                FOREIGN KEY (account_id) REFERENCES Accounts(id)
+            )
+            """;
+
+        // Balance edits that are not postings (setting or resetting a balance by hand), kept
+        // as signed changes so SyncEngine can replay them on other devices
+        String createBalanceAdjustmentsTable = """
+            CREATE TABLE IF NOT EXISTS BalanceAdjustments (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                account_id INTEGER NOT NULL,
+                amount REAL NOT NULL,
+                date TEXT NOT NULL,
+                reason TEXT,
+                FOREIGN KEY (account_id) REFERENCES Accounts(id) ON DELETE CASCADE
             )
             """;
 
-        try (Statement stmt = getConnection().createStatement()) {
+        // Exchange rates: value of one unit of the currency in the pivot currency on a day
+        String createFxRatesTable = """
+            CREATE TABLE IF NOT EXISTS FxRates (
+                currency TEXT NOT NULL,
+                date TEXT NOT NULL,
+                rate REAL NOT NULL CHECK(rate > 0),
+                PRIMARY KEY (currency, date)
+            ) WITHOUT ROWID
+            """;
+
+        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
             stmt.execute(createAccountsTable);
             stmt.execute(createCategoriesTable);
             stmt.execute(createTransactionsTable);
             stmt.execute(createRecurringExpensesTable);
+            stmt.execute(createAppStateTable);
+            stmt.execute(createJournalTable);
+            stmt.execute(createJournalLegsTable);
+            stmt.execute(createFxRatesTable);
+            stmt.execute(createBalanceAdjustmentsTable);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_balance_adjustments_account ON BalanceAdjustments(account_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_journal_legs_journal ON JournalLegs(journal_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_journal_legs_account ON JournalLegs(account_id)");
+
+            // Upgrade databases created before recurring expenses could be auto-posted
+            addColumnIfMissing(stmt, "RecurringExpenses", "account_id", "INTEGER");
+            addColumnIfMissing(stmt, "RecurringExpenses", "category_id", "INTEGER");
+            addColumnIfMissing(stmt, "RecurringExpenses", "frequency", "TEXT NOT NULL DEFAULT 'MONTHLY'");
+            addColumnIfMissing(stmt, "RecurringExpenses", "interval_count", "INTEGER NOT NULL DEFAULT 1");
+            addColumnIfMissing(stmt, "RecurringExpenses", "anchor_date", "TEXT");
+            addColumnIfMissing(stmt, "RecurringExpenses", "next_due", "TEXT");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_recurring_next_due ON RecurringExpenses(next_due)");
+            addColumnIfMissing(stmt, "Categories", "budget_period", "TEXT NOT NULL DEFAULT 'MONTHLY'");
+            addColumnIfMissing(stmt, "Accounts", "version", "INTEGER NOT NULL DEFAULT 0");
+            addColumnIfMissing(stmt, "Accounts", "currency", "TEXT NOT NULL DEFAULT 'USD'");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_date ON Transactions(date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_amount ON Transactions(amount)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_category_date ON Transactions(category_id, date)");
+            // Import duplicate detection; filled in lazily by TransactionDeduplicator
+            addColumnIfMissing(stmt, "Transactions", "fingerprint", "INTEGER");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_fingerprint ON Transactions(fingerprint, date)");
 
-            // Seed default accounts if table is empty
-            try (java.sql.ResultSet rsAcc = stmt.executeQuery("SELECT COUNT(*) AS cnt FROM Accounts")) {
-                if (rsAcc.next() && rsAcc.getInt("cnt") == 0) {
-                    stmt.executeUpdate("INSERT INTO Accounts (name, type, balance) VALUES "
-                            + "('Cash', 'CASH', 100.0),"
-                            + "('Checking', 'BANK', 1000.0),"
-                            + "('Credit Card', 'DIGITAL', 500.0)");
-                    System.out.println("Database seeded with default accounts.");
+            initializeNoteSearch(stmt);
+            initializeChangeLog(stmt);
+
+            // Seed defaults into empty tables. Check and insert are one statement so two
+            // processes starting on a new file cannot both seed.
+            try {
+                if (stmt.executeUpdate("INSERT INTO Accounts (name, type, balance) "
+                        + "SELECT * FROM (VALUES " + SEED_ACCOUNTS + ") "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM Accounts)") > 0) {
+                    Log.info("Database seeded with default accounts");
                 }
             } catch (SQLException sea) {
-                System.err.println("Error checking/seeding accounts: " + sea.getMessage());
-                sea.printStackTrace();
-            }
-
-            // Seed default categories if table is empty
-            try (java.sql.ResultSet rs = stmt.executeQuery("SELECT COUNT(*) AS cnt FROM Categories")) {
-                if (rs.next() && rs.getInt("cnt") == 0) {
-                    stmt.executeUpdate("INSERT INTO Categories (name, budget_limit, type) VALUES "
-                            + "('Groceries', 500.0, 'EXPENSE'),"
-                            + "('Utilities', 200.0, 'EXPENSE'),"
-                            + "('Transport', 150.0, 'EXPENSE'),"
-                            + "('Salary', 0.0, 'INCOME')");
-                    System.out.println("Database seeded with default categories.");
+                Log.error("Error checking/seeding accounts", sea);
+            }
+
+            try {
+                if (stmt.executeUpdate("INSERT INTO Categories (name, budget_limit, type) "
+                        + "SELECT * FROM (VALUES " + SEED_CATEGORIES + ") "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM Categories)") > 0) {
+                    Log.info("Database seeded with default categories");
                 }
             } catch (SQLException se) {
-                System.err.println("Error checking/seeding categories: " + se.getMessage());
-                se.printStackTrace();
+                Log.error("Error checking/seeding categories", se);
             }
+            nameSeedRows(stmt, "Accounts", SEED_ACCOUNTS);
+            nameSeedRows(stmt, "Categories", SEED_CATEGORIES);
 
-            System.out.println("Database initialized successfully. All tables created.");
+            Log.info("Database initialized");
         } catch (SQLException e) {
-            System.err.println("Error initializing database: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error initializing database", e);
         }
     }
 
-    // Close database connection
-    public void closeConnection() {
+    /**
+     * Creates the FTS5 index over Transactions.note and the triggers that keep it in sync.
+     * The index is external-content (it stores no copy of the notes) and also indexes
+     * 2- and 3-character prefixes so as-you-type queries stay cheap.
+     */
+    private void initializeNoteSearch(Statement stmt) throws SQLException {
+        boolean exists;
+        try (java.sql.ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'TransactionNotesFts'")) {
+            exists = rs.next();
+        }
+
+        stmt.execute("""
+            CREATE VIRTUAL TABLE IF NOT EXISTS TransactionNotesFts USING fts5(
+                note,
+                content = 'Transactions',
+                content_rowid = 'id',
+                tokenize = 'unicode61 remove_diacritics 2',
+                prefix = '2 3'
+            )
+            """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_transactions_fts_insert AFTER INSERT ON Transactions
+            WHEN new.note IS NOT NULL
+            BEGIN
+                INSERT INTO TransactionNotesFts (rowid, note) VALUES (new.id, new.note);
+            END
+            """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_transactions_fts_delete AFTER DELETE ON Transactions
+            WHEN old.note IS NOT NULL
+            BEGIN
+                INSERT INTO TransactionNotesFts (TransactionNotesFts, rowid, note) VALUES ('delete', old.id, old.note);
+            END
+            """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_transactions_fts_update AFTER UPDATE OF note ON Transactions
+            BEGIN
+                INSERT INTO TransactionNotesFts (TransactionNotesFts, rowid, note)
+                    SELECT 'delete', old.id, old.note WHERE old.note IS NOT NULL;
+                INSERT INTO TransactionNotesFts (rowid, note)
+                    SELECT new.id, new.note WHERE new.note IS NOT NULL;
+            END
+            """);
+
+        if (!exists) {
+            // Index notes written before search existed
+            stmt.execute("INSERT INTO TransactionNotesFts (TransactionNotesFts) VALUES ('rebuild')");
+        }
+    }
+
+    /**
+     * Creates the change log SyncEngine reads and its triggers. The first time, every row
+     * already stored gets its entry, so the first sync sends the whole ledger. Runs in one
+     * transaction so no row is written between the triggers and that backfill.
+     */
+    private void initializeChangeLog(Statement stmt) throws SQLException {
+        boolean exists;
+        try (java.sql.ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'ChangeLog'")) {
+            exists = rs.next();
+        }
+        stmt.execute("BEGIN IMMEDIATE");
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+            // applying is set while SyncEngine applies remote changes, so they are not logged
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS SyncControl (
+                    id INTEGER PRIMARY KEY CHECK(id = 1),
+                    applying INTEGER NOT NULL DEFAULT 0
+                )
+                """);
+            stmt.execute("INSERT OR IGNORE INTO SyncControl (id) VALUES (1)");
+            // Latest change of every synced row; deleted rows stay as tombstones
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS ChangeLog (
+                    uid TEXT PRIMARY KEY,
+                    tbl TEXT NOT NULL,
+                    row_id INTEGER NOT NULL,
+                    seq INTEGER NOT NULL,
+                    changed_at TEXT NOT NULL,
+                    origin TEXT NOT NULL,
+                    deleted INTEGER NOT NULL DEFAULT 0
+                ) WITHOUT ROWID
+                """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_changelog_seq ON ChangeLog(seq)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_changelog_row ON ChangeLog(tbl, row_id, deleted)");
+            // Per device: the last seq applied from it, or for this device the last one exported
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS SyncPeers (
+                    device TEXT PRIMARY KEY,
+                    seq INTEGER NOT NULL,
+                    synced_at TEXT
+                )
+                """);
+            for (SyncEngine.SyncTable table : SyncEngine.TABLES) {
+                for (String trigger : table.triggerSql()) {
+                    stmt.execute(trigger);
+                }
+                if (!exists) {
+                    stmt.execute("INSERT INTO ChangeLog (uid, tbl, row_id, seq, changed_at, origin, deleted) "
+                            + "SELECT " + SyncEngine.NEW_UID_SQL + ", '" + table.name + "', id, "
+                            + "1, " + SyncEngine.NOW_SQL + ", '', 0 FROM " + table.name);
+                }
             }
+            stmt.execute("COMMIT");
         } catch (SQLException e) {
-            System.err.println("Error closing database connection: " + e.getMessage());
-            e.printStackTrace();
+            stmt.execute("ROLLBACK");
+            throw e;
         }
     }
 
     /**
-     * Creates a timestamped backup copy of the database file (finance.db).
+     * Gives the seeded rows a change log uid made from their name instead of a random one,
+     * so the "Cash" account seeded on every device is one row to SyncEngine and the first
+     * sync does not duplicate the defaults. Only done before this database first syncs:
+     * after that its uids are known to other devices.
+     */
+    private void nameSeedRows(Statement stmt, String table, String seeds) throws SQLException {
+        String uid = "'seed:" + table + ":' || (SELECT name FROM " + table + " s WHERE s.id = ChangeLog.row_id)";
+        stmt.executeUpdate("UPDATE ChangeLog SET uid = " + uid
+                + " WHERE tbl = '" + table + "' AND deleted = 0 AND uid NOT LIKE 'seed:%'"
+                + " AND row_id IN (SELECT MIN(t.id) FROM " + table + " t JOIN (VALUES " + seeds + ") d ON d.column1 = t.name GROUP BY t.name)"
+                + " AND NOT EXISTS (SELECT 1 FROM SyncPeers)"
+                + " AND NOT EXISTS (SELECT 1 FROM ChangeLog c WHERE c.uid = " + uid + ")");
+    }
+
+    /**
+     * Adds a column to an existing table when it is not there yet, so older finance.db files
+     * pick up new schema without a separate migration step.
+     */
+    private void addColumnIfMissing(Statement stmt, String table, String column, String definition) throws SQLException {
+        try (java.sql.ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        try {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        } catch (SQLException e) {
+            // Another process upgraded the same file between the check and the ALTER
+            if (!String.valueOf(e.getMessage()).contains("duplicate column name")) {
+                throw e;
+            }
+        }
+    }
+
+    // Close the idle pooled connections; connections in use close when they are returned
+    public void closeConnection() {
+        pool.closeIdle();
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Runs SQLite's integrity and foreign key checks, looks for transactions whose account
+     * or category is gone and journal postings that do not balance, and checks the note
+     * search index. Returns the problems found.
+     */
+    public java.util.List<String> verifyIntegrity() {
+        java.util.List<String> problems = new java.util.ArrayList<>();
+        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
+            try (java.sql.ResultSet rs = stmt.executeQuery("PRAGMA integrity_check")) {
+                while (rs.next()) {
+                    if (!"ok".equalsIgnoreCase(rs.getString(1))) {
+                        problems.add("integrity_check: " + rs.getString(1));
+                    }
+                }
+            }
+            try (java.sql.ResultSet rs = stmt.executeQuery("PRAGMA foreign_key_check")) {
+                while (rs.next()) {
+                    problems.add("foreign_key_check: " + rs.getString("table") + " rowid " + rs.getLong("rowid")
+                            + " references missing " + rs.getString("parent"));
+                }
+            }
+            String orphans = """
+                SELECT
+                  (SELECT COUNT(*) FROM Transactions t LEFT JOIN Accounts a ON a.id = t.account_id WHERE a.id IS NULL),
+                  (SELECT COUNT(*) FROM Transactions t LEFT JOIN Categories c ON c.id = t.category_id WHERE c.id IS NULL)
+                """;
+            try (java.sql.ResultSet rs = stmt.executeQuery(orphans)) {
+                if (rs.next()) {
+                    if (rs.getInt(1) > 0) {
+                        problems.add(rs.getInt(1) + " transactions reference a missing account");
+                    }
+                    if (rs.getInt(2) > 0) {
+                        problems.add(rs.getInt(2) + " transactions reference a missing category");
+                    }
+                }
+            }
+            try (java.sql.ResultSet rs = stmt.executeQuery(
+                    "SELECT COUNT(*) FROM (SELECT journal_id FROM JournalLegs GROUP BY journal_id HAVING ABS(SUM(amount)) > 0.005)")) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    problems.add(rs.getInt(1) + " journal postings whose legs do not balance");
+                }
+            }
+            try (java.sql.ResultSet rs = stmt.executeQuery("""
+                    SELECT COUNT(*) FROM (
+                        SELECT l.journal_id FROM JournalLegs l JOIN Accounts a ON a.id = l.account_id
+                        GROUP BY l.journal_id HAVING COUNT(DISTINCT a.currency) > 1)
+                    """)) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    problems.add(rs.getInt(1) + " journal postings with legs in different currencies");
+                }
+            }
+            try {
+                stmt.execute("INSERT INTO TransactionNotesFts(TransactionNotesFts) VALUES('integrity-check')");
+            } catch (SQLException e) {
+                problems.add("note search index: " + e.getMessage());
+            }
+        } catch (SQLException e) {
+            Log.error("Error verifying database", e);
+            problems.add("verify failed: " + e.getMessage());
+        }
+        return problems;
+    }
+
+    public String getDatabasePath() {
+        return dbPath;
+    }
+
+    /**
+     * Creates a timestamped backup copy of the database file in db_backups.
      * Returns the path to the backup file on success, or null on failure.
      */
     public String backupDatabase() {
+        return backupDatabase(java.nio.file.Paths.get("db_backups"));
+    }
+
+    /**
+     * Creates a timestamped backup copy of the database file in the given directory.
+     */
+    public String backupDatabase(java.nio.file.Path backupDir) {
         try {
-            java.nio.file.Path src = java.nio.file.Paths.get("finance.db");
+            java.nio.file.Path src = java.nio.file.Paths.get(dbPath);
             if (!java.nio.file.Files.exists(src)) {
-                System.err.println("Database file not found for backup: finance.db");
+                Log.warn("Database file not found for backup", "file", dbPath);
                 return null;
             }
 
-            java.nio.file.Path backupDir = java.nio.file.Paths.get("db_backups");
             if (!java.nio.file.Files.exists(backupDir)) {
                 java.nio.file.Files.createDirectories(backupDir);
             }
@@ -158,12 +484,53 @@ public class DatabaseHelper {
             String ts = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
             java.nio.file.Path dest = backupDir.resolve("finance-db-backup-" + ts + ".db");
             java.nio.file.Files.copy(src, dest);
-            System.out.println("Database backup created: " + dest.toString());
+            Log.info("Database backup created", "path", dest);
             return dest.toString();
         } catch (java.io.IOException e) {
-            System.err.println("Error creating database backup: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error creating database backup", e);
             return null;
         }
     }
+
+    /**
+     * Creates a timestamped encrypted backup (see ChunkedCipher) in the given directory.
+     * The copy is a VACUUM INTO snapshot, so it is consistent even while other processes
+     * write. The plaintext snapshot goes to an owner-only temp file, never the backup
+     * directory, and is deleted once encrypted.
+     */
+    public String backupDatabaseEncrypted(java.nio.file.Path backupDir, char[] passphrase) {
+        String ts = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        java.nio.file.Path dest = backupDir.resolve("finance-db-backup-" + ts + ".db.enc");
+        java.nio.file.Path snapshot = null;
+        try {
+            java.nio.file.Files.createDirectories(backupDir);
+            // Created empty, which VACUUM INTO accepts; readable by this user only on POSIX
+            snapshot = java.nio.file.Files.createTempFile("finance-db-snapshot-", ".db");
+            try (Connection conn = getConnection();
+                 java.sql.PreparedStatement stmt = conn.prepareStatement("VACUUM INTO ?")) {
+                stmt.setString(1, snapshot.toString());
+                stmt.execute();
+            }
+            ChunkedCipher.encryptFile(snapshot, dest, passphrase);
+            Log.info("Encrypted database backup created", "path", dest,
+                    "plainBytes", java.nio.file.Files.size(snapshot), "bytes", java.nio.file.Files.size(dest));
+            return dest.toString();
+        } catch (SQLException | java.io.IOException e) {
+            Log.error("Error creating encrypted database backup", e);
+            try {
+                java.nio.file.Files.deleteIfExists(dest);
+            } catch (java.io.IOException ignored) {
+                // Nothing more to do; the error is already logged
+            }
+            return null;
+        } finally {
+            try {
+                if (snapshot != null) {
+                    java.nio.file.Files.deleteIfExists(snapshot);
+                }
+            } catch (java.io.IOException e) {
+                Log.warn("Could not delete backup snapshot", e, "path", snapshot);
+            }
+        }
+    }
 }
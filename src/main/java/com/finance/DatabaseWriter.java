@@ -0,0 +1,355 @@
+package com.finance;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Serializes every database mutation onto one "finance-db-writer" thread.
+ *
+ * Callers on any thread submit a {@link Command} and get a future. The writer takes
+ * whatever is queued (up to {@link #MAX_BATCH} commands) and runs it as one SQLite
+ * transaction, so a burst of N writes costs one commit and its fsyncs instead of N.
+ * Each command runs inside its own savepoint: a command that throws (or throws
+ * {@link Abort} to give up on purpose) is rolled back alone and fails only its own
+ * future. Futures complete after the commit, so a caller that sees success knows its
+ * change is durable. The writer keeps one pooled connection between batches.
+ *
+ * The queue is bounded; submit() blocks while it is full. A command submitted from
+ * the writer thread itself runs inline instead of waiting on its own queue. Submitted
+ * from inside another command, it joins that command's transaction and its future
+ * completes when that one does, so the submitting command must not wait for it.
+ *
+ * Other processes may write the same file. If a batch still hits SQLITE_BUSY after the
+ * connection's busy timeout, it is rolled back and retried with exponential backoff.
+ * While idle the writer polls PRAGMA data_version on its own connection; that value
+ * changes only when another connection commits, so a change means another process
+ * wrote and an ExternalChangeEvent is published.
+ */
+public class DatabaseWriter {
+    static final int QUEUE_CAPACITY = 1024;
+    static final int MAX_BATCH = 256;
+    static final int MAX_ATTEMPTS = 6;
+    static final long INITIAL_BACKOFF_MILLIS = 20;
+    static final long MAX_BACKOFF_MILLIS = 2_000;
+    static final long DATA_VERSION_POLL_MILLIS = 1_000;
+
+    private static DatabaseWriter instance;
+
+    private final Supplier<Connection> connections;
+    private final BlockingQueue<Pending<?>> queue;
+    private final Thread thread;
+    // Writer-thread state: the connection kept between batches and its last data_version
+    private Connection conn;
+    private long dataVersion = -1;
+    // Set when a connection with a baseline was dropped; changes since then went unseen
+    private boolean baselineLost;
+    // Command being run; commands submitted inline meanwhile complete with it
+    private Pending<?> running;
+
+    /**
+     * One unit of work; runs on the writer thread with the batch connection.
+     * It must not commit, roll back or change auto-commit.
+     */
+    @FunctionalInterface
+    public interface Command<T> {
+        T apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Thrown by a command to roll back its own changes without it being logged as an error.
+     */
+    public static class Abort extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        public Abort(String message) {
+            super(message);
+        }
+    }
+
+    DatabaseWriter(Supplier<Connection> connections, int capacity) {
+        this.connections = connections;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        thread = new Thread(this::writeLoop, "finance-db-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static synchronized DatabaseWriter getInstance() {
+        if (instance == null) {
+            DatabaseHelper dbHelper = DatabaseHelper.getInstance();
+            instance = new DatabaseWriter(dbHelper::getConnection, QUEUE_CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a command, waiting while the queue is full.
+     *
+     * @param name metrics name of the command
+     */
+    public <T> CompletableFuture<T> submit(String name, Command<T> command) {
+        Pending<T> pending = new Pending<>(name, command);
+        if (Thread.currentThread() == thread) {
+            runInline(pending);
+            return pending.future;
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+        }
+        return pending.future;
+    }
+
+    /**
+     * Commands waiting for the writer.
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        // Take the baseline now, so a change made before the first idle poll is not missed
+        checkDataVersion();
+        List<Pending<?>> batch = new ArrayList<>();
+        while (true) {
+            try {
+                Pending<?> first = queue.poll(DATA_VERSION_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    checkDataVersion();
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            try {
+                checkDataVersion();
+                runBatch(batch);
+            } catch (RuntimeException e) {
+                Log.error("Database writer batch failed", e, "commands", batch.size());
+                discardConnection();
+                for (Pending<?> p : batch) {
+                    p.complete(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void runBatch(List<Pending<?>> batch) {
+        Metrics metrics = Metrics.getInstance();
+        long start = System.nanoTime();
+        SQLException commitError = null;
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Connection c = connection();
+                c.setAutoCommit(false);
+                for (Pending<?> p : batch) {
+                    run(p, c);
+                }
+                c.commit();
+                c.setAutoCommit(true);
+                commitError = null;
+                break;
+            } catch (SQLException e) {
+                // Returning the connection to the pool rolls the whole batch back
+                discardConnection();
+                commitError = e;
+                if (!isBusy(e) || attempt == MAX_ATTEMPTS) {
+                    break;
+                }
+                metrics.increment("db.writer.retries", 1);
+                Log.warn("Database busy, retrying batch", "attempt", attempt, "backoffMs", backoff);
+                if (!sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1))) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                for (Pending<?> p : batch) {
+                    p.reset(e);
+                }
+            }
+        }
+        metrics.timer("db.writer.batch").recordNanos(System.nanoTime() - start);
+        metrics.increment("db.writer.batches", 1);
+        metrics.increment("db.writer.commands", batch.size());
+        if (commitError != null) {
+            Log.error("Database writer commit failed", commitError, "commands", batch.size());
+        }
+        for (Pending<?> p : batch) {
+            p.complete(commitError);
+        }
+    }
+
+    private void runInline(Pending<?> pending) {
+        if (running != null) {
+            // Inside another command: part of its transaction, completed after its commit
+            try {
+                pending.run(connection());
+                running.nested.add(pending);
+            } catch (SQLException e) {
+                pending.complete(e);
+            }
+            return;
+        }
+        SQLException error = null;
+        try {
+            Connection c = connection();
+            c.setAutoCommit(false);
+            run(pending, c);
+            c.commit();
+            c.setAutoCommit(true);
+        } catch (SQLException e) {
+            discardConnection();
+            error = e;
+        }
+        pending.complete(error);
+    }
+
+    private void run(Pending<?> pending, Connection c) throws SQLException {
+        running = pending;
+        try {
+            pending.run(c);
+        } finally {
+            running = null;
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (conn == null || conn.isClosed()) {
+            conn = connections.get();
+            if (conn == null) {
+                throw new SQLException("No database connection for the writer");
+            }
+        }
+        return conn;
+    }
+
+    private void discardConnection() {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                Log.error("Error closing writer connection", e);
+            }
+            conn = null;
+        }
+        // data_version is per connection; the next one needs a new baseline
+        baselineLost |= dataVersion >= 0;
+        dataVersion = -1;
+    }
+
+    /**
+     * Publishes an ExternalChangeEvent when another connection committed since the last check.
+     */
+    private void checkDataVersion() {
+        try (Statement stmt = connection().createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA data_version")) {
+            long version = rs.getLong(1);
+            // After a lost baseline nothing is known about the gap, so assume a change
+            if (dataVersion >= 0 ? version != dataVersion : baselineLost) {
+                Metrics.getInstance().increment("db.external.changes", 1);
+                EventBus.getInstance().publish(new FinanceEvents.ExternalChangeEvent());
+            }
+            dataVersion = version;
+            baselineLost = false;
+        } catch (SQLException e) {
+            Log.warn("Error reading data_version", e);
+            discardConnection();
+        }
+    }
+
+    static boolean isBusy(SQLException e) {
+        int code = e.getErrorCode() & 0xff;
+        String message = String.valueOf(e.getMessage());
+        return code == 5 || code == 6 // SQLITE_BUSY, SQLITE_LOCKED
+                || message.contains("SQLITE_BUSY") || message.contains("database is locked");
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A queued command with its future; keeps the result until the batch commits.
+     */
+    private static final class Pending<T> {
+        final String name;
+        final Command<T> command;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        // Commands it submitted inline; rolled back and committed with it
+        final List<Pending<?>> nested = new ArrayList<>();
+        private T result;
+        private Throwable failure;
+
+        Pending(String name, Command<T> command) {
+            this.name = name;
+            this.command = command;
+        }
+
+        void run(Connection conn) throws SQLException {
+            Metrics.Op op = Metrics.op(name);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SAVEPOINT cmd");
+                try {
+                    result = command.apply(conn);
+                    stmt.execute("RELEASE cmd");
+                } catch (SQLException e) {
+                    if (isBusy(e)) {
+                        throw e; // retry the whole batch
+                    }
+                    failure = e;
+                    stmt.execute("ROLLBACK TO cmd");
+                    stmt.execute("RELEASE cmd");
+                } catch (RuntimeException e) {
+                    failure = e;
+                    stmt.execute("ROLLBACK TO cmd");
+                    stmt.execute("RELEASE cmd");
+                }
+            } finally {
+                op.close();
+            }
+        }
+
+        // The attempt was rolled back; commands it submitted inline went with it
+        void reset(SQLException cause) {
+            result = null;
+            failure = null;
+            for (Pending<?> p : nested) {
+                p.complete(cause);
+            }
+            nested.clear();
+        }
+
+        void complete(Throwable batchError) {
+            Throwable error = failure != null ? failure : batchError;
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+            for (Pending<?> p : nested) {
+                p.complete(error);
+            }
+        }
+    }
+}
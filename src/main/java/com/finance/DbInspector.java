@@ -19,22 +19,17 @@ public class DbInspector {
             }
             System.out.println("DbInspector: total categories = " + catCount);
 
-            // Try seeding accounts if empty (for debugging)
-            try (ResultSet rsAccCheck = stmt.executeQuery("SELECT COUNT(*) AS cnt FROM Accounts")) {
-                if (rsAccCheck.next() && rsAccCheck.getInt("cnt") == 0) {
-                    System.out.println("DbInspector: Accounts empty — attempting to insert default accounts...");
-                    try {
-                        stmt.executeUpdate("INSERT INTO Accounts (name, type, balance) VALUES ('Cash', 'CASH', 100.0)");
-                        stmt.executeUpdate("INSERT INTO Accounts (name, type, balance) VALUES ('Checking', 'BANK', 1000.0)");
-                        stmt.executeUpdate("INSERT INTO Accounts (name, type, balance) VALUES ('Credit Card', 'DIGITAL', 500.0)");
-                        System.out.println("DbInspector: Default accounts inserted.");
-                    } catch (SQLException insEx) {
-                        System.err.println("DbInspector: Error inserting accounts: " + insEx.getMessage());
-                        insEx.printStackTrace();
-                    }
-                } else {
-                    System.out.println("DbInspector: Accounts already present (count > 0). No seed needed.");
-                }
+            // Try seeding accounts if empty (for debugging). One statement, so it cannot race
+            // a running app that seeds or adds accounts at the same time.
+            try {
+                int seeded = stmt.executeUpdate("INSERT INTO Accounts (name, type, balance) "
+                        + "SELECT * FROM (VALUES ('Cash', 'CASH', 100.0), ('Checking', 'BANK', 1000.0), ('Credit Card', 'DIGITAL', 500.0)) "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM Accounts)");
+                System.out.println(seeded > 0 ? "DbInspector: Default accounts inserted."
+                        : "DbInspector: Accounts already present (count > 0). No seed needed.");
+            } catch (SQLException insEx) {
+                System.err.println("DbInspector: Error inserting accounts: " + insEx.getMessage());
+                insEx.printStackTrace();
             }
 
             System.out.println("DbInspector: Accounts in database:");
@@ -0,0 +1,64 @@
+package com.finance;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+/**
+ * Live view of Metrics and the dashboard refresh counters, updated once a second while open.
+ */
+public class DiagnosticsDialog {
+    public static void show(DashboardRefreshScheduler refreshScheduler) {
+        Alert dialog = new Alert(Alert.AlertType.NONE);
+        dialog.setTitle("Diagnostics");
+        dialog.setHeaderText("Query latency, counters and UI responsiveness");
+        dialog.getButtonTypes().setAll(ButtonType.CLOSE);
+        dialog.setResizable(true);
+
+        TextArea text = new TextArea();
+        text.setEditable(false);
+        text.setPrefColumnCount(90);
+        text.setPrefRowCount(24);
+        text.setStyle("-fx-font-family: monospace;");
+        CheckBox debugLogging = new CheckBox("Debug logging (logs/finance.log)");
+        debugLogging.setSelected(Log.isDebugEnabled());
+        debugLogging.selectedProperty().addListener((obs, was, on) -> {
+            Log.setLevel(on ? Log.Level.DEBUG : Log.Level.INFO);
+            SettingsService.setDebugLogging(on);
+        });
+        VBox content = new VBox(8, debugLogging, text);
+        VBox.setVgrow(text, Priority.ALWAYS);
+        dialog.getDialogPane().setContent(content);
+
+        Runnable update = () -> {
+            StringBuilder sb = new StringBuilder(Metrics.getInstance().report());
+            sb.append(String.format("%-36s %7.1f%%%n", "aggregates.cache.hit.rate",
+                    AggregateCache.getInstance().getHitRate() * 100));
+            if (Log.getDroppedCount() > 0) {
+                sb.append(String.format("%-36s %8d%n", "log.dropped", Log.getDroppedCount()));
+            }
+            if (refreshScheduler != null) {
+                sb.append(System.lineSeparator()).append("Dashboard refreshes").append(System.lineSeparator());
+                for (DashboardRefreshScheduler.Region region : DashboardRefreshScheduler.Region.values()) {
+                    sb.append(String.format("%-16s %s%n", region, refreshScheduler.getStats(region)));
+                }
+            }
+            double scroll = text.getScrollTop();
+            text.setText(sb.toString());
+            text.setScrollTop(scroll);
+        };
+        update.run();
+
+        Timeline ticker = new Timeline(new KeyFrame(Duration.seconds(1), e -> update.run()));
+        ticker.setCycleCount(Timeline.INDEFINITE);
+        ticker.play();
+        dialog.setOnHidden(e -> ticker.stop());
+        dialog.showAndWait();
+    }
+}
@@ -0,0 +1,82 @@
+package com.finance;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe bus for finance events.
+ *
+ * Events are delivered asynchronously on a single daemon thread, in publish order, so
+ * publishers (for example a transaction save) never wait for listeners. Listeners that
+ * touch JavaFX must hop to the FX thread themselves.
+ */
+public class EventBus {
+    private static EventBus instance;
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "finance-events");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private EventBus() {
+    }
+
+    public static synchronized EventBus getInstance() {
+        if (instance == null) {
+            instance = new EventBus();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a listener for events of the given type (including subclasses).
+     *
+     * @return A handle that removes the listener when run
+     */
+    public <E> Runnable subscribe(Class<E> type, Consumer<? super E> listener) {
+        Subscription<E> sub = new Subscription<>(type, listener);
+        subscriptions.add(sub);
+        return () -> subscriptions.remove(sub);
+    }
+
+    /**
+     * Queues an event for delivery to all matching listeners and returns immediately.
+     */
+    public void publish(Object event) {
+        if (event == null || subscriptions.isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            for (Subscription<?> sub : subscriptions) {
+                sub.deliver(event);
+            }
+        });
+    }
+
+    private static class Subscription<E> {
+        private final Class<E> type;
+        private final Consumer<? super E> listener;
+
+        Subscription(Class<E> type, Consumer<? super E> listener) {
+            this.type = type;
+            this.listener = listener;
+        }
+
+        void deliver(Object event) {
+            if (!type.isInstance(event)) {
+                return;
+            }
+            try {
+                listener.accept(type.cast(event));
+            } catch (RuntimeException e) {
+                // One failing listener must not stop delivery to the others
+                Log.error("Error in event listener", e, "event", type.getSimpleName());
+            }
+        }
+    }
+}
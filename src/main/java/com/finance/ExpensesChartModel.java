@@ -0,0 +1,198 @@
+package com.finance;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Tooltip;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the expense charts in step with the latest category totals by changing them in place.
+ *
+ * Existing slices and bars have their values updated, only new categories get new nodes
+ * and vanished ones are removed, so the charts animate just what changed. Styling and
+ * tooltips are attached once per node. Several updates arriving before the next pulse are
+ * coalesced: only the most recent totals are applied.
+ */
+public class ExpensesChartModel {
+    private static final String[] PALETTE = {"#3db2a3", "#ffb86b", "#ff6b6b", "#6b8cff", "#9b59b6", "#f39c12", "#7bd389", "#e37bff"};
+    private static final String PLACEHOLDER = "No expenses";
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM yy");
+
+    private final PieChart pieChart;
+    private final XYChart<String, Number> historyChart;
+
+    private final Map<String, PieChart.Data> slices = new HashMap<>();
+    private final Map<String, XYChart.Series<String, Number>> seriesByCategory = new HashMap<>();
+    private final Map<String, String> colors = new HashMap<>();
+
+    private Map<String, Double> pendingTotals;
+    private Map<YearMonth, Map<String, Double>> pendingHistory;
+    private boolean applyScheduled;
+
+    public ExpensesChartModel(PieChart pieChart, XYChart<String, Number> historyChart) {
+        this.pieChart = pieChart;
+        this.historyChart = historyChart;
+        pieChart.setStartAngle(90);
+    }
+
+    /**
+     * Queues new per-category totals for the pie chart. Safe to call from any thread.
+     */
+    public synchronized void updateTotals(Map<String, Double> totals) {
+        pendingTotals = new HashMap<>(totals);
+        scheduleApply();
+    }
+
+    /**
+     * Queues per-month, per-category totals for the history chart. Safe to call from any thread.
+     */
+    public synchronized void updateHistory(Map<YearMonth, Map<String, Double>> history) {
+        pendingHistory = history;
+        scheduleApply();
+    }
+
+    private void scheduleApply() {
+        if (!applyScheduled) {
+            applyScheduled = true;
+            Platform.runLater(this::applyPending);
+        }
+    }
+
+    private void applyPending() {
+        Map<String, Double> totals;
+        Map<YearMonth, Map<String, Double>> history;
+        synchronized (this) {
+            totals = pendingTotals;
+            history = pendingHistory;
+            pendingTotals = null;
+            pendingHistory = null;
+            applyScheduled = false;
+        }
+        if (totals != null) {
+            applyTotals(totals);
+        }
+        if (history != null && historyChart != null) {
+            applyHistory(history);
+        }
+    }
+
+    private void applyTotals(Map<String, Double> totals) {
+        Map<String, Double> target = totals.isEmpty() ? Map.of(PLACEHOLDER, 1.0) : totals;
+
+        Iterator<Map.Entry<String, PieChart.Data>> it = slices.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, PieChart.Data> e = it.next();
+            if (!target.containsKey(e.getKey())) {
+                pieChart.getData().remove(e.getValue());
+                it.remove();
+            }
+        }
+        for (Map.Entry<String, Double> e : target.entrySet()) {
+            PieChart.Data slice = slices.get(e.getKey());
+            if (slice == null) {
+                slice = createSlice(e.getKey(), e.getValue());
+                slices.put(e.getKey(), slice);
+                pieChart.getData().add(slice);
+            } else if (slice.getPieValue() != e.getValue()) {
+                slice.setPieValue(e.getValue());
+            }
+        }
+
+        boolean empty = totals.isEmpty();
+        pieChart.setLegendVisible(!empty);
+        pieChart.setLabelsVisible(!empty);
+    }
+
+    private PieChart.Data createSlice(String name, double value) {
+        PieChart.Data slice = new PieChart.Data(name, value);
+        String color = colorFor(name);
+        Tooltip tooltip = new Tooltip();
+        tooltip.textProperty().bind(slice.pieValueProperty().asString(name + ": $%.2f"));
+        slice.nodeProperty().addListener((obs, oldNode, newNode) -> {
+            if (newNode != null) {
+                newNode.setStyle("-fx-pie-color: " + color + ";");
+                Tooltip.install(newNode, tooltip);
+            }
+        });
+        return slice;
+    }
+
+    private void applyHistory(Map<YearMonth, Map<String, Double>> history) {
+        // Category -> (month label -> total), months in chronological order
+        Map<String, Map<String, Double>> byCategory = new LinkedHashMap<>();
+        List<String> labels = new ArrayList<>();
+        history.keySet().stream().sorted().forEach(month -> {
+            String label = month.format(MONTH_LABEL);
+            labels.add(label);
+            for (Map.Entry<String, Double> e : history.get(month).entrySet()) {
+                byCategory.computeIfAbsent(e.getKey(), k -> new LinkedHashMap<>()).put(label, e.getValue());
+            }
+        });
+        // Pin the month order so bars added later do not land at the end of the axis
+        if (historyChart.getXAxis() instanceof CategoryAxis axis && !axis.getCategories().equals(labels)) {
+            axis.setAutoRanging(false);
+            axis.setCategories(FXCollections.observableArrayList(labels));
+        }
+
+        Iterator<Map.Entry<String, XYChart.Series<String, Number>>> it = seriesByCategory.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, XYChart.Series<String, Number>> e = it.next();
+            if (!byCategory.containsKey(e.getKey())) {
+                historyChart.getData().remove(e.getValue());
+                it.remove();
+            }
+        }
+        for (Map.Entry<String, Map<String, Double>> e : byCategory.entrySet()) {
+            XYChart.Series<String, Number> series = seriesByCategory.get(e.getKey());
+            if (series == null) {
+                series = new XYChart.Series<>();
+                series.setName(e.getKey());
+                seriesByCategory.put(e.getKey(), series);
+                historyChart.getData().add(series);
+            }
+            updateSeries(series, e.getValue(), colorFor(e.getKey()));
+        }
+    }
+
+    private void updateSeries(XYChart.Series<String, Number> series, Map<String, Double> values, String color) {
+        Map<String, XYChart.Data<String, Number>> existing = new HashMap<>();
+        Iterator<XYChart.Data<String, Number>> it = series.getData().iterator();
+        while (it.hasNext()) {
+            XYChart.Data<String, Number> d = it.next();
+            if (values.containsKey(d.getXValue())) {
+                existing.put(d.getXValue(), d);
+            } else {
+                it.remove();
+            }
+        }
+        for (Map.Entry<String, Double> v : values.entrySet()) {
+            XYChart.Data<String, Number> d = existing.get(v.getKey());
+            if (d == null) {
+                XYChart.Data<String, Number> created = new XYChart.Data<>(v.getKey(), v.getValue());
+                created.nodeProperty().addListener((obs, oldNode, newNode) -> {
+                    if (newNode != null) {
+                        newNode.setStyle("-fx-bar-fill: " + color + ";");
+                    }
+                });
+                series.getData().add(created);
+            } else if (d.getYValue().doubleValue() != v.getValue()) {
+                d.setYValue(v.getValue());
+            }
+        }
+    }
+
+    private String colorFor(String category) {
+        return colors.computeIfAbsent(category, k -> PALETTE[colors.size() % PALETTE.length]);
+    }
+}
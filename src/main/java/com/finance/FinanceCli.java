@@ -0,0 +1,545 @@
+package com.finance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Headless command-line entry point. Uses FinanceService and DatabaseHelper directly and
+ * never touches JavaFX, so it starts quickly and can run in cron jobs and scripts.
+ *
+ *     finance [--db file] import <file.csv>
+ *     finance [--db file] export [--month YYYY-MM] [--encrypt]
+ *     finance [--db file] report [--month YYYY-MM|all] [--format csv|json] [--by-category]
+ *     finance [--db file] backup [--out dir] [--encrypt]
+ *     finance [--db file] decrypt <file.enc> <out>
+ *     finance [--db file] verify
+ *     finance [--db file] benchmark [--iterations N]
+ *     finance [--db file] serve [--port N]
+ *     finance [--db file] transfer <from> <to> <amount> [--date YYYY-MM-DD] [--memo text]
+ *     finance [--db file] rates <file.csv>
+ *     finance [--db file] currency <account> <CODE> | --reporting <CODE>
+ *     finance [--db file] sync <dir>
+ *
+ * Import files have the header date,account,category,amount,note; accounts and categories
+ * may be given by name or id, here and in transfer and currency. A blank import category
+ * is filled in by the Categorizer from the note. Rate files have the header
+ * date,currency,rate. Reports stream to stdout page by page, so their memory use
+ * does not grow with the ledger. With --encrypt, backups and exports are written with
+ * ChunkedCipher under the passphrase from $FINANCE_PASSPHRASE, or asked for on the
+ * console. Exit codes: 0 success, 1 failure, 2 usage error.
+ */
+public class FinanceCli {
+    static final int REPORT_PAGE_SIZE = 1000;
+    static final int DEFAULT_BENCHMARK_ITERATIONS = 50;
+    static final int CATEGORIZER_BENCHMARK_ROWS = 100_000;
+    static final String PASSPHRASE_ENV = "FINANCE_PASSPHRASE";
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private FinanceService financeService;
+
+    FinanceCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(new FinanceCli(System.out, System.err).run(args));
+    }
+
+    int run(String[] args) {
+        List<String> rest = new ArrayList<>(List.of(args));
+        String db;
+        try {
+            db = takeOption(rest, "--db");
+        } catch (IllegalArgumentException e) {
+            err.println("Invalid argument: " + e.getMessage());
+            return 2;
+        }
+        if (db != null) {
+            System.setProperty(DatabaseHelper.DB_PATH_PROPERTY, db);
+        }
+        if (rest.isEmpty()) {
+            return usage();
+        }
+        String command = rest.remove(0);
+
+        DatabaseHelper dbHelper = DatabaseHelper.getInstance();
+        if (db != null && !Paths.get(db).equals(Paths.get(dbHelper.getDatabasePath()))) {
+            err.println("The database is already open: " + dbHelper.getDatabasePath());
+            return 1;
+        }
+        dbHelper.initializeDatabase();
+        // The writer also watches for changes by other processes, which clear the caches
+        DatabaseWriter.getInstance();
+        financeService = new FinanceService();
+
+        try {
+            switch (command) {
+                case "import":
+                    return rest.isEmpty() ? usage() : importCsv(Paths.get(rest.get(0)));
+                case "export":
+                    return export(month(takeOption(rest, "--month")), rest.remove("--encrypt"));
+                case "report":
+                    return report(month(takeOption(rest, "--month")), takeOption(rest, "--format"), rest.remove("--by-category"));
+                case "backup":
+                    return backup(takeOption(rest, "--out"), rest.remove("--encrypt"));
+                case "decrypt":
+                    return rest.size() < 2 ? usage() : decrypt(Paths.get(rest.get(0)), Paths.get(rest.get(1)));
+                case "verify":
+                    return verify();
+                case "benchmark":
+                    String n = takeOption(rest, "--iterations");
+                    return benchmark(n == null ? DEFAULT_BENCHMARK_ITERATIONS : Integer.parseInt(n));
+                case "transfer":
+                    String date = takeOption(rest, "--date");
+                    String memo = takeOption(rest, "--memo");
+                    if (rest.size() < 3) {
+                        return usage();
+                    }
+                    return transfer(rest.get(0), rest.get(1), Double.parseDouble(rest.get(2)),
+                            date == null ? LocalDate.now() : LocalDate.parse(date), memo);
+                case "rates":
+                    return rest.isEmpty() ? usage() : importRates(Paths.get(rest.get(0)));
+                case "currency":
+                    String reporting = takeOption(rest, "--reporting");
+                    if (reporting != null) {
+                        FxRates.getInstance().setReportingCurrency(reporting);
+                        return 0;
+                    }
+                    return rest.size() < 2 ? usage() : setCurrency(rest.get(0), rest.get(1));
+                case "sync":
+                    return rest.isEmpty() ? usage() : sync(Paths.get(rest.get(0)));
+                case "serve":
+                    String port = takeOption(rest, "--port");
+                    return serve(port == null ? ApiServer.DEFAULT_PORT : Integer.parseInt(port));
+                default:
+                    return usage();
+            }
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            err.println("Invalid argument: " + e.getMessage());
+            return 2;
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            Log.flush();
+        }
+    }
+
+    private int usage() {
+        err.println("Usage: finance [--db file] <command> [options]");
+        err.println("  import <file.csv>                 import rows of date,account,category,amount,note");
+        err.println("                                    (a blank category is suggested from the note)");
+        err.println("  export [--month YYYY-MM] [--encrypt]  write the monthly XLSX report to exports/");
+        err.println("  report [--month YYYY-MM|all] [--format csv|json] [--by-category]");
+        err.println("  backup [--out dir] [--encrypt]    copy the database to a timestamped file");
+        err.println("  decrypt <file.enc> <out>          decrypt an encrypted backup or export");
+        err.println("  verify                            check database integrity");
+        err.println("  benchmark [--iterations N]        time the main read queries");
+        err.println("  serve [--port N]                  run the local HTTP/JSON API until stopped");
+        err.println("  transfer <from> <to> <amount> [--date YYYY-MM-DD] [--memo text]");
+        err.println("  rates <file.csv>                  load exchange rates of date,currency,rate");
+        err.println("  currency <account> <CODE>         set an account's currency");
+        err.println("  currency --reporting <CODE>       set the currency totals and reports are shown in");
+        err.println("  sync <dir>                        exchange changes with other devices via a shared folder");
+        return 2;
+    }
+
+    private int importCsv(Path file) throws IOException {
+        Map<String, Integer> accounts = accountIds();
+        Map<String, Integer> categories = new HashMap<>();
+        for (Category c : financeService.getAllCategories()) {
+            categories.put(c.getName().toLowerCase(Locale.ROOT), c.getId());
+            categories.put(Integer.toString(c.getId()), c.getId());
+        }
+
+        List<Transaction> rows = new ArrayList<>();
+        // Rows with a blank category, classified together once the file is read
+        List<Integer> unlabelled = new ArrayList<>();
+        List<Integer> unlabelledLines = new ArrayList<>();
+        List<String> unlabelledNotes = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine(); // header
+            int lineNo = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> f = parseCsvLine(line);
+                if (f.size() < 4) {
+                    err.println("Line " + lineNo + ": expected date,account,category,amount[,note]");
+                    return 1;
+                }
+                Integer accountId = accounts.get(f.get(1).trim().toLowerCase(Locale.ROOT));
+                boolean blankCategory = f.get(2).isBlank();
+                Integer categoryId = blankCategory ? Integer.valueOf(0) : categories.get(f.get(2).trim().toLowerCase(Locale.ROOT));
+                if (accountId == null || categoryId == null) {
+                    err.println("Line " + lineNo + ": unknown " + (accountId == null ? "account " + f.get(1) : "category " + f.get(2)));
+                    return 1;
+                }
+                String note = f.size() > 4 && !f.get(4).isEmpty() ? f.get(4) : null;
+                if (blankCategory) {
+                    unlabelled.add(rows.size());
+                    unlabelledLines.add(lineNo);
+                    unlabelledNotes.add(note);
+                }
+                rows.add(new Transaction(accountId, categoryId, Double.parseDouble(f.get(3).trim()),
+                        LocalDate.parse(f.get(0).trim()), note, null));
+            }
+        }
+
+        if (!unlabelled.isEmpty()) {
+            int[] suggested = financeService.getCategorizer().classifyAll(unlabelledNotes);
+            for (int i = 0; i < suggested.length; i++) {
+                if (suggested[i] < 0) {
+                    err.println("Line " + unlabelledLines.get(i) + ": no category given and none could be suggested");
+                    return 1;
+                }
+                rows.get(unlabelled.get(i)).setCategoryId(suggested[i]);
+            }
+        }
+
+        int imported = financeService.importTransactions(rows);
+        if (imported < 0) {
+            err.println("Import failed; nothing was imported.");
+            return 1;
+        }
+        out.println("Imported " + imported + " transactions"
+                + (imported < rows.size() ? ", skipped " + (rows.size() - imported) + " already stored." : "."));
+        return 0;
+    }
+
+    private int transfer(String from, String to, double amount, LocalDate date, String memo) {
+        Map<String, Integer> accounts = accountIds();
+        Integer fromId = accounts.get(from.trim().toLowerCase(Locale.ROOT));
+        Integer toId = accounts.get(to.trim().toLowerCase(Locale.ROOT));
+        if (fromId == null || toId == null) {
+            err.println("Unknown account " + (fromId == null ? from : to));
+            return 1;
+        }
+        long journalId = financeService.transfer(fromId, toId, amount, date, memo);
+        if (journalId < 0) {
+            err.println("Transfer failed.");
+            return 1;
+        }
+        out.println("Posted journal entry " + journalId + ".");
+        return 0;
+    }
+
+    private int importRates(Path file) throws IOException {
+        int stored = financeService.importFxRates(FxRates.readCsv(file));
+        if (stored < 0) {
+            err.println("Import failed; no rates were stored.");
+            return 1;
+        }
+        out.println("Stored " + stored + " exchange rates.");
+        return 0;
+    }
+
+    private int sync(Path dir) throws IOException {
+        SyncEngine.SyncResult result = SyncEngine.getInstance().sync(dir);
+        out.println("Sent " + result.getSent() + " changes, applied " + result.getApplied() + ", skipped "
+                + result.getSkipped() + " older, " + result.getUnresolved() + " unresolved.");
+        return 0;
+    }
+
+    private int setCurrency(String account, String currency) {
+        Integer accountId = accountIds().get(account.trim().toLowerCase(Locale.ROOT));
+        if (accountId == null) {
+            err.println("Unknown account " + account);
+            return 1;
+        }
+        if (!financeService.setAccountCurrency(accountId, currency)) {
+            err.println("Could not set the currency.");
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Account ids keyed by lower-case name and by id.
+     */
+    private Map<String, Integer> accountIds() {
+        Map<String, Integer> accounts = new HashMap<>();
+        for (Account a : financeService.getAllAccounts()) {
+            accounts.put(a.getName().toLowerCase(Locale.ROOT), a.getId());
+            accounts.put(Integer.toString(a.getId()), a.getId());
+        }
+        return accounts;
+    }
+
+    private int export(YearMonth month, boolean encrypt) {
+        if (month == null) {
+            throw new IllegalArgumentException("export needs a single month");
+        }
+        String path = financeService.exportMonthlyReportXlsx(month, encrypt ? passphrase() : null);
+        if (path == null) {
+            err.println("Export failed.");
+            return 1;
+        }
+        out.println(path);
+        return 0;
+    }
+
+    private int report(YearMonth month, String format, boolean byCategory) {
+        boolean json = "json".equalsIgnoreCase(format);
+        if (format != null && !json && !"csv".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("format must be csv or json");
+        }
+        if (byCategory) {
+            if (month == null) {
+                throw new IllegalArgumentException("--by-category needs a single month");
+            }
+            Map<String, Double> totals = financeService.getExpensesByCategory(month);
+            if (json) {
+                out.print('[');
+                boolean first = true;
+                for (Map.Entry<String, Double> e : totals.entrySet()) {
+                    out.print((first ? "" : ",") + "\n{\"category\":" + jsonString(e.getKey()) + ",\"total\":" + e.getValue() + "}");
+                    first = false;
+                }
+                out.println("\n]");
+            } else {
+                out.println("category,total");
+                totals.forEach((k, v) -> out.println(csv(k) + "," + v));
+            }
+            out.flush();
+            return 0;
+        }
+
+        TransactionQuery query = new TransactionQuery(month, 0, 0, TransactionQuery.SortColumn.DATE, true);
+        out.print(json ? "[" : "id,date,account,category,type,amount,note\n");
+        boolean first = true;
+        TransactionRow after = null;
+        while (true) {
+            List<TransactionRow> page = financeService.getTransactionPage(query, after, REPORT_PAGE_SIZE);
+            for (TransactionRow r : page) {
+                if (json) {
+                    out.print((first ? "" : ",") + "\n{\"id\":" + r.getId() + ",\"date\":\"" + r.getDate()
+                            + "\",\"account\":" + jsonString(r.getAccountName()) + ",\"category\":" + jsonString(r.getCategoryName())
+                            + ",\"type\":\"" + r.getCategoryType() + "\",\"amount\":" + r.getAmount()
+                            + ",\"note\":" + (r.getNote() == null ? "null" : jsonString(r.getNote())) + "}");
+                } else {
+                    out.print(r.getId() + "," + r.getDate() + "," + csv(r.getAccountName()) + "," + csv(r.getCategoryName())
+                            + "," + r.getCategoryType() + "," + r.getAmount() + "," + csv(r.getNote()) + "\n");
+                }
+                first = false;
+            }
+            if (page.size() < REPORT_PAGE_SIZE) {
+                break;
+            }
+            after = page.get(page.size() - 1);
+        }
+        if (json) {
+            out.print("\n]\n");
+        }
+        out.flush();
+        return 0;
+    }
+
+    private int backup(String dir, boolean encrypt) {
+        DatabaseHelper dbHelper = DatabaseHelper.getInstance();
+        Path backupDir = Paths.get(dir == null ? "db_backups" : dir);
+        String path = encrypt ? dbHelper.backupDatabaseEncrypted(backupDir, passphrase()) : dbHelper.backupDatabase(backupDir);
+        if (path == null) {
+            err.println("Backup failed.");
+            return 1;
+        }
+        out.println(path);
+        return 0;
+    }
+
+    private int decrypt(Path source, Path target) throws IOException {
+        if (Files.exists(target)) {
+            throw new IllegalArgumentException("will not overwrite " + target);
+        }
+        ChunkedCipher.decryptFile(source, target, passphrase());
+        out.println(target);
+        return 0;
+    }
+
+    private static char[] passphrase() {
+        String env = System.getenv(PASSPHRASE_ENV);
+        if (env != null && !env.isEmpty()) {
+            return env.toCharArray();
+        }
+        java.io.Console console = System.console();
+        char[] typed = console == null ? null : console.readPassword("Passphrase: ");
+        if (typed == null || typed.length == 0) {
+            throw new IllegalArgumentException("no passphrase; set " + PASSPHRASE_ENV + " or run from a terminal");
+        }
+        return typed;
+    }
+
+    private int verify() {
+        List<String> problems = DatabaseHelper.getInstance().verifyIntegrity();
+        if (problems.isEmpty()) {
+            out.println("OK");
+            return 0;
+        }
+        problems.forEach(err::println);
+        return 1;
+    }
+
+    private int benchmark(int iterations) {
+        YearMonth now = YearMonth.now();
+        TransactionQuery query = new TransactionQuery().withMonth(null);
+        for (int i = 0; i < iterations; i++) {
+            // Time the queries themselves, not AggregateCache hits
+            AggregateCache.getInstance().invalidateAll();
+            financeService.getTotalBalance();
+            financeService.getExpensesByCategory(now);
+            financeService.getMonthlyExpensesByCategory(now.minusMonths(11), now);
+            financeService.countTransactions(query);
+            financeService.getTransactionPage(query, null, 200);
+            financeService.searchNotes("a", null, 50);
+        }
+        benchmarkCategorizer(query);
+        out.println("Benchmark: " + iterations + " iterations");
+        out.print(Metrics.getInstance().report());
+        return 0;
+    }
+
+    private int serve(int port) throws IOException {
+        ApiServer server = new ApiServer(financeService, port);
+        server.start();
+        out.println("Listening on http://127.0.0.1:" + server.getPort() + "/api");
+        out.flush();
+        java.util.concurrent.CountDownLatch stopped = new java.util.concurrent.CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }, "finance-api-shutdown"));
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    /**
+     * Classifies 100k notes, cycling through the newest stored ones, as one batch.
+     */
+    private void benchmarkCategorizer(TransactionQuery query) {
+        List<String> sample = new ArrayList<>();
+        for (TransactionRow row : financeService.getTransactionPage(query, null, 1000)) {
+            if (row.getNote() != null) {
+                sample.add(row.getNote());
+            }
+        }
+        if (sample.isEmpty()) {
+            return;
+        }
+        Categorizer categorizer = financeService.getCategorizer();
+        List<String> notes = new ArrayList<>(CATEGORIZER_BENCHMARK_ROWS);
+        for (int i = 0; i < CATEGORIZER_BENCHMARK_ROWS; i++) {
+            notes.add(sample.get(i % sample.size()));
+        }
+        long start = System.nanoTime();
+        categorizer.classifyAll(notes);
+        long nanos = System.nanoTime() - start;
+        Metrics.getInstance().timer("categorizer.classifyAll").recordNanos(nanos);
+        out.printf(Locale.ROOT, "Categorizer: %d notes in %.1f ms (%.0f rows/s)%n",
+                notes.size(), nanos / 1e6, notes.size() / (nanos / 1e9));
+    }
+
+    private static YearMonth month(String value) {
+        if (value == null) {
+            return YearMonth.now();
+        }
+        return "all".equalsIgnoreCase(value) ? null : YearMonth.parse(value);
+    }
+
+    /**
+     * Removes "--name value" from the arguments and returns the value, or null if absent.
+     */
+    private static String takeOption(List<String> args, String name) {
+        int i = args.indexOf(name);
+        if (i < 0) {
+            return null;
+        }
+        if (i + 1 >= args.size()) {
+            throw new IllegalArgumentException(name + " needs a value");
+        }
+        args.remove(i);
+        return args.remove(i);
+    }
+
+    /**
+     * Splits one CSV line, honouring double-quoted fields with "" escapes.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
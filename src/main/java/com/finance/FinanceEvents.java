@@ -0,0 +1,227 @@
+package com.finance;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event types published on the EventBus, plus the default data-layer listeners.
+ */
+public final class FinanceEvents {
+    // Percent-of-budget levels that raise a BudgetThresholdEvent when crossed
+    static final int[] BUDGET_THRESHOLDS = {50, 80, 100};
+
+    private static boolean listenersInstalled;
+
+    private FinanceEvents() {
+    }
+
+    /**
+     * Registers the budget and balance listeners once per process. They turn raw
+     * TransactionAddedEvents into BudgetThresholdEvents and BalanceChangedEvents.
+     */
+    public static synchronized void installDefaultListeners(FinanceService financeService) {
+        if (listenersInstalled) {
+            return;
+        }
+        listenersInstalled = true;
+        EventBus bus = EventBus.getInstance();
+
+        bus.subscribe(TransactionAddedEvent.class, e -> {
+            BudgetStatus before = e.getBudgetBefore();
+            BudgetStatus after = e.getBudgetAfter();
+            if (before == null || after == null || after.getLimit() <= 0) {
+                return;
+            }
+            int crossed = crossedThreshold(before.getSpent(), after.getSpent(), after.getLimit());
+            if (crossed > 0) {
+                bus.publish(new BudgetThresholdEvent(after, crossed));
+            }
+        });
+
+        bus.subscribe(TransactionAddedEvent.class, e ->
+            bus.publish(new BalanceChangedEvent(financeService.getTotalBalance())));
+    }
+
+    /**
+     * Returns the highest threshold (in percent) passed when spending moved from
+     * {@code before} to {@code after}, or 0 if none was crossed.
+     */
+    static int crossedThreshold(double before, double after, double limit) {
+        int crossed = 0;
+        for (int t : BUDGET_THRESHOLDS) {
+            double level = limit * t / 100.0;
+            if (before < level && after >= level) {
+                crossed = t;
+            }
+        }
+        return crossed;
+    }
+
+    /**
+     * Published after a transaction has been committed. If it counts towards its category's
+     * current budget period, the event carries the budget status just before and after it.
+     */
+    public static class TransactionAddedEvent {
+        private final int accountId;
+        private final int categoryId;
+        private final double amount;
+        private final LocalDate date;
+        private final BudgetStatus budgetBefore;
+        private final BudgetStatus budgetAfter;
+
+        public TransactionAddedEvent(int accountId, int categoryId, double amount, LocalDate date) {
+            this(accountId, categoryId, amount, date, null, null);
+        }
+
+        public TransactionAddedEvent(int accountId, int categoryId, double amount, LocalDate date,
+                                     BudgetStatus budgetBefore, BudgetStatus budgetAfter) {
+            this.accountId = accountId;
+            this.categoryId = categoryId;
+            this.amount = amount;
+            this.date = date;
+            this.budgetBefore = budgetBefore;
+            this.budgetAfter = budgetAfter;
+        }
+
+        public int getAccountId() {
+            return accountId;
+        }
+
+        public int getCategoryId() {
+            return categoryId;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * Budget status before this transaction, or null if it does not count towards the
+         * current period.
+         */
+        public BudgetStatus getBudgetBefore() {
+            return budgetBefore;
+        }
+
+        public BudgetStatus getBudgetAfter() {
+            return budgetAfter;
+        }
+    }
+
+    /**
+     * Published when a category's spending crosses 50, 80 or 100 percent of its budget.
+     */
+    public static class BudgetThresholdEvent {
+        private final BudgetStatus status;
+        private final int thresholdPercent;
+
+        public BudgetThresholdEvent(BudgetStatus status, int thresholdPercent) {
+            this.status = status;
+            this.thresholdPercent = thresholdPercent;
+        }
+
+        public BudgetStatus getStatus() {
+            return status;
+        }
+
+        public int getThresholdPercent() {
+            return thresholdPercent;
+        }
+    }
+
+    /**
+     * Published with the new total balance after account balances changed.
+     */
+    public static class BalanceChangedEvent {
+        private final double totalBalance;
+
+        public BalanceChangedEvent(double totalBalance) {
+            this.totalBalance = totalBalance;
+        }
+
+        public double getTotalBalance() {
+            return totalBalance;
+        }
+    }
+
+    /**
+     * Published after the recurring scheduler ran and found due bills.
+     */
+    public static class RecurringPostedEvent {
+        private final List<RecurringScheduler.Occurrence> occurrences;
+
+        public RecurringPostedEvent(List<RecurringScheduler.Occurrence> occurrences) {
+            this.occurrences = new ArrayList<>(occurrences);
+        }
+
+        public List<RecurringScheduler.Occurrence> getOccurrences() {
+            return occurrences;
+        }
+    }
+
+    /**
+     * Published when another process committed to the database file, or SyncEngine applied
+     * changes from another device; anything cached from it may be stale.
+     */
+    public static class ExternalChangeEvent {
+    }
+
+    /**
+     * Published after exchange rates were imported; converted totals may have changed.
+     */
+    public static class FxRatesChangedEvent {
+        private final int count;
+
+        public FxRatesChangedEvent(int count) {
+            this.count = count;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Published after a transfer between two accounts was committed.
+     */
+    public static class TransferPostedEvent {
+        private final long journalId;
+        private final int fromAccountId;
+        private final int toAccountId;
+        private final double amount;
+        private final LocalDate date;
+
+        public TransferPostedEvent(long journalId, int fromAccountId, int toAccountId, double amount, LocalDate date) {
+            this.journalId = journalId;
+            this.fromAccountId = fromAccountId;
+            this.toAccountId = toAccountId;
+            this.amount = amount;
+            this.date = date;
+        }
+
+        public long getJournalId() {
+            return journalId;
+        }
+
+        public int getFromAccountId() {
+            return fromAccountId;
+        }
+
+        public int getToAccountId() {
+            return toAccountId;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+    }
+}
@@ -9,7 +9,17 @@ import java.util.List;
 import java.util.Map;
 
 public class FinanceService {
+    private static final String RECURRING_WATERMARK_KEY = "recurring.last_run";
+    // Largest rounding error allowed between the legs of a journal entry
+    private static final double JOURNAL_TOLERANCE = 0.005;
+    // AggregateCache query name; per month, so the history chart shares entries with the pie
+    private static final String EXPENSES_BY_CATEGORY = "expensesByCategory";
+    // Bumped when a recurring expense is added through any instance; see getRecurringChanges
+    private static final java.util.concurrent.atomic.AtomicLong RECURRING_CHANGES = new java.util.concurrent.atomic.AtomicLong();
+
     private DatabaseHelper dbHelper;
+    // Created up front so it subscribes to ExternalChangeEvent before the dashboard does
+    private final AggregateCache aggregates = AggregateCache.getInstance();
 
     public FinanceService() {
         this.dbHelper = DatabaseHelper.getInstance();
@@ -17,94 +27,191 @@ public class FinanceService {
 
     /**
      * Checks if adding a new transaction amount would exceed the category's budget limit.
-     * Calculates total spent in the category for the current month.
+     * Uses the in-memory BudgetEngine, so the check does not touch the database once the
+     * engine is loaded. The spending window follows the category's budget period.
      * 
      * @param categoryId The ID of the category to check
      * @param newAmount The amount of the new transaction to be added
      * @return Warning message if budget would be exceeded, null otherwise
      */
     public String checkBudgetWarning(int categoryId, double newAmount) {
-        String warning = null;
+        BudgetEngine engine = getBudgetEngine();
+        if (!engine.isLoaded()) {
+            return "Error checking budget: budget data could not be loaded";
+        }
         
-        try (Connection conn = dbHelper.getConnection()) {
-            // Get category budget limit and type
-            String categoryQuery = "SELECT budget_limit, type FROM Categories WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(categoryQuery)) {
-                pstmt.setInt(1, categoryId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                if (!rs.next()) {
-                    return "Category not found.";
-                }
-                
-                double budgetLimit = rs.getDouble("budget_limit");
-                String categoryType = rs.getString("type");
-                
-                // Only check budget for EXPENSE categories
-                if (!"EXPENSE".equals(categoryType)) {
-                    return null; // No budget warning for income categories
-                }
-                
-                // Calculate total spent this month
-                YearMonth currentMonth = YearMonth.now();
-                LocalDate startOfMonth = currentMonth.atDay(1);
-                LocalDate endOfMonth = currentMonth.atEndOfMonth();
-                
-                String totalSpentQuery = """
-                    SELECT COALESCE(SUM(amount), 0) as total_spent
-                    FROM Transactions
-                    WHERE category_id = ? 
-                    AND date >= ? 
-                    AND date <= ?
-                    """;
-                
-                try (PreparedStatement totalPstmt = conn.prepareStatement(totalSpentQuery)) {
-                    totalPstmt.setInt(1, categoryId);
-                    totalPstmt.setString(2, startOfMonth.toString());
-                    totalPstmt.setString(3, endOfMonth.toString());
-                    
-                    ResultSet totalRs = totalPstmt.executeQuery();
-                    if (totalRs.next()) {
-                        double totalSpent = totalRs.getDouble("total_spent");
-                        double projectedTotal = totalSpent + newAmount;
-                        
-                        if (projectedTotal > budgetLimit) {
-                            double overBudget = projectedTotal - budgetLimit;
-                            warning = String.format(
-                                "Budget Warning: Adding this transaction (%.2f) would exceed the budget limit (%.2f) by %.2f. " +
-                                "Current month spending: %.2f, Projected total: %.2f",
-                                newAmount, budgetLimit, overBudget, totalSpent, projectedTotal
-                            );
-                        }
-                    }
+        BudgetStatus status = engine.status(categoryId, LocalDate.now());
+        if (status == null) {
+            // Income categories have no budget; anything else is unknown
+            return categoryExists(categoryId) ? null : "Category not found.";
+        }
+        
+        if (!status.wouldExceed(newAmount)) {
+            return null;
+        }
+        double projectedTotal = status.getSpent() + newAmount;
+        double overBudget = projectedTotal - status.getLimit();
+        return String.format(
+            "Budget Warning: Adding this transaction (%.2f) would exceed the budget limit (%.2f) by %.2f. " +
+            "Current %s spending: %.2f, Projected total: %.2f",
+            newAmount, status.getLimit(), overBudget, periodLabel(status.getPeriod()), status.getSpent(), projectedTotal
+        );
+    }
+
+    private static String periodLabel(BudgetPeriod period) {
+        switch (period) {
+            case WEEKLY:
+                return "week";
+            case ROLLING_30:
+                return "30-day";
+            case MONTHLY:
+            default:
+                return "month";
+        }
+    }
+
+    private boolean categoryExists(int categoryId) {
+        Metrics.Op op = Metrics.op("categoryExists");
+        try (Connection conn = dbHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM Categories WHERE id = ?")) {
+            pstmt.setInt(1, categoryId);
+            return pstmt.executeQuery().next();
+        } catch (SQLException e) {
+            Log.error("Error looking up category", e);
+            return false;
+        } finally {
+            op.close();
+        }
+    }
+
+    /**
+     * Returns the budget state of every expense category in one pass.
+     */
+    public List<BudgetStatus> getBudgetStatuses() {
+        return getBudgetEngine().snapshot(LocalDate.now());
+    }
+
+    /**
+     * Changes the budget limit and period of a category.
+     * 
+     * @return true if the category was updated, false otherwise
+     */
+    public boolean updateCategoryBudget(int categoryId, double budgetLimit, BudgetPeriod period) {
+        boolean updated = write("updateCategoryBudget", "Error updating category budget", false, conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE Categories SET budget_limit = ?, budget_period = ? WHERE id = ?")) {
+                pstmt.setDouble(1, budgetLimit);
+                pstmt.setString(2, period.name());
+                pstmt.setInt(3, categoryId);
+                return pstmt.executeUpdate() > 0;
+            }
+        }).join();
+        if (!updated) {
+            return false;
+        }
+        BudgetEngine.getInstance().updateBudget(categoryId, budgetLimit, period);
+        return true;
+    }
+
+    /**
+     * Returns the shared BudgetEngine, loading it from the database on first use.
+     * A single grouped query reads the daily expense totals of every category.
+     */
+    public BudgetEngine getBudgetEngine() {
+        BudgetEngine engine = BudgetEngine.getInstance();
+        if (engine.isLoaded()) {
+            return engine;
+        }
+        // Query outside the engine lock so waiting threads never hold it while they wait
+        // for a pooled connection
+        LocalDate today = LocalDate.now();
+        Map<Integer, Map<LocalDate, Double>> dailyTotals = new HashMap<>();
+        String query = """
+            SELECT category_id, date, SUM(amount) AS total
+            FROM Transactions
+            WHERE date >= ?
+            GROUP BY category_id, date
+            """;
+        try (Metrics.Op op = Metrics.op("loadBudgetTotals"); Connection conn = dbHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, today.minusDays(BudgetEngine.WINDOW_DAYS - 1).toString());
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                op.row();
+                dailyTotals.computeIfAbsent(rs.getInt("category_id"), k -> new HashMap<>())
+                    .put(LocalDate.parse(rs.getString("date")), rs.getDouble("total"));
+            }
+        } catch (SQLException e) {
+            Log.error("Error loading budget data", e);
+            return engine;
+        }
+        List<Category> categories = getAllCategories();
+        synchronized (engine) {
+            if (!engine.isLoaded()) {
+                engine.load(categories, dailyTotals, today);
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Returns the shared Categorizer, training it on every transaction note on first use.
+     */
+    public Categorizer getCategorizer() {
+        Categorizer categorizer = Categorizer.getInstance();
+        if (categorizer.isLoaded()) {
+            return categorizer;
+        }
+        List<String> notes = new ArrayList<>();
+        int[] categoryIds = new int[256];
+        String query = "SELECT category_id, note FROM Transactions WHERE note IS NOT NULL AND note <> ''";
+        try (Metrics.Op op = Metrics.op("loadCategorizer"); Connection conn = dbHelper.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                op.row();
+                if (notes.size() == categoryIds.length) {
+                    categoryIds = java.util.Arrays.copyOf(categoryIds, categoryIds.length * 2);
                 }
+                categoryIds[notes.size()] = rs.getInt("category_id");
+                notes.add(rs.getString("note"));
             }
         } catch (SQLException e) {
-            System.err.println("Error checking budget warning: " + e.getMessage());
-            e.printStackTrace();
-            return "Error checking budget: " + e.getMessage();
+            Log.error("Error loading categorizer data", e);
+            return categorizer;
         }
-        
-        return warning;
+        List<Category> categories = getAllCategories();
+        synchronized (categorizer) {
+            if (!categorizer.isLoaded()) {
+                categorizer.load(categories, categoryIds, notes);
+            }
+        }
+        return categorizer;
     }
 
     /**
      * Checks for recurring expenses that are due today based on the due_day field.
+     * On the last day of a short month, bills due on later days (e.g. the 31st) are due too.
      * 
      * @return List of alert messages for recurring expenses due today
      */
     public List<String> checkRecurringDue() {
         List<String> alerts = new ArrayList<>();
         
-        try (Connection conn = dbHelper.getConnection()) {
-            int todayDay = LocalDate.now().getDayOfMonth();
+        try (Metrics.Op op = Metrics.op("checkRecurringDue"); Connection conn = dbHelper.getConnection()) {
+            LocalDate today = LocalDate.now();
+            int todayDay = today.getDayOfMonth();
+            boolean lastDayOfMonth = todayDay == today.lengthOfMonth();
             
-            String query = "SELECT id, name, amount, due_day FROM RecurringExpenses WHERE due_day = ?";
+            String query = "SELECT id, name, amount, due_day FROM RecurringExpenses WHERE due_day = ? OR (? AND due_day > ?)";
             try (PreparedStatement pstmt = conn.prepareStatement(query)) {
                 pstmt.setInt(1, todayDay);
+                pstmt.setBoolean(2, lastDayOfMonth);
+                pstmt.setInt(3, todayDay);
                 ResultSet rs = pstmt.executeQuery();
                 
                 while (rs.next()) {
+                    op.row();
                     String name = rs.getString("name");
                     double amount = rs.getDouble("amount");
                     int dueDay = rs.getInt("due_day");
@@ -117,14 +224,249 @@ public class FinanceService {
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error checking recurring expenses: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error checking recurring expenses", e);
             alerts.add("Error checking recurring expenses: " + e.getMessage());
         }
         
         return alerts;
     }
 
+    /**
+     * Gets all recurring expenses from the database, ordered by next due date so the
+     * result can be used as a RecurringCalendar heap without re-sorting.
+     * 
+     * @return List of RecurringExpense objects
+     */
+    public List<RecurringExpense> getAllRecurringExpenses() {
+        List<RecurringExpense> expenses = new ArrayList<>();
+        
+        try (Metrics.Op op = Metrics.op("getAllRecurringExpenses"); Connection conn = dbHelper.getConnection()) {
+            String query = """
+                SELECT id, name, amount, due_day, account_id, category_id, frequency, interval_count, anchor_date, next_due
+                FROM RecurringExpenses
+                ORDER BY next_due, id
+                """;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(query)) {
+                while (rs.next()) {
+                    op.row();
+                    RecurringExpense expense = new RecurringExpense(
+                        rs.getInt("id"), rs.getString("name"), rs.getDouble("amount"), rs.getInt("due_day"));
+                    expense.setAccountId(rs.getInt("account_id"));
+                    expense.setCategoryId(rs.getInt("category_id"));
+                    expense.setFrequency(RecurrenceFrequency.valueOf(rs.getString("frequency")));
+                    expense.setInterval(rs.getInt("interval_count"));
+                    String anchor = rs.getString("anchor_date");
+                    expense.setAnchorDate(anchor != null ? LocalDate.parse(anchor) : null);
+                    String nextDue = rs.getString("next_due");
+                    expense.setNextDue(nextDue != null ? LocalDate.parse(nextDue) : null);
+                    expenses.add(expense);
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error getting recurring expenses", e);
+        }
+        
+        return expenses;
+    }
+
+    /**
+     * Inserts a new recurring expense and sets its generated id on the object.
+     * 
+     * @return true if the expense was added successfully, false otherwise
+     */
+    public boolean addRecurringExpense(RecurringExpense expense) {
+        boolean added = insertRecurringExpense(expense);
+        if (added) {
+            RECURRING_CHANGES.incrementAndGet();
+        }
+        return added;
+    }
+
+    /**
+     * Number of recurring expenses added since startup; a RecurringScheduler compares it
+     * with the value its calendar was loaded at to know the calendar is out of date.
+     */
+    public long getRecurringChanges() {
+        return RECURRING_CHANGES.get();
+    }
+
+    private boolean insertRecurringExpense(RecurringExpense expense) {
+        String insert = """
+            INSERT INTO RecurringExpenses (name, amount, due_day, account_id, category_id, frequency, interval_count, anchor_date, next_due)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            RETURNING id
+            """;
+        return write("addRecurringExpense", "Error adding recurring expense", false, conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(insert)) {
+                pstmt.setString(1, expense.getName());
+                pstmt.setDouble(2, expense.getAmount());
+                pstmt.setInt(3, expense.getDueDay());
+                pstmt.setObject(4, expense.getAccountId() > 0 ? expense.getAccountId() : null);
+                pstmt.setObject(5, expense.getCategoryId() > 0 ? expense.getCategoryId() : null);
+                pstmt.setString(6, expense.getFrequency().name());
+                pstmt.setInt(7, expense.getInterval());
+                pstmt.setString(8, expense.getAnchorDate() != null ? expense.getAnchorDate().toString() : null);
+                pstmt.setString(9, expense.getNextDue() != null ? expense.getNextDue().toString() : null);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    expense.setId(rs.getInt(1));
+                }
+                return true;
+            }
+        }).join();
+    }
+
+    /**
+     * Persists the next due date of the given recurring expenses in one batch.
+     */
+    public boolean updateRecurringSchedule(List<RecurringExpense> expenses) {
+        return write("updateRecurringSchedule", "Error updating recurring schedule", false, conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE RecurringExpenses SET next_due = ? WHERE id = ?")) {
+                bindNextDue(pstmt, expenses);
+                pstmt.executeBatch();
+            }
+            return true;
+        }).join();
+    }
+
+    private void bindNextDue(PreparedStatement pstmt, List<RecurringExpense> expenses) throws SQLException {
+        for (RecurringExpense e : expenses) {
+            pstmt.setString(1, e.getNextDue() != null ? e.getNextDue().toString() : null);
+            pstmt.setInt(2, e.getId());
+            pstmt.addBatch();
+        }
+    }
+
+    /**
+     * Gets the last day the recurring scheduler fully processed, or null if it never ran.
+     */
+    public LocalDate getRecurringWatermark() {
+        Metrics.Op op = Metrics.op("getRecurringWatermark");
+        try (Connection conn = dbHelper.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT value FROM AppState WHERE key = ?")) {
+                pstmt.setString(1, RECURRING_WATERMARK_KEY);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next() && rs.getString("value") != null) {
+                    return LocalDate.parse(rs.getString("value"));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Error reading recurring watermark", e);
+        } finally {
+            op.close();
+        }
+        return null;
+    }
+
+    /**
+     * Posts recurring expense occurrences as transactions, stores the advanced next due
+     * dates and moves the scheduler watermark, all as one command on the database writer.
+     * Inserts are batched and balance changes are summed per account so each account
+     * is updated once.
+     * 
+     * @param occurrences Occurrences to post; every one must be postable
+     * @param advanced Expenses whose next due date moved during this run
+     * @param watermark The last day covered by this run
+     * @return true if everything was committed, false otherwise
+     */
+    public boolean postRecurringOccurrences(List<RecurringScheduler.Occurrence> occurrences,
+                                            List<RecurringExpense> advanced, LocalDate watermark) {
+        boolean posted = write("postRecurringOccurrences", "Error posting recurring expenses", false, conn -> {
+            Map<Integer, String> categoryTypes = loadCategoryTypes(conn);
+            
+            String insertTransactionQuery = """
+                INSERT INTO Transactions (account_id, category_id, amount, date, note, image_path)
+                VALUES (?, ?, ?, ?, ?, NULL)
+                """;
+            Map<Integer, Double> balanceDeltas = new HashMap<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(insertTransactionQuery)) {
+                for (RecurringScheduler.Occurrence o : occurrences) {
+                    RecurringExpense expense = o.getExpense();
+                    String categoryType = categoryTypes.get(expense.getCategoryId());
+                    if (categoryType == null) {
+                        Log.warn("Category not found for recurring expense", "expense", expense);
+                        throw new DatabaseWriter.Abort("Category not found");
+                    }
+                    pstmt.setInt(1, expense.getAccountId());
+                    pstmt.setInt(2, expense.getCategoryId());
+                    pstmt.setDouble(3, expense.getAmount());
+                    pstmt.setString(4, o.getDueDate().toString());
+                    pstmt.setString(5, "Recurring: " + expense.getName());
+                    pstmt.addBatch();
+                    
+                    double signed = "INCOME".equals(categoryType) ? expense.getAmount() : -expense.getAmount();
+                    balanceDeltas.merge(expense.getAccountId(), signed, Double::sum);
+                }
+                pstmt.executeBatch();
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE Accounts SET balance = balance + ?, version = version + 1 WHERE id = ?")) {
+                for (Map.Entry<Integer, Double> delta : balanceDeltas.entrySet()) {
+                    pstmt.setDouble(1, delta.getValue());
+                    pstmt.setInt(2, delta.getKey());
+                    pstmt.addBatch();
+                }
+                int[] updated = pstmt.executeBatch();
+                for (int rows : updated) {
+                    if (rows == 0) {
+                        Log.warn("Account not found while posting recurring expenses");
+                        throw new DatabaseWriter.Abort("Account not found");
+                    }
+                }
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE RecurringExpenses SET next_due = ? WHERE id = ?")) {
+                bindNextDue(pstmt, advanced);
+                pstmt.executeBatch();
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO AppState (key, value) VALUES (?, ?) ON CONFLICT(key) DO UPDATE SET value = excluded.value")) {
+                pstmt.setString(1, RECURRING_WATERMARK_KEY);
+                pstmt.setString(2, watermark.toString());
+                pstmt.executeUpdate();
+            }
+            return true;
+        }).join();
+        if (!posted) {
+            return false;
+        }
+        
+        for (RecurringScheduler.Occurrence o : occurrences) {
+            RecurringExpense expense = o.getExpense();
+            aggregates.invalidate(YearMonth.from(o.getDueDate()));
+            EventBus.getInstance().publish(recordPosted(
+                expense.getAccountId(), expense.getCategoryId(), expense.getAmount(), o.getDueDate()));
+        }
+        return true;
+    }
+
+    /**
+     * Counts a committed transaction in the BudgetEngine, if it is loaded, and returns its
+     * TransactionAddedEvent. When the transaction falls in the category's current budget
+     * period, the event carries the budget status right before and after it, taken under
+     * the engine lock so concurrent postings cannot hide or invent a threshold crossing.
+     */
+    private FinanceEvents.TransactionAddedEvent recordPosted(int accountId, int categoryId, double amount, LocalDate date) {
+        BudgetEngine engine = BudgetEngine.getInstance();
+        BudgetStatus before = null;
+        BudgetStatus after = null;
+        synchronized (engine) {
+            if (engine.isLoaded()) {
+                LocalDate today = LocalDate.now();
+                BudgetStatus current = engine.status(categoryId, today);
+                engine.record(categoryId, date, amount);
+                if (current != null && !date.isAfter(today)
+                        && !date.isBefore(current.getPeriod().periodStart(today))) {
+                    before = current;
+                    after = engine.status(categoryId, today);
+                }
+            }
+        }
+        return new FinanceEvents.TransactionAddedEvent(accountId, categoryId, amount, date, before, after);
+    }
+
     /**
      * Adds a new transaction and updates the corresponding account balance.
      * For EXPENSE categories, deducts the amount from account balance.
@@ -140,24 +482,25 @@ public class FinanceService {
      */
     public boolean addTransaction(int accountId, int categoryId, double amount, 
                                    LocalDate date, String note, String imagePath) {
-        Connection conn = null;
-        try {
-            conn = dbHelper.getConnection();
-            conn.setAutoCommit(false); // Start transaction
-            
+        return addTransactionAsync(accountId, categoryId, amount, date, note, imagePath).join();
+    }
+
+    /**
+     * Queues a new transaction on the database writer without waiting for it.
+     * The future completes with true once the transaction is committed.
+     */
+    public java.util.concurrent.CompletableFuture<Boolean> addTransactionAsync(int accountId, int categoryId, double amount,
+                                                                            LocalDate date, String note, String imagePath) {
+        return write("addTransaction", "Error adding transaction", false, conn -> {
             // Get category type to determine if it's income or expense
-            String categoryQuery = "SELECT type FROM Categories WHERE id = ?";
             String categoryType;
-            try (PreparedStatement pstmt = conn.prepareStatement(categoryQuery)) {
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT type FROM Categories WHERE id = ?")) {
                 pstmt.setInt(1, categoryId);
                 ResultSet rs = pstmt.executeQuery();
-                
                 if (!rs.next()) {
-                    System.err.println("Category not found: " + categoryId);
-                    conn.rollback();
-                    return false;
+                    Log.warn("Category not found", "category", categoryId);
+                    throw new DatabaseWriter.Abort("Category not found");
                 }
-                
                 categoryType = rs.getString("type");
             }
             
@@ -166,7 +509,6 @@ public class FinanceService {
                 INSERT INTO Transactions (account_id, category_id, amount, date, note, image_path)
                 VALUES (?, ?, ?, ?, ?, ?)
                 """;
-            
             try (PreparedStatement pstmt = conn.prepareStatement(insertTransactionQuery)) {
                 pstmt.setInt(1, accountId);
                 pstmt.setInt(2, categoryId);
@@ -174,85 +516,334 @@ public class FinanceService {
                 pstmt.setString(4, date.toString());
                 pstmt.setString(5, note);
                 pstmt.setString(6, imagePath);
-                
-                int rowsAffected = pstmt.executeUpdate();
-                if (rowsAffected == 0) {
-                    conn.rollback();
-                    return false;
+                if (pstmt.executeUpdate() == 0) {
+                    throw new DatabaseWriter.Abort("Transaction was not inserted");
                 }
             }
             
-            // Update account balance based on category type
-            String updateBalanceQuery;
-            if ("INCOME".equals(categoryType)) {
-                // Add amount for income
-                updateBalanceQuery = "UPDATE Accounts SET balance = balance + ? WHERE id = ?";
-            } else {
-                // Deduct amount for expense
-                updateBalanceQuery = "UPDATE Accounts SET balance = balance - ? WHERE id = ?";
-            }
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(updateBalanceQuery)) {
-                pstmt.setDouble(1, amount);
+            // Add the amount for income, deduct it for expenses
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE Accounts SET balance = balance + ?, version = version + 1 WHERE id = ?")) {
+                pstmt.setDouble(1, "INCOME".equals(categoryType) ? amount : -amount);
                 pstmt.setInt(2, accountId);
-                
-                int rowsAffected = pstmt.executeUpdate();
-                if (rowsAffected == 0) {
-                    System.err.println("Account not found: " + accountId);
-                    conn.rollback();
-                    return false;
+                if (pstmt.executeUpdate() == 0) {
+                    Log.warn("Account not found", "account", accountId);
+                    throw new DatabaseWriter.Abort("Account not found");
                 }
             }
-            
-            // Commit transaction
-            conn.commit();
             return true;
+        }).thenApply(added -> {
+            if (added) {
+                aggregates.invalidate(YearMonth.from(date));
+                FinanceEvents.TransactionAddedEvent event = recordPosted(accountId, categoryId, amount, date);
+                Categorizer.getInstance().learn(categoryId, note);
+                EventBus.getInstance().publish(event);
+            }
+            return added;
+        });
+    }
+
+    /**
+     * Inserts many transactions as one command on the database writer: a batched insert
+     * and one balance update per account. Either every new transaction is stored or none
+     * is. Transactions already stored, on the same day or a few days off, are skipped (see
+     * TransactionDeduplicator), so importing the same statement twice is harmless.
+     * 
+     * @param transactions Transactions to insert; ids are ignored
+     * @return The number of transactions inserted, or -1 on failure
+     */
+    public int importTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+        List<Transaction> inserted = new ArrayList<>();
+        int imported = write("importTransactions", "Error importing transactions", -1, conn -> {
+            inserted.clear(); // the writer may run the command again after a busy retry
+            Map<Integer, String> categoryTypes = loadCategoryTypes(conn);
             
-        } catch (SQLException e) {
-            System.err.println("Error adding transaction: " + e.getMessage());
-            e.printStackTrace();
-            try {
-                if (conn != null) {
-                    conn.rollback();
+            Map<Integer, Double> balanceDeltas = new HashMap<>();
+            String insertQuery = """
+                INSERT INTO Transactions (account_id, category_id, amount, date, note, image_path, fingerprint)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """;
+            try (TransactionDeduplicator dedup = new TransactionDeduplicator(conn);
+                 PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
+                // Check every row before inserting any, so rows of this file never match each other
+                for (Transaction t : transactions) {
+                    String type = categoryTypes.get(t.getCategoryId());
+                    if (type == null) {
+                        Log.warn("Category not found during import", "category", t.getCategoryId());
+                        throw new DatabaseWriter.Abort("Category not found");
+                    }
+                    if (!dedup.isDuplicate(t)) {
+                        inserted.add(t);
+                    }
+                }
+                for (Transaction t : inserted) {
+                    String type = categoryTypes.get(t.getCategoryId());
+                    pstmt.setInt(1, t.getAccountId());
+                    pstmt.setInt(2, t.getCategoryId());
+                    pstmt.setDouble(3, t.getAmount());
+                    pstmt.setString(4, t.getDate().toString());
+                    pstmt.setString(5, t.getNote());
+                    pstmt.setString(6, t.getImagePath());
+                    pstmt.setLong(7, TransactionDeduplicator.fingerprint(t.getAccountId(), t.getAmount(), t.getNote()));
+                    pstmt.addBatch();
+                    balanceDeltas.merge(t.getAccountId(), "INCOME".equals(type) ? t.getAmount() : -t.getAmount(), Double::sum);
                 }
-            } catch (SQLException rollbackEx) {
-                System.err.println("Error rolling back transaction: " + rollbackEx.getMessage());
+                pstmt.executeBatch();
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE Accounts SET balance = balance + ?, version = version + 1 WHERE id = ?")) {
+                for (Map.Entry<Integer, Double> delta : balanceDeltas.entrySet()) {
+                    pstmt.setDouble(1, delta.getValue());
+                    pstmt.setInt(2, delta.getKey());
+                    if (pstmt.executeUpdate() == 0) {
+                        Log.warn("Account not found during import", "account", delta.getKey());
+                        throw new DatabaseWriter.Abort("Account not found");
+                    }
+                }
+            }
+            return inserted.size();
+        }).join();
+        if (imported > 0) {
+            BudgetEngine.getInstance().invalidate();
+            Categorizer categorizer = Categorizer.getInstance();
+            java.util.Set<YearMonth> months = new java.util.HashSet<>();
+            for (Transaction t : inserted) {
+                categorizer.learn(t.getCategoryId(), t.getNote());
+                months.add(YearMonth.from(t.getDate()));
+            }
+            months.forEach(aggregates::invalidate);
+            EventBus.getInstance().publish(new FinanceEvents.BalanceChangedEvent(getTotalBalance()));
+        }
+        return imported;
+    }
+
+    /**
+     * Sets an account's balance, but only if the account has not changed since it was read:
+     * the update matches on the version the caller saw. On success the account object gets
+     * the new balance and version. The difference is recorded as a balance adjustment so
+     * SyncEngine can carry it to other devices.
+     * 
+     * @return true if updated; false if the account changed in the meantime (reload and
+     *         retry) or on error
+     */
+    public boolean setAccountBalance(Account account, double balance) {
+        long expected = account.getVersion();
+        boolean updated = write("setAccountBalance", "Error setting account balance", false, conn -> {
+            // Before the update, which bumps the version it matches on
+            try (PreparedStatement adjust = conn.prepareStatement(
+                    "INSERT INTO BalanceAdjustments (account_id, amount, date, reason) "
+                    + "SELECT id, ? - balance, ?, 'set' FROM Accounts WHERE id = ? AND version = ? AND balance <> ?")) {
+                adjust.setDouble(1, balance);
+                adjust.setString(2, LocalDate.now().toString());
+                adjust.setInt(3, account.getId());
+                adjust.setLong(4, expected);
+                adjust.setDouble(5, balance);
+                adjust.executeUpdate();
             }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE Accounts SET balance = ?, version = version + 1 WHERE id = ? AND version = ?")) {
+                pstmt.setDouble(1, balance);
+                pstmt.setInt(2, account.getId());
+                pstmt.setLong(3, expected);
+                return pstmt.executeUpdate() > 0;
+            }
+        }).join();
+        if (!updated) {
+            Log.info("Account changed since it was read", "account", account.getId(), "version", expected);
             return false;
-        } finally {
-            try {
-                if (conn != null) {
-                    conn.setAutoCommit(true);
+        }
+        account.setBalance(balance);
+        account.setVersion(expected + 1);
+        EventBus.getInstance().publish(new FinanceEvents.BalanceChangedEvent(getTotalBalance()));
+        return true;
+    }
+
+    /**
+     * Moves money from one account to another as one journal posting with two balanced
+     * legs. Both legs and both balance updates commit together or not at all. Transfers
+     * between accounts in different currencies are rejected.
+     * 
+     * @return The journal id of the posting, or -1 if the transfer was rejected or failed
+     */
+    public long transfer(int fromAccountId, int toAccountId, double amount, LocalDate date, String memo) {
+        return transferAsync(fromAccountId, toAccountId, amount, date, memo).join();
+    }
+
+    /**
+     * Queues a transfer on the database writer without waiting for it.
+     */
+    public java.util.concurrent.CompletableFuture<Long> transferAsync(int fromAccountId, int toAccountId, double amount,
+                                                                    LocalDate date, String memo) {
+        if (fromAccountId == toAccountId || !(amount > 0)) {
+            Log.warn("Rejected transfer", "from", fromAccountId, "to", toAccountId, "amount", amount);
+            return java.util.concurrent.CompletableFuture.completedFuture(-1L);
+        }
+        Map<Integer, Double> legs = new java.util.LinkedHashMap<>();
+        legs.put(fromAccountId, -amount);
+        legs.put(toAccountId, amount);
+        return postJournal(date, memo, legs).thenApply(journalId -> {
+            if (journalId > 0) {
+                EventBus.getInstance().publish(new FinanceEvents.TransferPostedEvent(journalId, fromAccountId, toAccountId, amount, date));
+            }
+            return journalId;
+        });
+    }
+
+    /**
+     * Posts one balanced journal entry: inserts the entry and its legs and applies every
+     * leg to its account balance, all in a single writer command.
+     * 
+     * @param legs Signed amount per account; must sum to zero
+     */
+    java.util.concurrent.CompletableFuture<Long> postJournal(LocalDate date, String memo, Map<Integer, Double> legs) {
+        double sum = 0;
+        for (double amount : legs.values()) {
+            sum += amount;
+        }
+        if (legs.size() < 2 || Math.abs(sum) > JOURNAL_TOLERANCE) {
+            throw new IllegalArgumentException("Journal legs must balance: " + legs);
+        }
+        return write("postJournal", "Error posting journal entry", -1L, conn -> {
+            // Legs are plain amounts, so they only balance when every account uses one currency
+            String ids = String.join(",", java.util.Collections.nCopies(legs.size(), "?"));
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT COUNT(DISTINCT currency) FROM Accounts WHERE id IN (" + ids + ")")) {
+                int i = 1;
+                for (int accountId : legs.keySet()) {
+                    pstmt.setInt(i++, accountId);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next() && rs.getInt(1) > 1) {
+                        Log.warn("Rejected journal entry across currencies", "accounts", legs.keySet());
+                        throw new DatabaseWriter.Abort("Journal legs are in different currencies");
+                    }
+                }
+            }
+            long journalId;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO Journal (date, memo) VALUES (?, ?) RETURNING id")) {
+                pstmt.setString(1, date.toString());
+                pstmt.setString(2, memo);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    journalId = rs.getLong(1);
+                }
+            }
+            try (PreparedStatement leg = conn.prepareStatement(
+                     "INSERT INTO JournalLegs (journal_id, account_id, amount) VALUES (?, ?, ?)");
+                 PreparedStatement balance = conn.prepareStatement(
+                     "UPDATE Accounts SET balance = balance + ?, version = version + 1 WHERE id = ?")) {
+                for (Map.Entry<Integer, Double> e : legs.entrySet()) {
+                    balance.setDouble(1, e.getValue());
+                    balance.setInt(2, e.getKey());
+                    if (balance.executeUpdate() == 0) {
+                        Log.warn("Account not found for journal leg", "account", e.getKey());
+                        throw new DatabaseWriter.Abort("Account not found");
+                    }
+                    leg.setLong(1, journalId);
+                    leg.setInt(2, e.getKey());
+                    leg.setDouble(3, e.getValue());
+                    leg.addBatch();
                 }
-            } catch (SQLException e) {
-                System.err.println("Error resetting auto-commit: " + e.getMessage());
+                leg.executeBatch();
             }
+            return journalId;
+        });
+    }
+
+    /**
+     * Sets the currency an account's balance and transactions are kept in. Amounts are
+     * not converted; this only relabels them.
+     */
+    public boolean setAccountCurrency(int accountId, String currency) {
+        String code = FxRates.normalize(currency);
+        boolean ok = write("setAccountCurrency", "Error setting account currency", false, conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE Accounts SET currency = ?, version = version + 1 WHERE id = ?")) {
+                pstmt.setString(1, code);
+                pstmt.setInt(2, accountId);
+                return pstmt.executeUpdate() == 1;
+            }
+        }).join();
+        if (ok) {
+            // Converted totals of every month may change
+            aggregates.invalidateAll();
+            EventBus.getInstance().publish(new FinanceEvents.BalanceChangedEvent(getTotalBalance()));
+        }
+        return ok;
+    }
+
+    /**
+     * Stores exchange rates, replacing any existing rate for the same currency and day,
+     * and reloads the rate cache.
+     * 
+     * @return The number of rates stored, or -1 on failure
+     */
+    public int importFxRates(Map<String, ? extends Map<LocalDate, Double>> rates) {
+        int stored = write("importFxRates", "Error importing exchange rates", -1, conn -> {
+            int count = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT OR REPLACE INTO FxRates (currency, date, rate) VALUES (?, ?, ?)")) {
+                for (Map.Entry<String, ? extends Map<LocalDate, Double>> c : rates.entrySet()) {
+                    for (Map.Entry<LocalDate, Double> r : c.getValue().entrySet()) {
+                        pstmt.setString(1, c.getKey());
+                        pstmt.setString(2, r.getKey().toString());
+                        pstmt.setDouble(3, r.getValue());
+                        pstmt.addBatch();
+                        count++;
+                    }
+                }
+                pstmt.executeBatch();
+            }
+            return count;
+        }).join();
+        if (stored >= 0) {
+            FxRates.getInstance().invalidate();
+            aggregates.invalidateAll();
+            EventBus.getInstance().publish(new FinanceEvents.FxRatesChangedEvent(stored));
         }
+        return stored;
     }
 
     /**
-     * Resets all account balances to zero. Returns true on success.
+     * Resets all account balances to zero, recording each as a balance adjustment. Returns
+     * true on success.
      */
     public boolean resetAllAccountBalances() {
-        try (Connection conn = dbHelper.getConnection()) {
-            String update = "UPDATE Accounts SET balance = 0";
-            try (PreparedStatement pstmt = conn.prepareStatement(update)) {
+        return write("resetAllAccountBalances", "Error resetting account balances", false, conn -> {
+            try (PreparedStatement adjust = conn.prepareStatement(
+                    "INSERT INTO BalanceAdjustments (account_id, amount, date, reason) "
+                    + "SELECT id, -balance, ?, 'reset' FROM Accounts WHERE balance <> 0")) {
+                adjust.setString(1, LocalDate.now().toString());
+                adjust.executeUpdate();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE Accounts SET balance = 0, version = version + 1")) {
                 pstmt.executeUpdate();
             }
             return true;
-        } catch (SQLException e) {
-            System.err.println("Error resetting account balances: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+        }).join();
     }
 
     /**
-     * Deletes all transactions from the Transactions table.
+     * Deletes all transactions from the Transactions table. Balances stay as they are: the
+     * effect of the deleted rows is recorded as a balance adjustment per account, so a
+     * device applying the deletes through SyncEngine, which takes each row's effect back,
+     * ends at the same balances.
      */
     public boolean clearAllTransactions() {
-        try (Connection conn = dbHelper.getConnection()) {
-            conn.setAutoCommit(false);
+        boolean cleared = write("clearAllTransactions", "Error clearing transactions", false, conn -> {
+            try (PreparedStatement adjust = conn.prepareStatement("""
+                    INSERT INTO BalanceAdjustments (account_id, amount, date, reason)
+                    SELECT t.account_id, SUM(CASE WHEN c.type = 'INCOME' THEN t.amount ELSE -t.amount END), ?, 'clear'
+                    FROM Transactions t LEFT JOIN Categories c ON c.id = t.category_id
+                    GROUP BY t.account_id
+                    HAVING SUM(CASE WHEN c.type = 'INCOME' THEN t.amount ELSE -t.amount END) <> 0
+                    """)) {
+                adjust.setString(1, LocalDate.now().toString());
+                adjust.executeUpdate();
+            }
             try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM Transactions")) {
                 pstmt.executeUpdate();
             }
@@ -262,23 +853,13 @@ public class FinanceService {
             } catch (SQLException ignore) {
                 // Not critical if sqlite_sequence does not exist
             }
-            conn.commit();
             return true;
-        } catch (SQLException e) {
-            System.err.println("Error clearing transactions: " + e.getMessage());
-            e.printStackTrace();
-            try (Connection conn = dbHelper.getConnection()) {
-                if (conn != null) conn.rollback();
-            } catch (SQLException ex) {
-                System.err.println("Error rolling back after clearing transactions: " + ex.getMessage());
-            }
-            return false;
-        } finally {
-            try (Connection conn = dbHelper.getConnection()) {
-                if (conn != null) conn.setAutoCommit(true);
-            } catch (SQLException ignore) {
-            }
+        }).join();
+        if (cleared) {
+            BudgetEngine.getInstance().invalidate();
+            aggregates.invalidateAll();
         }
+        return cleared;
     }
 
     /**
@@ -293,17 +874,25 @@ public class FinanceService {
      * Exports transactions and summary for the given month to an XLSX spreadsheet. Returns the path to the file on success.
      */
     public String exportMonthlyReportXlsx(YearMonth month) {
+        return exportMonthlyReportXlsx(month, null);
+    }
+
+    /**
+     * Like {@link #exportMonthlyReportXlsx(YearMonth)}, but with a passphrase the workbook is
+     * streamed through ChunkedCipher into a .xlsx.enc file and never written in plaintext.
+     */
+    public String exportMonthlyReportXlsx(YearMonth month, char[] passphrase) {
         java.nio.file.Path exportDir = java.nio.file.Paths.get("exports");
         try {
             if (!java.nio.file.Files.exists(exportDir)) {
                 java.nio.file.Files.createDirectories(exportDir);
             }
         } catch (java.io.IOException e) {
-            System.err.println("Error creating exports directory: " + e.getMessage());
+            Log.error("Error creating exports directory", e);
             return null;
         }
 
-        String filename = String.format("finance-report-%s.xlsx", month.toString());
+        String filename = String.format("finance-report-%s.xlsx%s", month.toString(), passphrase != null ? ".enc" : "");
         java.nio.file.Path out = exportDir.resolve(filename);
 
         LocalDate start = month.atDay(1);
@@ -328,7 +917,7 @@ public class FinanceService {
             ORDER BY total DESC
             """;
 
-        try (Connection conn = dbHelper.getConnection();
+        try (Metrics.Op op = Metrics.op("exportMonthlyReportXlsx"); Connection conn = dbHelper.getConnection();
              PreparedStatement pstmtTx = conn.prepareStatement(txQuery);
              PreparedStatement pstmtSummary = conn.prepareStatement(summaryQuery)) {
 
@@ -362,6 +951,7 @@ public class FinanceService {
 
                 try (java.sql.ResultSet rs = pstmtSummary.executeQuery()) {
                     while (rs.next()) {
+                        op.row();
                         String cat = rs.getString("category_name");
                         double tot = rs.getDouble("total");
                         org.apache.poi.ss.usermodel.Row rr = sum.createRow(row++);
@@ -387,6 +977,7 @@ public class FinanceService {
 
                 try (java.sql.ResultSet rs = pstmtTx.executeQuery()) {
                     while (rs.next()) {
+                        op.row();
                         String date = rs.getString("date");
                         String acct = rs.getString("account_name");
                         String cat = rs.getString("category_name");
@@ -403,17 +994,25 @@ public class FinanceService {
 
                 for (int i = 0; i < ths.length; i++) tx.autoSizeColumn(i);
 
-                try (java.io.FileOutputStream fos = new java.io.FileOutputStream(out.toFile())) {
-                    wb.write(fos);
+                if (passphrase != null) {
+                    ChunkedCipher.encryptFile(out, passphrase, wb::write);
+                } else {
+                    try (java.io.OutputStream fos = new java.io.FileOutputStream(out.toFile())) {
+                        wb.write(fos);
+                    }
                 }
             }
 
-            System.out.println("Exported XLSX report: " + out.toString());
+            Log.info("Exported XLSX report", "path", out);
             return out.toString();
 
         } catch (SQLException | java.io.IOException e) {
-            System.err.println("Error exporting monthly report XLSX: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error exporting monthly report XLSX", e);
+            try {
+                java.nio.file.Files.deleteIfExists(out);
+            } catch (java.io.IOException ignored) {
+                // Nothing more to do; the error is already logged
+            }
             return null;
         }
     }
@@ -427,6 +1026,204 @@ public class FinanceService {
         return s;
     }
 
+    /**
+     * Counts the transactions matching a query's filters.
+     */
+    public int countTransactions(TransactionQuery q) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) AS cnt FROM Transactions t WHERE " + transactionFilter(q, params);
+        Metrics.Op op = Metrics.op("countTransactions");
+        try (Connection conn = dbHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bindAll(pstmt, params, 1);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt("cnt") : 0;
+        } catch (SQLException e) {
+            Log.error("Error counting transactions", e);
+            return 0;
+        } finally {
+            op.close();
+        }
+    }
+
+    /**
+     * Gets one page of transactions in the query's sort order, continuing after the given
+     * row (keyset pagination). The sort and filter run in SQLite on indexed columns, so a
+     * page deep in a large ledger costs the same as the first page.
+     * 
+     * @param q Filters and sort order
+     * @param after Last row of the previous page, or null for the first page
+     * @param limit Maximum rows to return
+     */
+    public List<TransactionRow> getTransactionPage(TransactionQuery q, TransactionRow after, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder where = new StringBuilder(transactionFilter(q, params));
+        if (after != null) {
+            String col = q.getSortColumn().sql();
+            where.append(" AND (").append(col).append(", t.id) ").append(q.isAscending() ? ">" : "<").append(" (?, ?)");
+            params.add(q.getSortColumn() == TransactionQuery.SortColumn.AMOUNT ? (Object) after.getAmount() : after.getDate().toString());
+            params.add(after.getId());
+        }
+        return queryTransactionRows(q, where.toString(), params, limit, 0);
+    }
+
+    /**
+     * Gets the page starting at a row offset. Used only when the list jumps to a position
+     * whose previous page is unknown; sequential scrolling uses getTransactionPage.
+     */
+    public List<TransactionRow> getTransactionPageAt(TransactionQuery q, int offset, int limit) {
+        List<Object> params = new ArrayList<>();
+        return queryTransactionRows(q, transactionFilter(q, params), params, limit, offset);
+    }
+
+    private List<TransactionRow> queryTransactionRows(TransactionQuery q, String where, List<Object> params, int limit, int offset) {
+        List<TransactionRow> rows = new ArrayList<>();
+        String dir = q.isAscending() ? "ASC" : "DESC";
+        String sql = """
+            SELECT t.id, t.date, t.amount, t.note, t.image_path,
+                   a.name AS account_name, c.name AS category_name, c.type AS category_type
+            FROM Transactions t
+            LEFT JOIN Accounts a ON t.account_id = a.id
+            LEFT JOIN Categories c ON t.category_id = c.id
+            WHERE""" + " " + where + "\n" +
+            "ORDER BY " + q.getSortColumn().sql() + " " + dir + ", t.id " + dir + "\n" +
+            "LIMIT ? OFFSET ?";
+        
+        try (Metrics.Op op = Metrics.op("queryTransactionRows"); Connection conn = dbHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = bindAll(pstmt, params, 1);
+            pstmt.setInt(i++, limit);
+            pstmt.setInt(i, offset);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                op.row();
+                String type = rs.getString("category_type");
+                rows.add(new TransactionRow(
+                    rs.getInt("id"),
+                    LocalDate.parse(rs.getString("date")),
+                    rs.getDouble("amount"),
+                    rs.getString("note"),
+                    rs.getString("image_path"),
+                    rs.getString("account_name"),
+                    rs.getString("category_name"),
+                    type != null ? CategoryType.valueOf(type) : null));
+            }
+        } catch (SQLException e) {
+            Log.error("Error getting transaction page", e);
+        }
+        return rows;
+    }
+
+    private String transactionFilter(TransactionQuery q, List<Object> params) {
+        StringBuilder where = new StringBuilder("1 = 1");
+        if (q.getMonth() != null) {
+            where.append(" AND t.date >= ? AND t.date <= ?");
+            params.add(q.getMonth().atDay(1).toString());
+            params.add(q.getMonth().atEndOfMonth().toString());
+        }
+        if (q.getAccountId() > 0) {
+            where.append(" AND t.account_id = ?");
+            params.add(q.getAccountId());
+        }
+        if (q.getCategoryId() > 0) {
+            where.append(" AND t.category_id = ?");
+            params.add(q.getCategoryId());
+        }
+        return where.toString();
+    }
+
+    private int bindAll(PreparedStatement pstmt, List<Object> params, int start) throws SQLException {
+        int i = start;
+        for (Object p : params) {
+            pstmt.setObject(i++, p);
+        }
+        return i;
+    }
+
+    /**
+     * Searches transaction notes through the FTS5 index, best matches first.
+     * Pages are fetched by keyset: pass the last hit of the previous page as {@code after}
+     * to continue, so deep pages cost the same as the first one.
+     * 
+     * @param text Free text typed by the user; every word must match (as a prefix)
+     * @param after Last hit of the previous page, or null for the first page
+     * @param limit Maximum number of hits to return
+     * @return Matching transactions ordered by rank, then id
+     */
+    public List<NoteSearchHit> searchNotes(String text, NoteSearchHit after, int limit) {
+        List<NoteSearchHit> hits = new ArrayList<>();
+        String match = toMatchQuery(text);
+        if (match == null) {
+            return hits;
+        }
+        
+        String query = """
+            SELECT f.rowid AS id, f.rank AS rank,
+                   snippet(TransactionNotesFts, 0, '[', ']', '...', 10) AS snippet,
+                   t.date, t.amount, t.note, a.name AS account_name, c.name AS category_name
+            FROM TransactionNotesFts f
+            JOIN Transactions t ON t.id = f.rowid
+            LEFT JOIN Accounts a ON t.account_id = a.id
+            LEFT JOIN Categories c ON t.category_id = c.id
+            WHERE TransactionNotesFts MATCH ?
+            """ + (after != null ? "AND (f.rank > ? OR (f.rank = ? AND f.rowid > ?))\n" : "") + """
+            ORDER BY f.rank, f.rowid
+            LIMIT ?
+            """;
+        
+        try (Metrics.Op op = Metrics.op("searchNotes"); Connection conn = dbHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            int i = 1;
+            pstmt.setString(i++, match);
+            if (after != null) {
+                pstmt.setDouble(i++, after.getRank());
+                pstmt.setDouble(i++, after.getRank());
+                pstmt.setInt(i++, after.getTransactionId());
+            }
+            pstmt.setInt(i, limit);
+            
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                op.row();
+                hits.add(new NoteSearchHit(
+                    rs.getInt("id"),
+                    rs.getDouble("rank"),
+                    LocalDate.parse(rs.getString("date")),
+                    rs.getDouble("amount"),
+                    rs.getString("account_name"),
+                    rs.getString("category_name"),
+                    rs.getString("note"),
+                    rs.getString("snippet")));
+            }
+        } catch (SQLException e) {
+            Log.error("Error searching notes", e);
+        }
+        
+        return hits;
+    }
+
+    /**
+     * Turns free text into an FTS5 query: each word becomes a quoted prefix term, so
+     * punctuation or FTS operators typed by the user can never cause a syntax error.
+     * Returns null when the text contains no searchable words.
+     */
+    static String toMatchQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append('"').append(word).append("\"*");
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
     /**
      * Gets the total balance across all accounts.
      * 
@@ -434,18 +1231,21 @@ public class FinanceService {
      */
     public double getTotalBalance() {
         double totalBalance = 0.0;
+        FxRates fx = FxRates.getInstance();
+        String reporting = fx.getReportingCurrency();
         
-        try (Connection conn = dbHelper.getConnection()) {
-            String query = "SELECT COALESCE(SUM(balance), 0) as total FROM Accounts";
+        try (Metrics.Op op = Metrics.op("getTotalBalance"); Connection conn = dbHelper.getConnection()) {
+            String query = "SELECT currency, COALESCE(SUM(balance), 0) as total FROM Accounts GROUP BY currency";
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery(query)) {
-                if (rs.next()) {
-                    totalBalance = rs.getDouble("total");
+                LocalDate today = LocalDate.now();
+                while (rs.next()) {
+                    op.row();
+                    totalBalance += fx.convert(rs.getDouble("total"), rs.getString("currency"), reporting, today);
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting total balance: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error getting total balance", e);
         }
         
         return totalBalance;
@@ -462,44 +1262,183 @@ public class FinanceService {
     }
 
     /**
-     * Gets expenses by category for a specific month.
+     * Gets expenses by category for a specific month, in the reporting currency. Results
+     * are kept in the AggregateCache until a write touches the month.
      */
     public Map<String, Double> getExpensesByCategory(YearMonth month) {
-        Map<String, Double> expensesByCategory = new HashMap<>();
-        
-        try (Connection conn = dbHelper.getConnection()) {
-            LocalDate startOfMonth = month.atDay(1);
-            LocalDate endOfMonth = month.atEndOfMonth();
-            
-            String query = """
-                SELECT c.name, COALESCE(SUM(t.amount), 0) as total
-                FROM Categories c
-                LEFT JOIN Transactions t ON c.id = t.category_id
-                WHERE c.type = 'EXPENSE'
-                AND (t.date IS NULL OR (t.date >= ? AND t.date <= ?))
-                GROUP BY c.id, c.name
-                HAVING total > 0
-                """;
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, startOfMonth.toString());
-                pstmt.setString(2, endOfMonth.toString());
-                
-                ResultSet rs = pstmt.executeQuery();
-                while (rs.next()) {
-                    String categoryName = rs.getString("name");
-                    double total = rs.getDouble("total");
-                    expensesByCategory.put(categoryName, total);
-                }
-            }
+        String reporting = FxRates.getInstance().getReportingCurrency();
+        String query = EXPENSES_BY_CATEGORY + ":" + reporting;
+        Map<String, Double> cached = aggregates.get(query, month);
+        if (cached != null) {
+            return new HashMap<>(cached);
+        }
+        long generation = aggregates.generation();
+        Map<YearMonth, Map<String, Double>> byMonth = new HashMap<>();
+        byMonth.put(month, new HashMap<>());
+        try (Metrics.Op op = Metrics.op("getExpensesByCategory"); Connection conn = dbHelper.getConnection()) {
+            loadExpensesByCategory(conn, op, month, month, reporting, byMonth);
         } catch (SQLException e) {
-            System.err.println("Error getting expenses by category: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error getting expenses by category", e);
+            return new HashMap<>();
         }
-        
+        Map<String, Double> expensesByCategory = byMonth.get(month);
+        aggregates.put(query, month, Map.copyOf(expensesByCategory), generation);
         return expensesByCategory;
     }
 
+    /**
+     * Gets expenses by category for each month from {@code from} to {@code to} inclusive,
+     * in the reporting currency. Months without expenses are present with an empty map.
+     * Months in the AggregateCache are not read again; the span of the others is read
+     * in one grouped query.
+     */
+    public Map<YearMonth, Map<String, Double>> getMonthlyExpensesByCategory(YearMonth from, YearMonth to) {
+        Map<YearMonth, Map<String, Double>> byMonth = new java.util.TreeMap<>();
+        String reporting = FxRates.getInstance().getReportingCurrency();
+        String query = EXPENSES_BY_CATEGORY + ":" + reporting;
+        YearMonth firstMissing = null;
+        YearMonth lastMissing = null;
+        for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+            Map<String, Double> cached = aggregates.get(query, m);
+            if (cached != null) {
+                byMonth.put(m, new HashMap<>(cached));
+            } else {
+                byMonth.put(m, new HashMap<>());
+                firstMissing = firstMissing == null ? m : firstMissing;
+                lastMissing = m;
+            }
+        }
+        if (firstMissing == null) {
+            return byMonth;
+        }
+
+        long generation = aggregates.generation();
+        // Cached months inside the span are read again; start them empty so nothing is counted twice
+        for (YearMonth m = firstMissing; !m.isAfter(lastMissing); m = m.plusMonths(1)) {
+            byMonth.put(m, new HashMap<>());
+        }
+        try (Metrics.Op op = Metrics.op("getMonthlyExpensesByCategory"); Connection conn = dbHelper.getConnection()) {
+            loadExpensesByCategory(conn, op, firstMissing, lastMissing, reporting, byMonth);
+        } catch (SQLException e) {
+            Log.error("Error getting monthly expenses by category", e);
+            return byMonth;
+        }
+        for (YearMonth m = firstMissing; !m.isAfter(lastMissing); m = m.plusMonths(1)) {
+            aggregates.put(query, m, Map.copyOf(byMonth.get(m)), generation);
+        }
+        return byMonth;
+    }
+
+    /**
+     * Adds the positive expense totals per category of every month from {@code from} to
+     * {@code to} into {@code byMonth}, which must hold a map for each of those months.
+     */
+    private void loadExpensesByCategory(Connection conn, Metrics.Op op, YearMonth from, YearMonth to,
+                                        String reporting, Map<YearMonth, Map<String, Double>> byMonth) throws SQLException {
+        String query = """
+            SELECT substr(t.date, 1, 7) AS month, c.name, SUM(t.amount) AS total
+            FROM Transactions t
+            JOIN Categories c ON c.id = t.category_id
+            WHERE c.type = 'EXPENSE' AND t.date >= ? AND t.date <= ?
+            GROUP BY month, c.id, c.name
+            HAVING total > 0
+            """;
+
+        // Key is the 7-character month followed by the category name
+        String converted = """
+            SELECT substr(t.date, 1, 7) || c.name AS key, a.currency, t.date, SUM(t.amount) AS total
+            FROM Transactions t
+            JOIN Categories c ON c.id = t.category_id
+            JOIN Accounts a ON a.id = t.account_id
+            WHERE c.type = 'EXPENSE' AND t.date >= ? AND t.date <= ?
+            GROUP BY c.id, a.currency, t.date
+            """;
+
+        if (hasForeignCurrencyAccounts(conn, reporting)) {
+            try (PreparedStatement pstmt = conn.prepareStatement(converted)) {
+                pstmt.setString(1, from.atDay(1).toString());
+                pstmt.setString(2, to.atEndOfMonth().toString());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    sumInReportingCurrency(rs, op, reporting).forEach((key, total) -> {
+                        Map<String, Double> month = byMonth.get(YearMonth.parse(key.substring(0, 7)));
+                        if (month != null && total > 0) {
+                            month.put(key.substring(7), total);
+                        }
+                    });
+                }
+            }
+            return;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, from.atDay(1).toString());
+            pstmt.setString(2, to.atEndOfMonth().toString());
+
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                op.row();
+                Map<String, Double> month = byMonth.get(YearMonth.parse(rs.getString("month")));
+                if (month != null) {
+                    // Categories may share a name; their totals are shown together
+                    month.merge(rs.getString("name"), rs.getDouble("total"), Double::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * True when some account is not in {@code currency}, so sums need converting.
+     */
+    private boolean hasForeignCurrencyAccounts(Connection conn, String currency) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT EXISTS (SELECT 1 FROM Accounts WHERE currency <> ?)")) {
+            pstmt.setString(1, currency);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Sums rows of (key, currency, date, total) per key after converting each row into
+     * {@code reporting} at its day's rate. Rows are collected into primitive arrays and
+     * converted in one pass by FxRates.
+     */
+    private Map<String, Double> sumInReportingCurrency(ResultSet rs, Metrics.Op op, String reporting) throws SQLException {
+        Map<String, Integer> keys = new java.util.LinkedHashMap<>();
+        Map<String, Integer> currencies = new HashMap<>();
+        int[] keyIndex = new int[64];
+        int[] currencyIndex = new int[64];
+        int[] days = new int[64];
+        double[] amounts = new double[64];
+        int n = 0;
+        while (rs.next()) {
+            op.row();
+            if (n == amounts.length) {
+                keyIndex = java.util.Arrays.copyOf(keyIndex, n * 2);
+                currencyIndex = java.util.Arrays.copyOf(currencyIndex, n * 2);
+                days = java.util.Arrays.copyOf(days, n * 2);
+                amounts = java.util.Arrays.copyOf(amounts, n * 2);
+            }
+            keyIndex[n] = keys.computeIfAbsent(rs.getString("key"), k -> keys.size());
+            currencyIndex[n] = currencies.computeIfAbsent(rs.getString("currency"), c -> currencies.size());
+            days[n] = (int) LocalDate.parse(rs.getString("date")).toEpochDay();
+            amounts[n] = rs.getDouble("total");
+            n++;
+        }
+
+        String[] currencyCodes = new String[currencies.size()];
+        currencies.forEach((code, i) -> currencyCodes[i] = code);
+        FxRates.getInstance().convert(currencyCodes, currencyIndex, days, amounts, n, reporting);
+
+        double[] totals = new double[keys.size()];
+        for (int i = 0; i < n; i++) {
+            totals[keyIndex[i]] += amounts[i];
+        }
+        Map<String, Double> byKey = new HashMap<>();
+        keys.forEach((key, i) -> byKey.put(key, totals[i]));
+        return byKey;
+    }
+
     /**
      * Gets all accounts from the database.
      * 
@@ -508,22 +1447,24 @@ public class FinanceService {
     public List<Account> getAllAccounts() {
         List<Account> accounts = new ArrayList<>();
         
-        try (Connection conn = dbHelper.getConnection()) {
-            String query = "SELECT id, name, type, balance FROM Accounts ORDER BY name";
+        try (Metrics.Op op = Metrics.op("getAllAccounts"); Connection conn = dbHelper.getConnection()) {
+            String query = "SELECT id, name, type, balance, version, currency FROM Accounts ORDER BY name";
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery(query)) {
                 while (rs.next()) {
+                    op.row();
                     Account account = new Account();
                     account.setId(rs.getInt("id"));
                     account.setName(rs.getString("name"));
                     account.setType(AccountType.valueOf(rs.getString("type")));
                     account.setBalance(rs.getDouble("balance"));
+                    account.setVersion(rs.getLong("version"));
+                    account.setCurrency(rs.getString("currency"));
                     accounts.add(account);
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting accounts: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error getting accounts", e);
         }
         
         return accounts;
@@ -537,24 +1478,53 @@ public class FinanceService {
     public List<Category> getAllCategories() {
         List<Category> categories = new ArrayList<>();
         
-        try (Connection conn = dbHelper.getConnection()) {
-            String query = "SELECT id, name, budget_limit, type FROM Categories ORDER BY name";
+        try (Metrics.Op op = Metrics.op("getAllCategories"); Connection conn = dbHelper.getConnection()) {
+            String query = "SELECT id, name, budget_limit, type, budget_period FROM Categories ORDER BY name";
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery(query)) {
                 while (rs.next()) {
+                    op.row();
                     Category category = new Category();
                     category.setId(rs.getInt("id"));
                     category.setName(rs.getString("name"));
                     category.setBudgetLimit(rs.getDouble("budget_limit"));
                     category.setType(CategoryType.valueOf(rs.getString("type")));
+                    category.setBudgetPeriod(BudgetPeriod.valueOf(rs.getString("budget_period")));
                     categories.add(category);
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting categories: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error getting categories", e);
         }
         
         return categories;
     }
+
+    /**
+     * Runs a mutation on the shared DatabaseWriter. The returned future completes after
+     * the group commit, with {@code failed} if the command aborted or did not commit.
+     */
+    private <T> java.util.concurrent.CompletableFuture<T> write(String name, String errorMessage, T failed,
+                                                              DatabaseWriter.Command<T> command) {
+        return DatabaseWriter.getInstance().submit(name, command).handle((result, error) -> {
+            if (error == null) {
+                return result;
+            }
+            if (!(error instanceof DatabaseWriter.Abort)) {
+                Log.error(errorMessage, error);
+            }
+            return failed;
+        });
+    }
+
+    private static Map<Integer, String> loadCategoryTypes(Connection conn) throws SQLException {
+        Map<Integer, String> categoryTypes = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, type FROM Categories")) {
+            while (rs.next()) {
+                categoryTypes.put(rs.getInt("id"), rs.getString("type"));
+            }
+        }
+        return categoryTypes;
+    }
 }
@@ -0,0 +1,261 @@
+package com.finance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the FxRates table for converting amounts between currencies.
+ *
+ * A rate is the value of one unit of a currency in the pivot currency the rate files are
+ * quoted in; the pivot itself needs no rows, and any currency without rows counts as the
+ * pivot. Converting from A to B on a day uses rate(A) / rate(B), each being the latest
+ * rate on or before that day (or the earliest known rate for older days). Every series
+ * is a pair of sorted primitive arrays, so a lookup is a binary search with no boxing.
+ * The table is read on first use and after {@link #invalidate()}. Only one currency can be
+ * the pivot, so once conversions have used two different currencies without rows, those
+ * conversions are wrong; that is logged and counted in fx.rates.missing.
+ */
+public class FxRates {
+    static final String DEFAULT_CURRENCY = "USD";
+
+    private static FxRates instance;
+
+    private volatile Map<String, Series> series;
+    private volatile String reportingCurrency;
+    // Currencies without rows that conversions to another currency have used
+    private final Set<String> withoutRates = ConcurrentHashMap.newKeySet();
+
+    // Package-private so tests can work with their own rates
+    FxRates() {
+    }
+
+    public static synchronized FxRates getInstance() {
+        if (instance == null) {
+            FxRates rates = new FxRates();
+            // Rates imported by another process
+            EventBus.getInstance().subscribe(FinanceEvents.ExternalChangeEvent.class, e -> rates.invalidate());
+            instance = rates;
+        }
+        return instance;
+    }
+
+    /**
+     * The currency totals and reports are shown in; stored in the settings file.
+     */
+    public String getReportingCurrency() {
+        String currency = reportingCurrency;
+        if (currency == null) {
+            currency = SettingsService.getReportingCurrency();
+            reportingCurrency = currency;
+        }
+        return currency;
+    }
+
+    public void setReportingCurrency(String currency) {
+        String code = normalize(currency);
+        SettingsService.setReportingCurrency(code);
+        reportingCurrency = code;
+    }
+
+    /**
+     * Returns the upper-case ISO 4217 code, or throws IllegalArgumentException.
+     */
+    public static String normalize(String currency) {
+        return Currency.getInstance(currency.trim().toUpperCase(Locale.ROOT)).getCurrencyCode();
+    }
+
+    /**
+     * Value of one unit of {@code currency} in the pivot currency on {@code date}.
+     */
+    public double rate(String currency, LocalDate date) {
+        return rate(rates(), currency, date.toEpochDay());
+    }
+
+    public double convert(double amount, String from, String to, LocalDate date) {
+        if (from.equals(to)) {
+            return amount;
+        }
+        Map<String, Series> rates = rates();
+        long day = date.toEpochDay();
+        return amount * rate(series(rates, from), day) / rate(series(rates, to), day);
+    }
+
+    /**
+     * Converts {@code amounts[0..n)} in place into {@code to}. Row i is in currency
+     * {@code currencies[currencyIndex[i]]} and dated {@code epochDays[i]}. The rate
+     * lookups fill a factor array first, so the multiply is one branch-free loop the JIT
+     * can vectorize.
+     */
+    public void convert(String[] currencies, int[] currencyIndex, int[] epochDays, double[] amounts, int n, String to) {
+        Map<String, Series> rates = rates();
+        Series target = null;
+        Series[] from = new Series[currencies.length];
+        for (int c = 0; c < currencies.length; c++) {
+            if (!currencies[c].equals(to)) {
+                from[c] = series(rates, currencies[c]);
+                target = series(rates, to);
+            }
+        }
+        double[] factors = new double[n];
+        for (int i = 0; i < n; i++) {
+            int c = currencyIndex[i];
+            if (currencies[c].equals(to)) {
+                factors[i] = 1.0;
+            } else {
+                factors[i] = rate(from[c], epochDays[i]) / rate(target, epochDays[i]);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            amounts[i] *= factors[i];
+        }
+    }
+
+    /**
+     * Drops the cached table; the next conversion reads it again.
+     */
+    public void invalidate() {
+        series = null;
+        withoutRates.clear();
+    }
+
+    /**
+     * Replaces the cached table with the given rates per currency.
+     */
+    void load(Map<String, ? extends SortedMap<LocalDate, Double>> rates) {
+        Map<String, Series> loaded = new HashMap<>();
+        for (Map.Entry<String, ? extends SortedMap<LocalDate, Double>> e : rates.entrySet()) {
+            SortedMap<LocalDate, Double> byDay = e.getValue();
+            int[] days = new int[byDay.size()];
+            double[] values = new double[byDay.size()];
+            int i = 0;
+            for (Map.Entry<LocalDate, Double> r : byDay.entrySet()) {
+                days[i] = (int) r.getKey().toEpochDay();
+                values[i] = r.getValue();
+                i++;
+            }
+            loaded.put(e.getKey(), new Series(days, values));
+        }
+        series = loaded;
+        withoutRates.clear();
+    }
+
+    /**
+     * Reads a rate file with the header date,currency,rate.
+     */
+    public static Map<String, SortedMap<LocalDate, Double>> readCsv(Path file) throws IOException {
+        Map<String, SortedMap<LocalDate, Double>> rates = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine(); // header
+            int lineNo = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> f = FinanceCli.parseCsvLine(line);
+                if (f.size() < 3) {
+                    throw new IllegalArgumentException("Line " + lineNo + ": expected date,currency,rate");
+                }
+                double rate = Double.parseDouble(f.get(2).trim());
+                if (!(rate > 0)) {
+                    throw new IllegalArgumentException("Line " + lineNo + ": rate must be positive");
+                }
+                rates.computeIfAbsent(normalize(f.get(1)), c -> new TreeMap<>())
+                        .put(LocalDate.parse(f.get(0).trim()), rate);
+            }
+        }
+        return rates;
+    }
+
+    private Map<String, Series> rates() {
+        Map<String, Series> s = series;
+        if (s == null) {
+            synchronized (this) {
+                s = series;
+                if (s == null) {
+                    loadFromDatabase();
+                    s = series;
+                }
+            }
+        }
+        return s;
+    }
+
+    private void loadFromDatabase() {
+        Map<String, SortedMap<LocalDate, Double>> rates = new HashMap<>();
+        try (Metrics.Op op = Metrics.op("loadFxRates"); Connection conn = DatabaseHelper.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT currency, date, rate FROM FxRates")) {
+            while (rs.next()) {
+                op.row();
+                rates.computeIfAbsent(rs.getString(1), c -> new TreeMap<>())
+                        .put(LocalDate.parse(rs.getString(2)), rs.getDouble(3));
+            }
+        } catch (SQLException e) {
+            Log.error("Error loading exchange rates", e);
+        }
+        load(rates);
+    }
+
+    private static double rate(Map<String, Series> rates, String currency, long day) {
+        return rate(rates.get(currency), day);
+    }
+
+    /**
+     * The series of {@code currency} for a conversion to or from another currency; a
+     * currency without rows is taken as the pivot, which only one currency can be.
+     */
+    private Series series(Map<String, Series> rates, String currency) {
+        Series s = rates.get(currency);
+        if (s == null && withoutRates.add(currency) && withoutRates.size() > 1) {
+            Metrics.getInstance().increment("fx.rates.missing", 1);
+            Log.warn("Exchange rates missing; amounts in these currencies are not converted correctly",
+                    "currencies", String.join(",", new TreeSet<>(withoutRates)));
+        }
+        return s;
+    }
+
+    private static double rate(Series s, long day) {
+        if (s == null) {
+            return 1.0;
+        }
+        int i = Arrays.binarySearch(s.days, (int) day);
+        if (i < 0) {
+            // Latest day before, or the first known rate when the day is older than all of them
+            i = Math.max(-i - 2, 0);
+        }
+        return s.rates[i];
+    }
+
+    /**
+     * Rates of one currency by epoch day, sorted by day.
+     */
+    private static final class Series {
+        final int[] days;
+        final double[] rates;
+
+        Series(int[] days, double[] rates) {
+            this.days = days;
+            this.rates = rates;
+        }
+    }
+}
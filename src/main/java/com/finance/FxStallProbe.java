@@ -0,0 +1,44 @@
+package com.finance;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures how long the FX thread takes to pick up work. Every PROBE_MILLIS a no-op is
+ * posted with Platform.runLater; the time until it runs is recorded in Metrics.FX_STALL.
+ * At most one probe is in flight, so a frozen FX thread is not flooded with probes.
+ */
+public final class FxStallProbe {
+    static final long PROBE_MILLIS = 200;
+
+    private static ScheduledExecutorService timer;
+
+    private FxStallProbe() {
+    }
+
+    public static synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "finance-fx-stall-probe");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicBoolean inFlight = new AtomicBoolean();
+        timer.scheduleAtFixedRate(() -> {
+            if (!inFlight.compareAndSet(false, true)) {
+                return;
+            }
+            long posted = System.nanoTime();
+            Platform.runLater(() -> {
+                Metrics.getInstance().recordFxStall(System.nanoTime() - posted);
+                inFlight.set(false);
+            });
+        }, PROBE_MILLIS, PROBE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,50 @@
+package com.finance;
+
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import org.kordamp.ikonli.javafx.FontIcon;
+
+import java.util.function.Function;
+
+/**
+ * List cell showing an icon next to a label, used by the account and category ComboBoxes.
+ *
+ * The icon node is created once per cell and only updated afterwards;
+ * styling comes from the combo-cell CSS classes rather than inline styles. Re-rendering
+ * a cell with the item it already shows does nothing.
+ */
+public final class IconListCell<T> extends ListCell<T> {
+    private final Function<T, String> iconLiteral;
+    private final Function<T, String> text;
+    private final FontIcon icon = new FontIcon(CategoryIconResolver.DEFAULT_ICON);
+    private T shown;
+
+    public IconListCell(Function<T, String> iconLiteral, Function<T, String> text) {
+        this.iconLiteral = iconLiteral;
+        this.text = text;
+        getStyleClass().add("combo-cell");
+        icon.getStyleClass().add("combo-cell-icon");
+        setContentDisplay(ContentDisplay.LEFT);
+    }
+
+    @Override
+    protected void updateItem(T item, boolean empty) {
+        super.updateItem(item, empty);
+        if (empty || item == null) {
+            shown = null;
+            setText(null);
+            setGraphic(null);
+            return;
+        }
+        if (item == shown && getGraphic() == icon) {
+            return;
+        }
+        shown = item;
+        String literal = iconLiteral.apply(item);
+        if (!literal.equals(icon.getIconLiteral())) {
+            icon.setIconLiteral(literal);
+        }
+        setText(text.apply(item));
+        setGraphic(icon);
+    }
+}
@@ -0,0 +1,128 @@
+package com.finance;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarizes the finance events in a .jfr recording: totals per SQL id and the slowest
+ * individual operations with their calling thread.
+ *
+ * Usage: java -cp target/classes com.finance.JfrAnalyzer recording.jfr [top]
+ */
+public class JfrAnalyzer {
+    static final int DEFAULT_TOP = 10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JfrAnalyzer <recording.jfr> [top]");
+            System.exit(2);
+        }
+        int top = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TOP;
+        Summary summary = analyze(Paths.get(args[0]));
+        summary.print(System.out, top);
+    }
+
+    /**
+     * Reads every Query and Connection event in the recording.
+     */
+    public static Summary analyze(Path recording) throws IOException {
+        Summary summary = new Summary();
+        for (RecordedEvent e : RecordingFile.readAllEvents(recording)) {
+            String type = e.getEventType().getName();
+            if (JfrEvents.QueryEvent.NAME.equals(type)) {
+                summary.add(new Operation(e.getString("sqlId"), e.getLong("rows"), e.getDuration(), e.getString("threadName")));
+            } else if (JfrEvents.ConnectionEvent.NAME.equals(type)) {
+                summary.add(new Operation("<connection>", 0, e.getDuration(), e.getString("threadName")));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * One recorded operation.
+     */
+    public static class Operation {
+        private final String sqlId;
+        private final long rows;
+        private final Duration duration;
+        private final String thread;
+
+        public Operation(String sqlId, long rows, Duration duration, String thread) {
+            this.sqlId = sqlId;
+            this.rows = rows;
+            this.duration = duration;
+            this.thread = thread;
+        }
+
+        public String getSqlId() {
+            return sqlId;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+    }
+
+    /**
+     * Per-SQL-id totals plus every operation for the slowest-N listing.
+     */
+    public static class Summary {
+        private final List<Operation> operations = new ArrayList<>();
+        private final Map<String, long[]> totals = new HashMap<>(); // count, total nanos, max nanos, rows
+
+        void add(Operation op) {
+            operations.add(op);
+            long nanos = op.getDuration().toNanos();
+            long[] t = totals.computeIfAbsent(op.getSqlId(), k -> new long[4]);
+            t[0]++;
+            t[1] += nanos;
+            t[2] = Math.max(t[2], nanos);
+            t[3] += op.getRows();
+        }
+
+        public List<Operation> slowest(int n) {
+            return operations.stream()
+                    .sorted(Comparator.comparing(Operation::getDuration).reversed())
+                    .limit(n)
+                    .toList();
+        }
+
+        public long count(String sqlId) {
+            long[] t = totals.get(sqlId);
+            return t == null ? 0 : t[0];
+        }
+
+        public void print(PrintStream out, int top) {
+            out.printf("%-32s %8s %12s %10s %10s%n", "sql id", "count", "total ms", "max ms", "rows");
+            totals.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                    .forEach(e -> out.printf("%-32s %8d %12.2f %10.2f %10d%n", e.getKey(), e.getValue()[0],
+                            e.getValue()[1] / 1e6, e.getValue()[2] / 1e6, e.getValue()[3]));
+            out.println();
+            out.println("Slowest operations:");
+            for (Operation op : slowest(top)) {
+                out.printf("%10.2f ms  %-32s %6d rows  [%s]%n", op.getDuration().toNanos() / 1e6,
+                        op.getSqlId(), op.getRows(), op.getThread());
+            }
+        }
+    }
+}
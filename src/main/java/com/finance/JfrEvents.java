@@ -0,0 +1,115 @@
+package com.finance;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+
+import java.util.Map;
+
+/**
+ * Custom Java Flight Recorder events. They cost next to nothing unless a recording is running.
+ * QueryEvent is emitted by every Metrics.Op (so by every FinanceService operation) and
+ * ConnectionEvent by DatabaseHelper.getConnection; JfrAnalyzer summarizes both.
+ */
+public final class JfrEvents {
+    private static boolean periodicInstalled;
+
+    private JfrEvents() {
+    }
+
+    /**
+     * True once Flight Recorder is running in this JVM. Loading the first event class
+     * initializes JFR itself (about 200 ms), so callers only create events when this is
+     * true; a recording started later with jcmd flips it without a restart.
+     */
+    static boolean isRecorderActive() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Registers the periodic metrics event, which copies every Metrics timer into the
+     * recording so UI stalls can be lined up with data-layer latency.
+     */
+    public static synchronized void installPeriodicMetrics() {
+        if (periodicInstalled) {
+            return;
+        }
+        periodicInstalled = true;
+        FlightRecorder.addPeriodicEvent(MetricsSnapshotEvent.class, () -> {
+            for (Map.Entry<String, LatencyHistogram> e : Metrics.getInstance().getTimers().entrySet()) {
+                MetricsSnapshotEvent event = new MetricsSnapshotEvent();
+                if (!event.isEnabled()) {
+                    return;
+                }
+                LatencyHistogram h = e.getValue();
+                event.timer = e.getKey();
+                event.count = h.getCount();
+                event.p50 = h.getPercentileMicros(50) * 1000;
+                event.p99 = h.getPercentileMicros(99) * 1000;
+                event.max = h.getMaxMicros() * 1000;
+                event.commit();
+            }
+        });
+    }
+
+    @Name(QueryEvent.NAME)
+    @Label("Finance Query")
+    @Category("Finance")
+    @Description("One FinanceService operation: its SQL id, rows read and calling thread")
+    static class QueryEvent extends Event {
+        static final String NAME = "com.finance.Query";
+
+        @Label("SQL Id")
+        String sqlId;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Calling Thread")
+        String threadName;
+    }
+
+    @Name(ConnectionEvent.NAME)
+    @Label("Finance Connection Acquisition")
+    @Category("Finance")
+    @Description("Time spent obtaining the database connection")
+    static class ConnectionEvent extends Event {
+        static final String NAME = "com.finance.Connection";
+
+        @Label("Reopened")
+        boolean reopened;
+
+        @Label("Calling Thread")
+        String threadName;
+    }
+
+    @Name("com.finance.MetricsSnapshot")
+    @Label("Finance Metrics Snapshot")
+    @Category("Finance")
+    @Description("Cumulative latency of one Metrics timer")
+    @Period("10 s")
+    static class MetricsSnapshotEvent extends Event {
+        @Label("Timer")
+        String timer;
+
+        @Label("Count")
+        long count;
+
+        @Label("p50")
+        @Timespan(Timespan.NANOSECONDS)
+        long p50;
+
+        @Label("p99")
+        @Timespan(Timespan.NANOSECONDS)
+        long p99;
+
+        @Label("Max")
+        @Timespan(Timespan.NANOSECONDS)
+        long max;
+    }
+}
@@ -0,0 +1,93 @@
+package com.finance;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram in microseconds with log-linear buckets, in the spirit of
+ * HdrHistogram: values below 32 are exact, above that every power of two is split into
+ * 16 sub-buckets, so any recorded value is reported within about 6%.
+ *
+ * record() is a handful of atomic adds and never blocks, so it is safe on hot paths and
+ * from any number of threads. Readers see a slightly fuzzy but consistent-enough view.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;          // 32 exact buckets
+    private static final int HALF_SUB = SUB_COUNT / 2;           // 16 sub-buckets per power of two
+    private static final int MAX_EXPONENT = 40;                  // ~12.7 days in microseconds
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void record(long micros) {
+        long v = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts.incrementAndGet(indexOf(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Returns the value at the given percentile (0-100): the top of the bucket holding it,
+     * never more than the largest recorded value.
+     */
+    public long getPercentileMicros(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB_COUNT) {
+            return (int) v;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        int shift = exponent - SUB_BITS + 1;
+        int sub = (int) (v >>> shift);                          // in [16, 31]
+        return HALF_SUB * (shift + 1) + (sub - HALF_SUB);
+    }
+
+    static long lowestValueIn(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / HALF_SUB - 1;
+        long sub = index % HALF_SUB + HALF_SUB;
+        return sub << shift;
+    }
+
+    static long highestValueIn(int index) {
+        return lowestValueIn(index + 1) - 1;
+    }
+}
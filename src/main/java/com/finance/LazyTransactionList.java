@@ -0,0 +1,160 @@
+package com.finance;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Observable list of transactions that only holds the pages the TableView is showing.
+ *
+ * The list reports the full row count, but get() returns null for rows whose page is not
+ * loaded yet and queues a background fetch; when the page arrives the rows are announced
+ * as replaced and the table redraws them. Pages are fetched by keyset when the previous
+ * page's last row is known (normal scrolling) and by offset otherwise (jumping with the
+ * scrollbar). At most MAX_CACHED_PAGES pages stay in memory, evicted least recently used.
+ */
+public class LazyTransactionList extends ObservableListBase<TransactionRow> {
+    static final int PAGE_SIZE = 200;
+    static final int MAX_CACHED_PAGES = 16;
+
+    private final FinanceService financeService;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "finance-table-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<Integer, List<TransactionRow>> pages = new LinkedHashMap<>(MAX_CACHED_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<TransactionRow>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // Last row of every page seen so far: the keyset cursor for fetching the page after it
+    private final Map<Integer, TransactionRow> pageEnds = new HashMap<>();
+    private final Set<Integer> inFlight = new HashSet<>();
+
+    private TransactionQuery query = new TransactionQuery();
+    private int size;
+    private long generation; // bumped on reload so late pages of an old query are dropped
+
+    public LazyTransactionList(FinanceService financeService) {
+        this.financeService = financeService;
+    }
+
+    public TransactionQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Switches to a new filter or sort order and reloads from the first page.
+     */
+    public void setQuery(TransactionQuery query) {
+        this.query = query;
+        reload();
+    }
+
+    /**
+     * Drops all cached pages and re-counts rows in the background. Must be called on the FX thread.
+     */
+    public void reload() {
+        final long gen = ++generation;
+        final TransactionQuery q = query;
+        pages.clear();
+        pageEnds.clear();
+        inFlight.clear();
+        loader.execute(() -> {
+            int count = financeService.countTransactions(q);
+            List<TransactionRow> first = financeService.getTransactionPage(q, null, PAGE_SIZE);
+            Platform.runLater(() -> {
+                if (gen != generation) {
+                    return;
+                }
+                int oldSize = size;
+                beginChange();
+                size = count;
+                storePage(0, first);
+                if (oldSize > 0) {
+                    nextRemove(0, Collections.nCopies(oldSize, (TransactionRow) null));
+                }
+                if (count > 0) {
+                    nextAdd(0, count);
+                }
+                endChange();
+            });
+        });
+    }
+
+    @Override
+    public TransactionRow get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int page = index / PAGE_SIZE;
+        List<TransactionRow> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = index % PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of pages currently held in memory.
+     */
+    public int cachedPageCount() {
+        return pages.size();
+    }
+
+    private void requestPage(int page) {
+        if (!inFlight.add(page)) {
+            return;
+        }
+        final long gen = generation;
+        final TransactionQuery q = query;
+        final TransactionRow after = page > 0 ? pageEnds.get(page - 1) : null;
+        loader.execute(() -> {
+            List<TransactionRow> rows = (page == 0 || after != null)
+                    ? financeService.getTransactionPage(q, after, PAGE_SIZE)
+                    : financeService.getTransactionPageAt(q, page * PAGE_SIZE, PAGE_SIZE);
+            Platform.runLater(() -> {
+                if (gen != generation) {
+                    return;
+                }
+                inFlight.remove(page);
+                storePage(page, rows);
+                int from = page * PAGE_SIZE;
+                int to = Math.min(size, from + rows.size());
+                if (from < to) {
+                    beginChange();
+                    for (int i = from; i < to; i++) {
+                        nextSet(i, null);
+                    }
+                    endChange();
+                }
+            });
+        });
+    }
+
+    private void storePage(int page, List<TransactionRow> rows) {
+        pages.put(page, rows);
+        if (!rows.isEmpty()) {
+            pageEnds.put(page, rows.get(rows.size() - 1));
+        }
+    }
+}
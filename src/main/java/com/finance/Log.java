@@ -0,0 +1,304 @@
+package com.finance;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Leveled, structured logging with an asynchronous appender.
+ *
+ * Callers only build a small record and offer it to a bounded ring buffer; formatting,
+ * file I/O and stack-trace rendering happen on the "finance-log" thread. If a burst fills
+ * the buffer, further records are dropped (and counted) instead of blocking the caller.
+ * Records below the current level return before allocating anything but the varargs,
+ * and loops that build debug output should check {@link #isDebugEnabled()} first.
+ *
+ * Lines go to logs/finance.log, which rolls to finance.1.log ... finance.N.log when it
+ * exceeds the size limit. WARN and ERROR lines are also echoed to stderr.
+ * The level comes from the finance.log.level system property (default INFO) or setLevel().
+ *
+ *     Log.error("Error adding transaction", e, "account", accountId, "amount", amount);
+ */
+public final class Log {
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    static final int BUFFER_CAPACITY = 8192;
+    static final long DEFAULT_MAX_FILE_BYTES = 5L * 1024 * 1024;
+    static final int DEFAULT_MAX_FILES = 5;
+
+    private static volatile Level level = parseLevel(System.getProperty("finance.log.level"));
+    private static final BlockingQueue<Record> buffer = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong accepted = new AtomicLong();
+    private static final AtomicLong written = new AtomicLong();
+
+    private static Path directory = Paths.get("logs");
+    private static long maxFileBytes = DEFAULT_MAX_FILE_BYTES;
+    private static int maxFiles = DEFAULT_MAX_FILES;
+    private static boolean echoToConsole = true;
+    private static volatile Thread writerThread;
+
+    private Log() {
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static boolean isDebugEnabled() {
+        return level == Level.DEBUG;
+    }
+
+    public static boolean isEnabled(Level l) {
+        return l.compareTo(level) >= 0;
+    }
+
+    public static void debug(String message, Object... fields) {
+        if (level == Level.DEBUG) {
+            enqueue(Level.DEBUG, message, null, fields);
+        }
+    }
+
+    public static void info(String message, Object... fields) {
+        if (isEnabled(Level.INFO)) {
+            enqueue(Level.INFO, message, null, fields);
+        }
+    }
+
+    public static void warn(String message, Object... fields) {
+        if (isEnabled(Level.WARN)) {
+            enqueue(Level.WARN, message, null, fields);
+        }
+    }
+
+    public static void warn(String message, Throwable error, Object... fields) {
+        if (isEnabled(Level.WARN)) {
+            enqueue(Level.WARN, message, error, fields);
+        }
+    }
+
+    public static void error(String message, Throwable error, Object... fields) {
+        enqueue(Level.ERROR, message, error, fields);
+    }
+
+    public static void error(String message, Object... fields) {
+        enqueue(Level.ERROR, message, null, fields);
+    }
+
+    /**
+     * Number of records dropped because the buffer was full.
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Redirects output; used by tests and by tools that keep their logs elsewhere.
+     */
+    static void configure(Path dir, long maxBytes, int files, boolean console) {
+        flush();
+        synchronized (Log.class) {
+            setOutput(dir, maxBytes, files, console);
+        }
+    }
+
+    private static void setOutput(Path dir, long maxBytes, int files, boolean console) {
+        directory = dir;
+        maxFileBytes = maxBytes;
+        maxFiles = files;
+        echoToConsole = console;
+    }
+
+    static synchronized Path currentFile() {
+        return directory.resolve("finance.log");
+    }
+
+    /**
+     * Waits until everything logged so far has been written, for at most two seconds.
+     */
+    public static void flush() {
+        long target = accepted.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (written.get() < target && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void enqueue(Level l, String message, Throwable error, Object[] fields) {
+        ensureWriter();
+        Record r = new Record(LocalDateTime.now(), l, Thread.currentThread().getName(), message, error, fields);
+        if (buffer.offer(r)) {
+            accepted.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private static void ensureWriter() {
+        if (writerThread != null) {
+            return;
+        }
+        synchronized (Log.class) {
+            if (writerThread != null) {
+                return;
+            }
+            Thread t = new Thread(Log::drainLoop, "finance-log");
+            t.setDaemon(true);
+            t.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "finance-log-flush"));
+            writerThread = t;
+        }
+    }
+
+    private static void drainLoop() {
+        List<Record> batch = new ArrayList<>();
+        long reportedDrops = 0;
+        while (true) {
+            try {
+                Record first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                synchronized (Log.class) {
+                    batch.add(first);
+                    buffer.drainTo(batch);
+                    int count = batch.size();
+                    long drops = dropped.get();
+                    if (drops != reportedDrops) {
+                        batch.add(new Record(LocalDateTime.now(), Level.WARN, "finance-log",
+                                "Log buffer full, records dropped", null, new Object[]{"total", drops}));
+                        reportedDrops = drops;
+                    }
+                    try {
+                        write(batch);
+                    } finally {
+                        written.addAndGet(count);
+                        batch.clear();
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // A bad record must not stop the appender
+            }
+        }
+    }
+
+    private static void write(List<Record> batch) {
+        StringBuilder sb = new StringBuilder();
+        for (Record r : batch) {
+            String line = format(r);
+            sb.append(line);
+            if (echoToConsole && r.level.compareTo(Level.WARN) >= 0) {
+                System.err.print(line);
+            }
+        }
+        try {
+            Files.createDirectories(directory);
+            Path file = currentFile();
+            if (Files.exists(file) && Files.size(file) >= maxFileBytes) {
+                roll();
+            }
+            try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                w.write(sb.toString());
+            }
+        } catch (IOException e) {
+            // Logging must never fail the caller; fall back to stderr
+            System.err.print(sb);
+        }
+    }
+
+    private static void roll() throws IOException {
+        Files.deleteIfExists(directory.resolve("finance." + maxFiles + ".log"));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path from = directory.resolve("finance." + i + ".log");
+            if (Files.exists(from)) {
+                Files.move(from, directory.resolve("finance." + (i + 1) + ".log"), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(currentFile(), directory.resolve("finance.1.log"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static String format(Record r) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(r.time).append(' ').append(String.format("%-5s", r.level)).append(" [").append(r.thread).append("] ")
+                .append(r.message);
+        Object[] f = r.fields;
+        for (int i = 0; f != null && i + 1 < f.length; i += 2) {
+            sb.append(' ').append(f[i]).append('=').append(quote(String.valueOf(f[i + 1])));
+        }
+        if (r.error != null) {
+            sb.append(" error=").append(quote(String.valueOf(r.error.getMessage())));
+        }
+        sb.append(System.lineSeparator());
+        if (r.error != null) {
+            StringWriter trace = new StringWriter();
+            r.error.printStackTrace(new PrintWriter(trace));
+            sb.append(trace);
+        }
+        return sb.toString();
+    }
+
+    private static String quote(String value) {
+        if (!value.isEmpty() && value.chars().noneMatch(c -> c == ' ' || c == '"' || c == '=' || c < 0x20)) {
+            return value;
+        }
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r") + '"';
+    }
+
+    static Level parseLevel(String value) {
+        if (value == null || value.isBlank()) {
+            return Level.INFO;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    static final class Record {
+        final LocalDateTime time;
+        final Level level;
+        final String thread;
+        final String message;
+        final Throwable error;
+        final Object[] fields;
+
+        Record(LocalDateTime time, Level level, String thread, String message, Throwable error, Object[] fields) {
+            this.time = time;
+            this.level = level;
+            this.thread = thread;
+            this.message = message;
+            this.error = error;
+            this.fields = fields;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.finance;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency and counter registry for the data layer and the UI.
+ *
+ * Recording never takes a lock: timers are LatencyHistograms and counters are LongAdders,
+ * both created on first use. Data-layer methods wrap their work in an {@link Op}:
+ *
+ *     try (Metrics.Op op = Metrics.op("getTotalBalance"); Connection conn = ...) { ... op.row(); }
+ *
+ * which times the call, counts it as a query, adds its rows to "rows.scanned" and emits
+ * a JFR QueryEvent when a recording is running.
+ */
+public class Metrics {
+    public static final String QUERIES = "queries";
+    public static final String ROWS_SCANNED = "rows.scanned";
+    public static final String CONNECTION_WAIT = "db.connection.wait";
+    public static final String FX_STALL = "fx.stall";
+
+    private static Metrics instance;
+
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private ScheduledExecutorService fileWriter;
+
+    Metrics() {
+    }
+
+    public static synchronized Metrics getInstance() {
+        if (instance == null) {
+            instance = new Metrics();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts timing one data-layer operation; close it when the operation finishes.
+     */
+    public static Op op(String name) {
+        return new Op(getInstance(), name);
+    }
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    public void increment(String counter, long delta) {
+        counters.computeIfAbsent(counter, k -> new LongAdder()).add(delta);
+    }
+
+    public long getCounter(String counter) {
+        LongAdder adder = counters.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public void recordConnectionWait(long nanos) {
+        timer(CONNECTION_WAIT).recordNanos(nanos);
+    }
+
+    public void recordFxStall(long nanos) {
+        timer(FX_STALL).recordNanos(nanos);
+    }
+
+    /**
+     * Timers sorted by name.
+     */
+    public Map<String, LatencyHistogram> getTimers() {
+        return new TreeMap<>(timers);
+    }
+
+    /**
+     * Counters sorted by name.
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> out = new TreeMap<>();
+        counters.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    /**
+     * Human-readable table of every timer and counter.
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-36s %8s %9s %9s %9s %9s%n", "timer", "count", "mean ms", "p50 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, LatencyHistogram> e : getTimers().entrySet()) {
+            LatencyHistogram h = e.getValue();
+            sb.append(String.format("%-36s %8d %9.2f %9.2f %9.2f %9.2f%n", e.getKey(), h.getCount(),
+                    h.getMeanMicros() / 1000.0, h.getPercentileMicros(50) / 1000.0,
+                    h.getPercentileMicros(99) / 1000.0, h.getMaxMicros() / 1000.0));
+        }
+        sb.append(System.lineSeparator());
+        for (Map.Entry<String, Long> e : getCounters().entrySet()) {
+            sb.append(String.format("%-36s %8d%n", e.getKey(), e.getValue()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends one line per timer and counter to {@code file} every {@code periodSeconds}.
+     * Lines are "timestamp,kind,name,count,mean_us,p50_us,p99_us,max_us" (counters fill only count).
+     */
+    public synchronized void startFileWriter(Path file, long periodSeconds) {
+        if (fileWriter != null) {
+            return;
+        }
+        fileWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "finance-metrics-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        fileWriter.scheduleAtFixedRate(() -> writeSnapshot(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    void writeSnapshot(Path file) {
+        String now = LocalDateTime.now().withNano(0).toString();
+        List<String> lines = new ArrayList<>();
+        getTimers().forEach((name, h) -> lines.add(String.format("%s,timer,%s,%d,%.0f,%d,%d,%d", now, name, h.getCount(),
+                h.getMeanMicros(), h.getPercentileMicros(50), h.getPercentileMicros(99), h.getMaxMicros())));
+        getCounters().forEach((name, v) -> lines.add(String.format("%s,counter,%s,%d,,,,", now, name, v)));
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                w.write(line);
+                w.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            Log.error("Error writing metrics file", e);
+        }
+    }
+
+    /**
+     * One timed data-layer operation. Not thread-safe; use it on the thread that started it.
+     */
+    public static class Op implements AutoCloseable {
+        private final Metrics metrics;
+        private final String name;
+        private final JfrEvents.QueryEvent event;
+        private final long start;
+        private long rows;
+
+        Op(Metrics metrics, String name) {
+            this.metrics = metrics;
+            this.name = name;
+            event = JfrEvents.isRecorderActive() ? new JfrEvents.QueryEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            this.start = System.nanoTime();
+        }
+
+        public void row() {
+            rows++;
+        }
+
+        public void rows(long n) {
+            rows += n;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        @Override
+        public void close() {
+            metrics.timer(name).recordNanos(System.nanoTime() - start);
+            if (event != null) {
+                commitEvent();
+            }
+            metrics.increment(QUERIES, 1);
+            if (rows > 0) {
+                metrics.increment(ROWS_SCANNED, rows);
+            }
+        }
+
+        private void commitEvent() {
+            event.end();
+            if (event.shouldCommit()) {
+                event.sqlId = name;
+                event.rows = rows;
+                event.threadName = Thread.currentThread().getName();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.finance;
+
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Warms the data of the months the user is likely to pick next, so going back and forth
+ * in the month selector finds them in the AggregateCache.
+ *
+ * After each selection the neighbours of the selected month and the most recently picked
+ * months are loaded one at a time on a fresh virtual thread. The next selection cancels
+ * the running prefetch: it stops before its next month, and the loader for the month in
+ * flight finishes normally (interrupting it would abort the JDBC call and log an error).
+ * A short delay before the first load keeps quick scrolling through the list from
+ * starting work that would be cancelled right away.
+ */
+public class MonthPrefetcher {
+    static final int RECENT_MONTHS = 4;
+    static final long START_DELAY_MILLIS = 200;
+
+    private final Consumer<YearMonth> loader;
+    private final long startDelayMillis;
+    private final Deque<YearMonth> recent = new ArrayDeque<>();
+    private Task running;
+
+    /**
+     * @param loader reads everything the dashboard shows for a month; runs on the
+     *               prefetch thread and should fill a cache
+     */
+    public MonthPrefetcher(Consumer<YearMonth> loader) {
+        this(loader, START_DELAY_MILLIS);
+    }
+
+    MonthPrefetcher(Consumer<YearMonth> loader, long startDelayMillis) {
+        this.loader = loader;
+        this.startDelayMillis = startDelayMillis;
+    }
+
+    /**
+     * Records the selection, cancels the previous prefetch and starts a new one.
+     *
+     * @return the thread doing the prefetch
+     */
+    public synchronized Thread selected(YearMonth month) {
+        cancel();
+        List<YearMonth> months = candidates(month, recent, YearMonth.now());
+        recent.remove(month);
+        recent.addFirst(month);
+        while (recent.size() > RECENT_MONTHS) {
+            recent.removeLast();
+        }
+        running = new Task(months);
+        return Thread.ofVirtual().name("finance-prefetch").start(running);
+    }
+
+    public synchronized void cancel() {
+        if (running != null) {
+            running.cancelled = true;
+            running = null;
+        }
+    }
+
+    /**
+     * Months to warm after {@code month} was picked, most likely first: the previous and
+     * next month, then earlier picks, most recent first. Future months are left out.
+     */
+    static List<YearMonth> candidates(YearMonth month, Iterable<YearMonth> recent, YearMonth now) {
+        Set<YearMonth> out = new LinkedHashSet<>();
+        out.add(month.minusMonths(1));
+        out.add(month.plusMonths(1));
+        for (YearMonth m : recent) {
+            out.add(m);
+        }
+        out.remove(month);
+        out.removeIf(m -> m.isAfter(now));
+        return new ArrayList<>(out);
+    }
+
+    private final class Task implements Runnable {
+        private final List<YearMonth> months;
+        private volatile boolean cancelled;
+
+        Task(List<YearMonth> months) {
+            this.months = months;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Thread.sleep(startDelayMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Metrics metrics = Metrics.getInstance();
+            for (YearMonth month : months) {
+                if (cancelled) {
+                    metrics.increment("prefetch.cancelled", 1);
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    loader.accept(month);
+                } catch (RuntimeException e) {
+                    Log.warn("Prefetch failed", e, "month", month);
+                    return;
+                }
+                metrics.timer("prefetch.month").recordNanos(System.nanoTime() - start);
+            }
+        }
+    }
+}
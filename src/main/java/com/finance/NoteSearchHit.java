@@ -0,0 +1,73 @@
+package com.finance;
+
+import java.time.LocalDate;
+
+/**
+ * One transaction matched by a note search. The rank and transaction id together form the
+ * keyset cursor for fetching the next page.
+ */
+public class NoteSearchHit {
+    private final int transactionId;
+    private final double rank; // bm25 score; lower is a better match
+    private final LocalDate date;
+    private final double amount;
+    private final String accountName;
+    private final String categoryName;
+    private final String note;
+    private final String snippet;
+
+    public NoteSearchHit(int transactionId, double rank, LocalDate date, double amount,
+                         String accountName, String categoryName, String note, String snippet) {
+        this.transactionId = transactionId;
+        this.rank = rank;
+        this.date = date;
+        this.amount = amount;
+        this.accountName = accountName;
+        this.categoryName = categoryName;
+        this.note = note;
+        this.snippet = snippet;
+    }
+
+    public int getTransactionId() {
+        return transactionId;
+    }
+
+    public double getRank() {
+        return rank;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    @Override
+    public String toString() {
+        return "NoteSearchHit{" +
+                "transactionId=" + transactionId +
+                ", rank=" + rank +
+                ", date=" + date +
+                ", amount=" + amount +
+                ", snippet='" + snippet + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,294 @@
+package com.finance;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Content-addressed store for receipt images, kept in the receipts/ directory next to
+ * the database file.
+ *
+ * A stored file is named after the SHA-256 of its bytes (receipts/ab/abcd....jpg), so
+ * attaching the same receipt twice keeps one copy. Transactions.image_path holds the
+ * key relative to the store. Thumbnails are PNGs under receipts/thumbs/, made once on a
+ * small background pool; the decoder subsamples while reading so a large photo never
+ * sits in memory at full size. Thumbnail bytes are kept in an LRU bounded by total
+ * bytes, and nothing is read until a cell asks for it, so the number of receipts in the
+ * ledger does not affect startup or heap.
+ */
+public class ReceiptStore {
+    static final int THUMBNAIL_SIZE = 96;
+    static final long DEFAULT_CACHE_BYTES = 8L * 1024 * 1024;
+    static final int THUMBNAIL_THREADS = 2;
+
+    private static ReceiptStore instance;
+
+    private final Path root;
+    private final ByteLru cache;
+    private final Map<String, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+    private final ExecutorService pool;
+
+    ReceiptStore(Path root, long cacheBytes) {
+        this.root = root;
+        this.cache = new ByteLru(cacheBytes);
+        AtomicInteger threads = new AtomicInteger();
+        // Few threads on purpose: each one decodes a whole image at a time
+        this.pool = Executors.newFixedThreadPool(THUMBNAIL_THREADS, r -> {
+            Thread t = new Thread(r, "finance-thumbnails-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    public static synchronized ReceiptStore getInstance() {
+        if (instance == null) {
+            Path db = Paths.get(DatabaseHelper.getInstance().getDatabasePath()).toAbsolutePath();
+            instance = new ReceiptStore(db.resolveSibling("receipts"), DEFAULT_CACHE_BYTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Copies a file into the store and returns its key. A file already stored is not
+     * copied again.
+     */
+    public String store(Path source) throws IOException {
+        Path tmpDir = Files.createDirectories(root.resolve("tmp"));
+        Path tmp = Files.createTempFile(tmpDir, "receipt", ".part");
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(source), sha);
+             OutputStream out = Files.newOutputStream(tmp)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        String hash = HexFormat.of().formatHex(sha.digest());
+        String key = hash.substring(0, 2) + "/" + hash + extension(source);
+        Path target = root.resolve(key);
+        if (Files.exists(target)) {
+            Files.delete(tmp);
+            Metrics.getInstance().increment("receipts.deduplicated", 1);
+            return key;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            moveAtomically(tmp, target);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(tmp); // stored by another thread meanwhile
+        }
+        Log.info("Receipt stored", "key", key);
+        return key;
+    }
+
+    /**
+     * Runs {@link #store} on the thumbnail pool.
+     */
+    public CompletableFuture<String> storeAsync(Path source) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return store(source);
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }, pool);
+    }
+
+    public Path resolve(String key) {
+        return root.resolve(key);
+    }
+
+    /**
+     * Thumbnail PNG bytes if they are in memory, else null.
+     */
+    public byte[] cachedThumbnail(String key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Thumbnail PNG bytes for a stored receipt: from memory, from receipts/thumbs/, or made
+     * on the thumbnail pool. Completes with null if the receipt is missing or not an image.
+     */
+    public CompletableFuture<byte[]> thumbnail(String key) {
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            Metrics.getInstance().increment("receipts.thumbnail.hits", 1);
+            return CompletableFuture.completedFuture(cached);
+        }
+        Metrics.getInstance().increment("receipts.thumbnail.misses", 1);
+        CompletableFuture<byte[]> load = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = pending.putIfAbsent(key, load);
+        if (running != null) {
+            return running;
+        }
+        // The future is in the map before the load starts, so its cleanup, which runs on
+        // whichever thread completes it, always finds it there and never runs inside a
+        // map update
+        load.whenComplete((bytes, e) -> pending.remove(key, load));
+        CompletableFuture.supplyAsync(() -> loadThumbnail(key), pool).whenComplete((bytes, e) -> {
+            if (e != null) {
+                load.completeExceptionally(e);
+            } else {
+                load.complete(bytes);
+            }
+        });
+        return load;
+    }
+
+    long getCachedBytes() {
+        return cache.bytes();
+    }
+
+    private byte[] loadThumbnail(String key) {
+        Path thumb = root.resolve("thumbs").resolve(key.replace('/', '_') + ".png");
+        try {
+            byte[] bytes;
+            if (Files.exists(thumb)) {
+                bytes = Files.readAllBytes(thumb);
+            } else {
+                long start = System.nanoTime();
+                bytes = makeThumbnail(root.resolve(key));
+                Metrics.getInstance().timer("receipts.thumbnail.make").recordNanos(System.nanoTime() - start);
+                if (bytes == null) {
+                    return null;
+                }
+                Files.createDirectories(thumb.getParent());
+                Path tmp = Files.createTempFile(thumb.getParent(), "thumb", ".part");
+                Files.write(tmp, bytes);
+                moveAtomically(tmp, thumb);
+            }
+            cache.put(key, bytes);
+            return bytes;
+        } catch (IOException e) {
+            Log.warn("Error loading receipt thumbnail", e, "key", key);
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the image subsampled to about twice the thumbnail size, scales it to fit
+     * the thumbnail box and encodes it as PNG. Returns null for unreadable files.
+     */
+    static byte[] makeThumbnail(Path image) throws IOException {
+        if (!Files.exists(image)) {
+            return null;
+        }
+        try (ImageInputStream in = ImageIO.createImageInputStream(image.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            BufferedImage decoded;
+            try {
+                reader.setInput(in, true, true);
+                int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / (THUMBNAIL_SIZE * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                decoded = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+            double scale = Math.min(1.0, (double) THUMBNAIL_SIZE / Math.max(decoded.getWidth(), decoded.getHeight()));
+            int w = Math.max(1, (int) Math.round(decoded.getWidth() * scale));
+            int h = Math.max(1, (int) Math.round(decoded.getHeight() * scale));
+            BufferedImage thumb = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = thumb.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(decoded, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(thumb, "png", out);
+            return out.toByteArray();
+        }
+    }
+
+    private static String extension(Path source) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String ext = dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return ext.matches("[a-z0-9]{1,5}") ? "." + ext : "";
+    }
+
+    private static void moveAtomically(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to);
+        }
+    }
+
+    /**
+     * LRU of byte arrays that evicts the least recently used entries once their total
+     * size passes the budget.
+     */
+    static final class ByteLru {
+        private final long maxBytes;
+        private final LinkedHashMap<String, byte[]> map = new LinkedHashMap<>(64, 0.75f, true);
+        private long bytes;
+
+        ByteLru(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized byte[] get(String key) {
+            return map.get(key);
+        }
+
+        synchronized void put(String key, byte[] value) {
+            byte[] old = map.put(key, value);
+            bytes += value.length - (old == null ? 0 : old.length);
+            Iterator<Map.Entry<String, byte[]>> it = map.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, byte[]> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue; // keep the entry just added
+                }
+                bytes -= eldest.getValue().length;
+                it.remove();
+                Metrics.getInstance().increment("receipts.thumbnail.evictions", 1);
+            }
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.finance;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+public enum RecurrenceFrequency {
+    WEEKLY,
+    MONTHLY,
+    YEARLY,
+    CUSTOM; // every N days
+
+    /**
+     * Returns the first occurrence strictly after {@code after}.
+     *
+     * Occurrences are always computed from the anchor rather than chained from the previous
+     * one, so a monthly bill on the 31st goes back to the 31st after a short month.
+     *
+     * @param anchor First occurrence of the schedule; may be null for legacy monthly bills
+     * @param dueDay Day of month for MONTHLY schedules (clamped to the month length)
+     * @param interval Number of weeks, months, years or days between occurrences
+     * @param after Occurrences on or before this day are skipped
+     */
+    public LocalDate nextAfter(LocalDate anchor, int dueDay, int interval, LocalDate after) {
+        int step = Math.max(1, interval);
+        if (anchor != null && after.isBefore(anchor) && this != MONTHLY) {
+            return anchor;
+        }
+        switch (this) {
+            case WEEKLY:
+            case CUSTOM: {
+                LocalDate start = anchor != null ? anchor : after;
+                long stepDays = this == WEEKLY ? 7L * step : step;
+                long k = ChronoUnit.DAYS.between(start, after) / stepDays + 1;
+                return start.plusDays(k * stepDays);
+            }
+            case YEARLY: {
+                LocalDate start = anchor != null ? anchor : after.withDayOfMonth(Math.min(dueDay, after.lengthOfMonth()));
+                long k = ChronoUnit.YEARS.between(start, after) / step * step;
+                LocalDate candidate = start.plusYears(k);
+                while (!candidate.isAfter(after)) {
+                    k += step;
+                    candidate = start.plusYears(k);
+                }
+                return candidate;
+            }
+            case MONTHLY:
+            default: {
+                YearMonth startMonth = anchor != null ? YearMonth.from(anchor) : YearMonth.from(after);
+                long k = Math.max(0, Math.floorDiv(ChronoUnit.MONTHS.between(startMonth, YearMonth.from(after)), step) * step);
+                LocalDate candidate = RecurringScheduler.dueDateIn(startMonth.plusMonths(k), dueDay);
+                while (!candidate.isAfter(after) || (anchor != null && candidate.isBefore(anchor))) {
+                    k += step;
+                    candidate = RecurringScheduler.dueDateIn(startMonth.plusMonths(k), dueDay);
+                }
+                return candidate;
+            }
+        }
+    }
+}
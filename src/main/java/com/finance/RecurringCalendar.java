@@ -0,0 +1,221 @@
+package com.finance;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory calendar of recurring expenses, kept as a binary min-heap ordered by next due date.
+ *
+ * Loading from the database is cheap: FinanceService returns expenses ordered by the indexed
+ * next_due column, and a sorted array is already a valid heap. Polling due bills costs
+ * O(m log n) for m occurrences, and listing the next k upcoming bills costs O(k log k)
+ * because only heap nodes that can still be in range are ever visited.
+ */
+public class RecurringCalendar {
+    private RecurringExpense[] heap;
+    private int size;
+    private final Map<Integer, Integer> positions = new HashMap<>();
+
+    /**
+     * Builds a calendar from expenses that all have a next due date set.
+     */
+    public RecurringCalendar(List<RecurringExpense> expenses) {
+        heap = new RecurringExpense[Math.max(16, expenses.size())];
+        for (RecurringExpense e : expenses) {
+            if (e.getNextDue() == null) {
+                throw new IllegalArgumentException("Recurring expense has no next due date: " + e);
+            }
+            heap[size] = e;
+            positions.put(e.getId(), size);
+            size++;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Loads the calendar from the database. Expenses that have never been scheduled get their
+     * first due date after {@code scheduledThrough}, which is persisted in the same pass.
+     */
+    public static RecurringCalendar load(FinanceService financeService, LocalDate scheduledThrough) {
+        List<RecurringExpense> expenses = financeService.getAllRecurringExpenses();
+        List<RecurringExpense> unscheduled = new ArrayList<>();
+        for (RecurringExpense e : expenses) {
+            if (e.getNextDue() == null) {
+                e.setNextDue(e.occurrenceAfter(scheduledThrough));
+                unscheduled.add(e);
+            }
+        }
+        if (!unscheduled.isEmpty()) {
+            financeService.updateRecurringSchedule(unscheduled);
+        }
+        return new RecurringCalendar(expenses);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the expense that is due first, or null if the calendar is empty.
+     */
+    public synchronized RecurringExpense peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * Adds an expense, or re-positions it if its next due date changed.
+     */
+    public synchronized void put(RecurringExpense expense) {
+        if (expense.getNextDue() == null) {
+            throw new IllegalArgumentException("Recurring expense has no next due date: " + expense);
+        }
+        Integer pos = positions.get(expense.getId());
+        if (pos != null) {
+            heap[pos] = expense;
+            siftDown(siftUp(pos));
+            return;
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = expense;
+        positions.put(expense.getId(), size);
+        siftUp(size++);
+    }
+
+    public synchronized void remove(int expenseId) {
+        Integer pos = positions.remove(expenseId);
+        if (pos == null) {
+            return;
+        }
+        size--;
+        if (pos == size) {
+            heap[size] = null;
+            return;
+        }
+        heap[pos] = heap[size];
+        heap[size] = null;
+        positions.put(heap[pos].getId(), pos);
+        siftDown(siftUp(pos));
+    }
+
+    /**
+     * Removes every occurrence due on or before {@code today} and advances each expense to its
+     * following due date. Occurrences before {@code floor} are skipped without being returned,
+     * which bounds the catch-up work after a long absence.
+     *
+     * @return Due occurrences ordered by date
+     */
+    public synchronized List<RecurringScheduler.Occurrence> pollDue(LocalDate today, LocalDate floor) {
+        List<RecurringScheduler.Occurrence> due = new ArrayList<>();
+        while (size > 0 && !heap[0].getNextDue().isAfter(today)) {
+            RecurringExpense top = heap[0];
+            LocalDate dueDate = top.getNextDue();
+            if (dueDate.isBefore(floor)) {
+                top.setNextDue(top.occurrenceAfter(floor.minusDays(1)));
+            } else {
+                due.add(new RecurringScheduler.Occurrence(top, dueDate));
+                top.setNextDue(top.occurrenceAfter(dueDate));
+            }
+            siftDown(0);
+        }
+        return due;
+    }
+
+    /**
+     * Lists occurrences due from {@code from} through the following {@code days} days, ordered
+     * by date. Bills that recur more than once in the window appear once per occurrence.
+     * The calendar itself is not modified.
+     */
+    public synchronized List<RecurringScheduler.Occurrence> upcoming(LocalDate from, int days) {
+        List<RecurringScheduler.Occurrence> result = new ArrayList<>();
+        if (size == 0) {
+            return result;
+        }
+        LocalDate horizon = from.plusDays(days);
+
+        // Best-first walk of the heap: a node is only reached once its parent was in range
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>();
+        frontier.add(new Candidate(heap[0], heap[0].getNextDue(), 0));
+        while (!frontier.isEmpty()) {
+            Candidate c = frontier.poll();
+            if (c.date.isAfter(horizon)) {
+                break;
+            }
+            if (!c.date.isBefore(from)) {
+                result.add(new RecurringScheduler.Occurrence(c.expense, c.date));
+            }
+            if (c.heapIndex >= 0) {
+                for (int child = 2 * c.heapIndex + 1; child <= 2 * c.heapIndex + 2 && child < size; child++) {
+                    frontier.add(new Candidate(heap[child], heap[child].getNextDue(), child));
+                }
+            }
+            LocalDate following = c.expense.occurrenceAfter(c.date);
+            if (!following.isAfter(horizon)) {
+                frontier.add(new Candidate(c.expense, following, -1));
+            }
+        }
+        return result;
+    }
+
+    private int siftUp(int i) {
+        RecurringExpense e = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!e.getNextDue().isBefore(heap[parent].getNextDue())) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(e, i);
+        return i;
+    }
+
+    private void siftDown(int i) {
+        RecurringExpense e = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right].getNextDue().isBefore(heap[child].getNextDue())) {
+                child = right;
+            }
+            if (!heap[child].getNextDue().isBefore(e.getNextDue())) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(e, i);
+    }
+
+    private void place(RecurringExpense e, int i) {
+        heap[i] = e;
+        positions.put(e.getId(), i);
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+        final RecurringExpense expense;
+        final LocalDate date;
+        final int heapIndex; // -1 for a later occurrence generated from an expense already visited
+
+        Candidate(RecurringExpense expense, LocalDate date, int heapIndex) {
+            this.expense = expense;
+            this.date = date;
+            this.heapIndex = heapIndex;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            return date.compareTo(o.date);
+        }
+    }
+}
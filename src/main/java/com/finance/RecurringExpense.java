@@ -1,10 +1,18 @@
 package com.finance;
 
+import java.time.LocalDate;
+
 public class RecurringExpense {
     private int id;
     private String name;
     private double amount;
     private int dueDay; // 1-31
+    private int accountId; // 0 when the bill is not linked to an account
+    private int categoryId; // 0 when the bill is not linked to a category
+    private RecurrenceFrequency frequency = RecurrenceFrequency.MONTHLY;
+    private int interval = 1; // weeks, months, years or days between occurrences
+    private LocalDate anchorDate; // first occurrence; null for plain monthly bills
+    private LocalDate nextDue; // next occurrence not yet processed by the scheduler
 
     // Default constructor
     public RecurringExpense() {
@@ -61,6 +69,72 @@ public class RecurringExpense {
         this.dueDay = dueDay;
     }
 
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(int accountId) {
+        this.accountId = accountId;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public RecurrenceFrequency getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(RecurrenceFrequency frequency) {
+        this.frequency = frequency != null ? frequency : RecurrenceFrequency.MONTHLY;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public void setInterval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1");
+        }
+        this.interval = interval;
+    }
+
+    public LocalDate getAnchorDate() {
+        return anchorDate;
+    }
+
+    public void setAnchorDate(LocalDate anchorDate) {
+        this.anchorDate = anchorDate;
+    }
+
+    public LocalDate getNextDue() {
+        return nextDue;
+    }
+
+    public void setNextDue(LocalDate nextDue) {
+        this.nextDue = nextDue;
+    }
+
+    /**
+     * Returns the first occurrence of this expense strictly after the given day.
+     */
+    public LocalDate occurrenceAfter(LocalDate after) {
+        return frequency.nextAfter(anchorDate, dueDay, interval, after);
+    }
+
+    /**
+     * A recurring expense can only be auto-posted when it knows which account to debit
+     * and which category to book it under.
+     */
+    public boolean isPostable() {
+        return accountId > 0 && categoryId > 0;
+    }
+
     @Override
     public String toString() {
         return "RecurringExpense{" +
@@ -68,6 +142,11 @@ public class RecurringExpense {
                 ", name='" + name + '\'' +
                 ", amount=" + amount +
                 ", dueDay=" + dueDay +
+                ", accountId=" + accountId +
+                ", categoryId=" + categoryId +
+                ", frequency=" + frequency +
+                ", interval=" + interval +
+                ", nextDue=" + nextDue +
                 '}';
     }
 }
@@ -0,0 +1,171 @@
+package com.finance;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes recurring expense occurrences that became due since the last run and posts
+ * them as transactions in one batch.
+ *
+ * A watermark (the last day that was fully processed) is stored in the AppState table
+ * together with the posted transactions and each bill's next due date, so a restart only
+ * pops the occurrences that became due from the RecurringCalendar heap and never posts
+ * the same bill twice. The calendar is kept between runs and reloaded once a recurring
+ * expense was added.
+ */
+public class RecurringScheduler {
+    public static final int DEFAULT_CATCH_UP_DAYS = 62;
+
+    private final FinanceService financeService;
+    private final int catchUpDays;
+    private RecurringCalendar calendar;
+    // FinanceService.getRecurringChanges() when the calendar was loaded
+    private long calendarChanges;
+
+    public RecurringScheduler(FinanceService financeService) {
+        this(financeService, DEFAULT_CATCH_UP_DAYS);
+    }
+
+    public RecurringScheduler(FinanceService financeService, int catchUpDays) {
+        if (catchUpDays < 1) {
+            throw new IllegalArgumentException("Catch-up window must be at least one day");
+        }
+        this.financeService = financeService;
+        this.catchUpDays = catchUpDays;
+    }
+
+    /**
+     * Runs the scheduler for today.
+     */
+    public List<Occurrence> runCatchUp() {
+        return runCatchUp(LocalDate.now());
+    }
+
+    /**
+     * Finds every occurrence due after the watermark and up to {@code today}, posts the
+     * postable ones and advances the watermark. Occurrences of bills without an account
+     * or category are returned unposted so the caller can still remind the user.
+     *
+     * @param today The last day to include
+     * @return All occurrences found, posted or not; empty when the scheduler already ran today
+     */
+    public synchronized List<Occurrence> runCatchUp(LocalDate today) {
+        LocalDate lastRun = financeService.getRecurringWatermark();
+        if (lastRun != null && !lastRun.isBefore(today)) {
+            return new ArrayList<>();
+        }
+
+        // First run ever: only today's bills, never backfill history the user did not ask for
+        RecurringCalendar cal = getCalendar(lastRun != null ? lastRun : today.minusDays(1));
+        List<Occurrence> due = cal.pollDue(today, today.minusDays(catchUpDays));
+
+        List<Occurrence> postable = new ArrayList<>();
+        Map<Integer, RecurringExpense> advanced = new LinkedHashMap<>();
+        for (Occurrence o : due) {
+            advanced.put(o.getExpense().getId(), o.getExpense());
+            if (o.getExpense().isPostable()) {
+                postable.add(o);
+            }
+        }
+
+        if (!financeService.postRecurringOccurrences(postable, new ArrayList<>(advanced.values()), today)) {
+            // Nothing was committed, so drop the advanced in-memory state and retry next run
+            calendar = null;
+            return due;
+        }
+        for (Occurrence o : postable) {
+            o.markPosted();
+        }
+        if (!due.isEmpty()) {
+            EventBus.getInstance().publish(new FinanceEvents.RecurringPostedEvent(due));
+        }
+        return due;
+    }
+
+    /**
+     * Lists bills due from today through the next {@code days} days.
+     */
+    public synchronized List<Occurrence> upcoming(int days) {
+        LocalDate today = LocalDate.now();
+        LocalDate lastRun = financeService.getRecurringWatermark();
+        return getCalendar(lastRun != null ? lastRun : today.minusDays(1)).upcoming(today, days);
+    }
+
+    private RecurringCalendar getCalendar(LocalDate scheduledThrough) {
+        // Read before loading, so an expense added during the load triggers another one
+        long changes = financeService.getRecurringChanges();
+        if (calendar == null || changes != calendarChanges) {
+            calendarChanges = changes;
+            calendar = RecurringCalendar.load(financeService, scheduledThrough);
+        }
+        return calendar;
+    }
+
+    /**
+     * Lists the occurrences of the given expenses with a due date after {@code fromExclusive}
+     * and on or before {@code toInclusive}, ordered by date.
+     */
+    public static List<Occurrence> computeOccurrences(List<RecurringExpense> expenses,
+                                                      LocalDate fromExclusive, LocalDate toInclusive) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        for (RecurringExpense expense : expenses) {
+            for (LocalDate d = expense.occurrenceAfter(fromExclusive); !d.isAfter(toInclusive); d = expense.occurrenceAfter(d)) {
+                occurrences.add(new Occurrence(expense, d));
+            }
+        }
+        occurrences.sort(Comparator.comparing(Occurrence::getDueDate));
+        return occurrences;
+    }
+
+    /**
+     * Returns the due date of a monthly bill in the given month, clamping days past the
+     * end of the month (e.g. day 31 in April falls on the 30th).
+     */
+    public static LocalDate dueDateIn(YearMonth month, int dueDay) {
+        return month.atDay(Math.min(dueDay, month.lengthOfMonth()));
+    }
+
+    /**
+     * A single due date of a recurring expense.
+     */
+    public static class Occurrence {
+        private final RecurringExpense expense;
+        private final LocalDate dueDate;
+        private boolean posted;
+
+        public Occurrence(RecurringExpense expense, LocalDate dueDate) {
+            this.expense = expense;
+            this.dueDate = dueDate;
+        }
+
+        public RecurringExpense getExpense() {
+            return expense;
+        }
+
+        public LocalDate getDueDate() {
+            return dueDate;
+        }
+
+        public boolean isPosted() {
+            return posted;
+        }
+
+        void markPosted() {
+            this.posted = true;
+        }
+
+        @Override
+        public String toString() {
+            return "Occurrence{" +
+                    "expense=" + expense.getName() +
+                    ", dueDate=" + dueDate +
+                    ", posted=" + posted +
+                    '}';
+        }
+    }
+}
@@ -11,6 +11,9 @@ import java.util.Properties;
 public class SettingsService {
     private static final Path SETTINGS_PATH = Paths.get(System.getProperty("user.home"), ".finance_app.properties");
     private static final String THEME_KEY = "theme.dark";
+    private static final String DEBUG_LOG_KEY = "log.debug";
+    private static final String REPORTING_CURRENCY_KEY = "currency.reporting";
+    private static final String SYNC_DEVICE_KEY = "sync.device";
 
     public static boolean isDarkTheme() {
         Properties props = loadProps();
@@ -23,13 +26,49 @@ public class SettingsService {
         saveProps(props);
     }
 
+    public static boolean isDebugLogging() {
+        Properties props = loadProps();
+        return Boolean.parseBoolean(props.getProperty(DEBUG_LOG_KEY, "false"));
+    }
+
+    public static void setDebugLogging(boolean debug) {
+        Properties props = loadProps();
+        props.setProperty(DEBUG_LOG_KEY, Boolean.toString(debug));
+        saveProps(props);
+    }
+
+    public static String getReportingCurrency() {
+        Properties props = loadProps();
+        return props.getProperty(REPORTING_CURRENCY_KEY, FxRates.DEFAULT_CURRENCY);
+    }
+
+    public static void setReportingCurrency(String currency) {
+        Properties props = loadProps();
+        props.setProperty(REPORTING_CURRENCY_KEY, currency);
+        saveProps(props);
+    }
+
+    /**
+     * Random id of this machine for SyncEngine, created on first use.
+     */
+    public static synchronized String getSyncDeviceId() {
+        Properties props = loadProps();
+        String id = props.getProperty(SYNC_DEVICE_KEY);
+        if (id == null) {
+            id = java.util.UUID.randomUUID().toString().substring(0, 8);
+            props.setProperty(SYNC_DEVICE_KEY, id);
+            saveProps(props);
+        }
+        return id;
+    }
+
     private static Properties loadProps() {
         Properties props = new Properties();
         if (Files.exists(SETTINGS_PATH)) {
             try (InputStream in = Files.newInputStream(SETTINGS_PATH)) {
                 props.load(in);
             } catch (IOException e) {
-                System.err.println("SettingsService: Error loading settings: " + e.getMessage());
+                Log.warn("Error loading settings", e, "path", SETTINGS_PATH);
             }
         }
         return props;
@@ -44,7 +83,7 @@ public class SettingsService {
                 props.store(out, "Finance App Settings");
             }
         } catch (IOException e) {
-            System.err.println("SettingsService: Error saving settings: " + e.getMessage());
+            Log.warn("Error saving settings", e, "path", SETTINGS_PATH);
         }
     }
 }
@@ -0,0 +1,639 @@
+package com.finance;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Syncs the ledger between devices by exchanging only what changed.
+ *
+ * Triggers on the synced tables ({@link #TABLES}) keep one ChangeLog row per stored row:
+ * a random uid naming the row on every device, its local id, the sequence number of its
+ * last local change, when and on which device it last changed, and a tombstone flag once
+ * it is deleted. Every local change takes the next sequence number, so "everything since
+ * n" is one index range; since a row keeps only its latest entry, the log never grows past
+ * the size of the ledger.
+ *
+ * Transport is a shared directory (a synced folder, a USB stick). Each device writes its
+ * changes since its last export as one batch file under dir/&lt;device&gt;/ and applies the
+ * other devices' batches it has not seen; SyncPeers remembers how far it got with each.
+ * A batch holds one JSON object per changed row, references written as the uid of the
+ * referenced row and mapped back to local ids on arrival. Conflicts are settled per row by
+ * last writer wins on the change time, the device id breaking ties; a delete is a change
+ * like any other, and its tombstone keeps older updates from bringing the row back.
+ * Changes are applied with SyncControl.applying set, so the triggers do not log them again.
+ *
+ * Account balances are not synced as values, since two devices posting at once would
+ * overwrite each other: an account travels with its opening balance (balance minus its
+ * transactions, transfer legs and adjustments), and each applied transaction, leg or
+ * adjustment moves the local balance the way a local posting would. Setting or resetting
+ * a balance by hand is stored as a BalanceAdjustments row for that reason. The seeded
+ * accounts and categories have uids made from their names, so every device's copy is the
+ * same row. Recurring bills should be posted by one device
+ * only, or each device posts its own copy.
+ */
+public class SyncEngine {
+    static final String BATCH_SUFFIX = ".changes";
+    static final String NOW_SQL = "strftime('%Y-%m-%dT%H:%M:%fZ', 'now')";
+    // Milliseconds since the epoch then 80 random bits: unique, and new uids sort last, so
+    // logging a row appends to the ChangeLog b-tree instead of splitting pages all over it
+    static final String NEW_UID_SQL =
+            "printf('%012x', CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)) || lower(hex(randomblob(10)))";
+    private static final Pattern BATCH_NAME = Pattern.compile("(\\d+)-(\\d+)" + Pattern.quote(BATCH_SUFFIX));
+    private static final String INSTANCE_KEY = "sync.instance";
+
+    private static final String OPENING_BALANCE_SQL = """
+        t.balance
+            - COALESCE((SELECT SUM(CASE WHEN c.type = 'INCOME' THEN x.amount ELSE -x.amount END)
+                        FROM Transactions x LEFT JOIN Categories c ON c.id = x.category_id
+                        WHERE x.account_id = t.id), 0)
+            - COALESCE((SELECT SUM(l.amount) FROM JournalLegs l WHERE l.account_id = t.id), 0)
+            - COALESCE((SELECT SUM(b.amount) FROM BalanceAdjustments b WHERE b.account_id = t.id), 0)""";
+
+    /**
+     * Synced tables, each after the tables it references.
+     */
+    static final List<SyncTable> TABLES = List.of(
+        new SyncTable("Accounts", List.of("name", "type", "currency", "balance"),
+                Map.of(), Set.of("balance"), Map.of("balance", OPENING_BALANCE_SQL), null),
+        new SyncTable("Categories", List.of("name", "budget_limit", "type", "budget_period"),
+                Map.of(), Set.of(), Map.of(), null),
+        new SyncTable("Journal", List.of("date", "memo"),
+                Map.of(), Set.of(), Map.of(), null),
+        new SyncTable("Transactions", List.of("account_id", "category_id", "amount", "date", "note", "image_path"),
+                Map.of("account_id", "Accounts", "category_id", "Categories"), Set.of(), Map.of(), """
+                SELECT t.account_id, CASE WHEN c.type = 'INCOME' THEN t.amount ELSE -t.amount END
+                FROM Transactions t LEFT JOIN Categories c ON c.id = t.category_id
+                WHERE t.id = ?"""),
+        new SyncTable("RecurringExpenses", List.of("name", "amount", "due_day", "account_id", "category_id",
+                "frequency", "interval_count", "anchor_date", "next_due"),
+                Map.of("account_id", "Accounts", "category_id", "Categories"), Set.of(), Map.of(), null),
+        new SyncTable("JournalLegs", List.of("journal_id", "account_id", "amount"),
+                Map.of("journal_id", "Journal", "account_id", "Accounts"), Set.of(), Map.of(),
+                "SELECT account_id, amount FROM JournalLegs WHERE id = ?"),
+        new SyncTable("BalanceAdjustments", List.of("account_id", "amount", "date", "reason"),
+                Map.of("account_id", "Accounts"), Set.of(), Map.of(),
+                "SELECT account_id, amount FROM BalanceAdjustments WHERE id = ?"));
+
+    private static SyncEngine instance;
+
+    private final DatabaseWriter writer;
+    private final Supplier<Connection> connections;
+    private final String machineId;
+    private String deviceId;
+
+    SyncEngine(DatabaseWriter writer, Supplier<Connection> connections, String machineId) {
+        this.writer = writer;
+        this.connections = connections;
+        this.machineId = machineId;
+    }
+
+    public static synchronized SyncEngine getInstance() {
+        if (instance == null) {
+            instance = new SyncEngine(DatabaseWriter.getInstance(), DatabaseHelper.getInstance()::getConnection,
+                    SettingsService.getSyncDeviceId());
+        }
+        return instance;
+    }
+
+    /**
+     * Name of this device in sync directories: the machine plus a random id kept in the
+     * database, so a copy of finance.db on another machine, or an older copy put back, starts
+     * a sequence of its own instead of clashing with the original's.
+     */
+    public synchronized String getDeviceId() throws IOException {
+        if (deviceId == null) {
+            String id = submit("syncInstance", conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("INSERT OR IGNORE INTO AppState (key, value) VALUES ('" + INSTANCE_KEY
+                            + "', lower(hex(randomblob(4))))");
+                    try (ResultSet rs = stmt.executeQuery("SELECT value FROM AppState WHERE key = '" + INSTANCE_KEY + "'")) {
+                        return rs.getString(1);
+                    }
+                }
+            });
+            deviceId = machineId + "-" + id;
+        }
+        return deviceId;
+    }
+
+    /**
+     * Exports this device's new changes to {@code dir}, then applies every other device's
+     * changes found there.
+     */
+    public SyncResult sync(Path dir) throws IOException {
+        SyncResult result = new SyncResult();
+        export(dir, result);
+        importChanges(dir, result);
+        if (result.applied > 0) {
+            // The event is delivered later; totals read before then must not come from the cache
+            AggregateCache.getInstance().invalidateAll();
+            EventBus.getInstance().publish(new FinanceEvents.ExternalChangeEvent());
+        }
+        Log.info("Sync finished", "dir", dir, "sent", result.sent, "applied", result.applied,
+                "skipped", result.skipped, "unresolved", result.unresolved);
+        return result;
+    }
+
+    /**
+     * Writes the changes after this device's last export as one batch file.
+     */
+    void export(Path dir, SyncResult result) throws IOException {
+        String device = getDeviceId();
+        Path outbox = Files.createDirectories(dir.resolve(device));
+        Path tmp = Files.createTempFile(outbox, "batch", ".part");
+        long from;
+        long to;
+        try (Metrics.Op op = Metrics.op("syncExport"); Connection conn = connections.get();
+             BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            // One read transaction, so every table is read from the same snapshot. Begun by
+            // hand: pool connections begin IMMEDIATE, which takes the write lock
+            try (Statement begin = conn.createStatement()) {
+                begin.execute("BEGIN DEFERRED");
+            }
+            try {
+                from = peerSeq(conn, device);
+                to = from;
+                for (SyncTable table : TABLES) {
+                    try (PreparedStatement stmt = conn.prepareStatement(table.exportSql)) {
+                        stmt.setLong(1, from);
+                        ResultSet rs = stmt.executeQuery();
+                        while (rs.next()) {
+                            to = Math.max(to, rs.getLong("seq"));
+                            String line = exportLine(table, rs, device);
+                            if (line != null) {
+                                op.row();
+                                out.write(line);
+                                out.newLine();
+                                result.sent++;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                try (Statement end = conn.createStatement()) {
+                    end.execute("ROLLBACK");
+                }
+            }
+        } catch (SQLException | IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e instanceof IOException io ? io : new IOException("Error reading changes", e);
+        }
+        if (to == from) {
+            Files.delete(tmp);
+            return;
+        }
+        Path batch = outbox.resolve(from + "-" + to + BATCH_SUFFIX);
+        try {
+            Files.move(tmp, batch, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, batch, StandardCopyOption.REPLACE_EXISTING);
+        }
+        long exported = to;
+        submit("syncExported", conn -> {
+            setPeerSeq(conn, device, exported);
+            return null;
+        });
+    }
+
+    // One JSON object per row; null values are left out. Null when the row is gone.
+    private static String exportLine(SyncTable table, ResultSet rs, String device) throws SQLException {
+        boolean deleted = rs.getInt("deleted") != 0;
+        if (!deleted && rs.getObject("row_present") == null) {
+            return null;
+        }
+        String origin = rs.getString("origin");
+        StringBuilder sb = new StringBuilder(128)
+                .append("{\"uid\":").append(FinanceCli.jsonString(rs.getString("uid")))
+                .append(",\"table\":").append(FinanceCli.jsonString(table.name))
+                .append(",\"changedAt\":").append(FinanceCli.jsonString(rs.getString("changed_at")))
+                .append(",\"origin\":").append(FinanceCli.jsonString(origin.isEmpty() ? device : origin))
+                .append(",\"deleted\":").append(deleted);
+        if (!deleted) {
+            for (String column : table.columns) {
+                Object value = rs.getObject(column);
+                if (value != null) {
+                    sb.append(",\"").append(column).append("\":")
+                      .append(value instanceof String s ? FinanceCli.jsonString(s) : value.toString());
+                }
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Applies, in order, the batches of every other device that are newer than what was
+     * applied from it before. Each batch is one writer command, so it applies fully or not
+     * at all.
+     */
+    void importChanges(Path dir, SyncResult result) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        String device = getDeviceId();
+        List<Path> peers;
+        try (Stream<Path> s = Files.list(dir)) {
+            peers = s.filter(Files::isDirectory).filter(p -> !p.getFileName().toString().equals(device)).sorted().toList();
+        }
+        for (Path peer : peers) {
+            String peerId = peer.getFileName().toString();
+            long last;
+            try (Connection conn = connections.get()) {
+                last = peerSeq(conn, peerId);
+            } catch (SQLException e) {
+                throw new IOException("Error reading sync state", e);
+            }
+            for (Batch batch : batches(peer, last)) {
+                if (batch.from > last) {
+                    Log.warn("Sync batches missing", "device", peerId, "after", last, "next", batch.from);
+                }
+                result.add(apply(peerId, batch));
+                last = batch.to;
+            }
+        }
+    }
+
+    private static List<Batch> batches(Path peer, long after) throws IOException {
+        List<Batch> batches = new ArrayList<>();
+        try (Stream<Path> s = Files.list(peer)) {
+            for (Path p : (Iterable<Path>) s::iterator) {
+                Matcher m = BATCH_NAME.matcher(p.getFileName().toString());
+                if (m.matches() && Long.parseLong(m.group(2)) > after) {
+                    batches.add(new Batch(p, Long.parseLong(m.group(1)), Long.parseLong(m.group(2))));
+                }
+            }
+        }
+        batches.sort(Comparator.comparingLong((Batch b) -> b.to).thenComparingLong(b -> b.from));
+        return batches;
+    }
+
+    private SyncResult apply(String peer, Batch batch) throws IOException {
+        return submit("syncApply", conn -> {
+            SyncResult counts = new SyncResult(); // fresh on every attempt, the writer may retry
+            try (Metrics.Op op = Metrics.op("syncApply"); Statement stmt = conn.createStatement();
+                 Applier applier = new Applier(conn);
+                 BufferedReader in = Files.newBufferedReader(batch.path, StandardCharsets.UTF_8)) {
+                stmt.executeUpdate("UPDATE SyncControl SET applying = 1");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        op.row();
+                        applier.apply(ApiServer.parseJsonObject(line), counts);
+                    }
+                }
+                stmt.executeUpdate("UPDATE SyncControl SET applying = 0");
+            } catch (IOException | IllegalArgumentException e) {
+                throw new SQLException("Bad sync batch " + batch.path, e);
+            }
+            setPeerSeq(conn, peer, batch.to);
+            return counts;
+        });
+    }
+
+    private static long peerSeq(Connection conn, String device) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT seq FROM SyncPeers WHERE device = ?")) {
+            stmt.setString(1, device);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static void setPeerSeq(Connection conn, String device, long seq) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO SyncPeers (device, seq, synced_at) VALUES (?, ?, " + NOW_SQL + ") "
+                + "ON CONFLICT (device) DO UPDATE SET seq = excluded.seq, synced_at = excluded.synced_at")) {
+            stmt.setString(1, device);
+            stmt.setLong(2, seq);
+            stmt.executeUpdate();
+        }
+    }
+
+    private <T> T submit(String name, DatabaseWriter.Command<T> command) throws IOException {
+        try {
+            return writer.submit(name, command).join();
+        } catch (CompletionException e) {
+            throw new IOException("Sync failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Applies remote changes on the writer connection; statements are prepared once per batch.
+     */
+    private final class Applier implements AutoCloseable {
+        private final Connection conn;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        Applier(Connection conn) {
+            this.conn = conn;
+        }
+
+        void apply(Map<String, String> change, SyncResult counts) throws SQLException {
+            SyncTable table = SyncTable.named(change.get("table"));
+            String uid = change.get("uid");
+            String changedAt = change.get("changedAt");
+            String origin = change.get("origin");
+            if (uid == null || changedAt == null || origin == null) {
+                throw new IllegalArgumentException("change without uid, changedAt or origin");
+            }
+            if (table == null) {
+                counts.unresolved++; // written by a newer version
+                return;
+            }
+            PreparedStatement find = statement("SELECT row_id, changed_at, origin, deleted FROM ChangeLog WHERE uid = ?");
+            find.setString(1, uid);
+            long rowId = 0;
+            boolean known;
+            boolean liveRow = false;
+            try (ResultSet rs = find.executeQuery()) {
+                known = rs.next();
+                if (known) {
+                    String localOrigin = rs.getString("origin");
+                    if (!isNewer(changedAt, origin, rs.getString("changed_at"), localOrigin.isEmpty() ? deviceId : localOrigin)) {
+                        counts.skipped++;
+                        return;
+                    }
+                    rowId = rs.getLong("row_id");
+                    liveRow = rs.getInt("deleted") == 0;
+                }
+            }
+
+            boolean deleted = Boolean.parseBoolean(change.get("deleted"));
+            if (deleted) {
+                if (liveRow) {
+                    moveBalance(table, rowId, -1);
+                    PreparedStatement delete = statement("DELETE FROM " + table.name + " WHERE id = ?");
+                    delete.setLong(1, rowId);
+                    delete.executeUpdate();
+                }
+                log(known, uid, table, rowId, changedAt, origin, true);
+                counts.applied++;
+                return;
+            }
+
+            Object[] values = new Object[table.columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                String column = table.columns.get(i);
+                String value = change.get(column);
+                if (value != null && table.references.containsKey(column)) {
+                    Long id = localId(value);
+                    if (id == null) {
+                        Log.warn("Sync change references an unknown row", "table", table.name, "uid", uid, column, value);
+                        counts.unresolved++;
+                        return;
+                    }
+                    values[i] = id;
+                } else {
+                    values[i] = value;
+                }
+            }
+            if (liveRow) {
+                moveBalance(table, rowId, -1);
+                PreparedStatement update = statement(table.updateSql);
+                int p = 1;
+                for (int i = 0; i < values.length; i++) {
+                    if (!table.insertOnly.contains(table.columns.get(i))) {
+                        update.setObject(p++, values[i]);
+                    }
+                }
+                update.setLong(p, rowId);
+                update.executeUpdate();
+            } else {
+                PreparedStatement insert = statement(table.insertSql);
+                for (int i = 0; i < values.length; i++) {
+                    insert.setObject(i + 1, values[i]);
+                }
+                try (ResultSet rs = insert.executeQuery()) {
+                    rowId = rs.getLong(1);
+                }
+            }
+            moveBalance(table, rowId, 1);
+            log(known, uid, table, rowId, changedAt, origin, false);
+            counts.applied++;
+        }
+
+        // Local id of the row with this uid, or null if it is unknown or was never stored here
+        private Long localId(String uid) throws SQLException {
+            PreparedStatement find = statement("SELECT row_id FROM ChangeLog WHERE uid = ? AND row_id > 0");
+            find.setString(1, uid);
+            try (ResultSet rs = find.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+
+        // Adds (sign 1) or takes back (sign -1) the row's effect on its account balance
+        private void moveBalance(SyncTable table, long rowId, int sign) throws SQLException {
+            if (table.balanceSql == null) {
+                return;
+            }
+            PreparedStatement effect = statement(table.balanceSql);
+            effect.setLong(1, rowId);
+            try (ResultSet rs = effect.executeQuery()) {
+                if (!rs.next() || rs.getObject(1) == null) {
+                    return;
+                }
+                PreparedStatement update = statement("UPDATE Accounts SET balance = balance + ?, version = version + 1 WHERE id = ?");
+                update.setDouble(1, sign * rs.getDouble(2));
+                update.setLong(2, rs.getLong(1));
+                update.executeUpdate();
+            }
+        }
+
+        private void log(boolean known, String uid, SyncTable table, long rowId, String changedAt, String origin,
+                         boolean deleted) throws SQLException {
+            PreparedStatement stmt = known
+                    ? statement("UPDATE ChangeLog SET row_id = ?, changed_at = ?, origin = ?, deleted = ? WHERE uid = ?")
+                    // seq 0: a remote change is not exported again
+                    : statement("INSERT INTO ChangeLog (row_id, changed_at, origin, deleted, uid, tbl, seq) VALUES (?, ?, ?, ?, ?, ?, 0)");
+            stmt.setLong(1, rowId);
+            stmt.setString(2, changedAt);
+            stmt.setString(3, origin);
+            stmt.setInt(4, deleted ? 1 : 0);
+            stmt.setString(5, uid);
+            if (!known) {
+                stmt.setString(6, table.name);
+            }
+            stmt.executeUpdate();
+        }
+
+        private PreparedStatement statement(String sql) throws SQLException {
+            PreparedStatement stmt = statements.get(sql);
+            if (stmt == null) {
+                stmt = conn.prepareStatement(sql);
+                statements.put(sql, stmt);
+            }
+            return stmt;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            for (PreparedStatement stmt : statements.values()) {
+                stmt.close();
+            }
+        }
+    }
+
+    /**
+     * True if the incoming change (changedAt, origin) wins over the stored one.
+     */
+    static boolean isNewer(String changedAt, String origin, String localChangedAt, String localOrigin) {
+        int c = changedAt.compareTo(localChangedAt);
+        return c != 0 ? c > 0 : origin.compareTo(localOrigin) > 0;
+    }
+
+    /**
+     * Counts of one sync run.
+     */
+    public static class SyncResult {
+        private int sent;
+        private int applied;
+        private int skipped;
+        private int unresolved;
+
+        void add(SyncResult other) {
+            sent += other.sent;
+            applied += other.applied;
+            skipped += other.skipped;
+            unresolved += other.unresolved;
+        }
+
+        /** Changed rows written for other devices. */
+        public int getSent() {
+            return sent;
+        }
+
+        /** Remote changes applied here. */
+        public int getApplied() {
+            return applied;
+        }
+
+        /** Remote changes older than what is stored here. */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /** Remote changes dropped because they reference rows this device never had. */
+        public int getUnresolved() {
+            return unresolved;
+        }
+    }
+
+    private static final class Batch {
+        final Path path;
+        final long from;
+        final long to;
+
+        Batch(Path path, long from, long to) {
+            this.path = path;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * A synced table and the SQL derived from it.
+     */
+    static final class SyncTable {
+        final String name;
+        final List<String> columns;
+        // Column -> referenced table; values travel as the referenced row's uid
+        final Map<String, String> references;
+        // Sent with every change but only written when the row is created here
+        final Set<String> insertOnly;
+        // (account id, balance change) of one row, for tables that move balances
+        final String balanceSql;
+        final String exportSql;
+        final String insertSql;
+        final String updateSql;
+
+        SyncTable(String name, List<String> columns, Map<String, String> references, Set<String> insertOnly,
+                  Map<String, String> exportExpressions, String balanceSql) {
+            this.name = name;
+            this.columns = columns;
+            this.references = references;
+            this.insertOnly = insertOnly;
+            this.balanceSql = balanceSql;
+
+            StringBuilder select = new StringBuilder("SELECT c.uid, c.seq, c.changed_at, c.origin, c.deleted, t.id AS row_present");
+            for (String column : columns) {
+                String ref = references.get(column);
+                String expr = ref != null
+                        ? "(SELECT r.uid FROM ChangeLog r WHERE r.tbl = '" + ref + "' AND r.row_id = t." + column
+                          + " ORDER BY r.deleted LIMIT 1)"
+                        : exportExpressions.getOrDefault(column, "t." + column);
+                select.append(",\n    ").append(expr).append(" AS ").append(column);
+            }
+            exportSql = select + "\nFROM ChangeLog c LEFT JOIN " + name + " t ON t.id = c.row_id AND c.deleted = 0"
+                    + "\nWHERE c.tbl = '" + name + "' AND c.seq > ?\nORDER BY c.seq";
+            insertSql = "INSERT INTO " + name + " (" + String.join(", ", columns) + ") VALUES ("
+                    + String.join(", ", columns.stream().map(c -> "?").toList()) + ") RETURNING id";
+            updateSql = "UPDATE " + name + " SET "
+                    + String.join(", ", tracked().stream().map(c -> c + " = ?").toList()) + " WHERE id = ?";
+        }
+
+        static SyncTable named(String name) {
+            for (SyncTable t : TABLES) {
+                if (t.name.equals(name)) {
+                    return t;
+                }
+            }
+            return null;
+        }
+
+        // Columns whose local changes are logged
+        List<String> tracked() {
+            return columns.stream().filter(c -> !insertOnly.contains(c)).toList();
+        }
+
+        /**
+         * Change capture triggers; they do nothing while SyncControl.applying is set.
+         */
+        List<String> triggerSql() {
+            String prefix = "trg_" + name.toLowerCase() + "_sync_";
+            String when = "WHEN (SELECT applying FROM SyncControl) = 0\n";
+            String live = "tbl = '" + name + "' AND row_id = %s.id AND deleted = 0";
+            // Sequence numbers continue from the largest one logged; ChangeLog never loses rows
+            String next = "(SELECT COALESCE(MAX(seq), 0) + 1 FROM ChangeLog)";
+            return List.of(
+                "CREATE TRIGGER IF NOT EXISTS " + prefix + "insert AFTER INSERT ON " + name + "\n" + when + """
+                BEGIN
+                    INSERT INTO ChangeLog (uid, tbl, row_id, seq, changed_at, origin, deleted)
+                        VALUES (%s, '%s', new.id, %s, %s, '', 0);
+                END""".formatted(NEW_UID_SQL, name, next, NOW_SQL),
+                "CREATE TRIGGER IF NOT EXISTS " + prefix + "update AFTER UPDATE OF " + String.join(", ", tracked())
+                        + " ON " + name + "\n" + when + """
+                BEGIN
+                    INSERT INTO ChangeLog (uid, tbl, row_id, seq, changed_at, origin, deleted)
+                        SELECT %s, '%s', new.id, 0, '', '', 0
+                        WHERE NOT EXISTS (SELECT 1 FROM ChangeLog WHERE %s);
+                    UPDATE ChangeLog SET seq = %s, changed_at = %s, origin = ''
+                        WHERE %s;
+                END""".formatted(NEW_UID_SQL, name, live.formatted("new"), next, NOW_SQL, live.formatted("new")),
+                "CREATE TRIGGER IF NOT EXISTS " + prefix + "delete AFTER DELETE ON " + name + "\n" + when + """
+                BEGIN
+                    UPDATE ChangeLog SET deleted = 1, seq = %s, changed_at = %s, origin = ''
+                        WHERE %s;
+                END""".formatted(next, NOW_SQL, live.formatted("old")));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.finance;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds imported transactions that are already stored, so re-importing an overlapping
+ * statement posts nothing twice.
+ *
+ * Every stored transaction carries a fingerprint of its account, amount in cents and
+ * normalized note; the date is left out so the same fingerprint finds date-shifted
+ * copies. Each imported row costs one lookup on the (fingerprint, date) index, so an
+ * import reads only the rows it may collide with. A candidate on the same day matches
+ * first, else the nearest one within {@link #FUZZY_DAYS}; rows without a note match on
+ * the same day only, since two note-less payments of one amount a few days apart are
+ * more likely two payments than one booked late. Each stored row absorbs at most one
+ * imported row, so a file with two genuine identical rows imports both the first time
+ * and neither the second time.
+ *
+ * Lives for one import inside its writer command, so nothing can be inserted between
+ * the check and the insert.
+ */
+public class TransactionDeduplicator implements AutoCloseable {
+    // Bank statements may book a transaction a few days after it happened
+    static final int FUZZY_DAYS = 3;
+
+    private final Connection conn;
+    private final Set<Integer> claimed = new HashSet<>();
+    private final PreparedStatement candidates;
+
+    /**
+     * Fingerprints stored rows that have none yet; the index finds them.
+     */
+    public TransactionDeduplicator(Connection conn) throws SQLException {
+        this.conn = conn;
+        backfill();
+        candidates = conn.prepareStatement(
+                "SELECT id, date FROM Transactions WHERE fingerprint = ? AND date BETWEEN ? AND ?");
+    }
+
+    /**
+     * True if {@code t} is already stored; the stored row is then used up.
+     */
+    public boolean isDuplicate(Transaction t) throws SQLException {
+        int window = normalizeNote(t.getNote()).isEmpty() ? 0 : FUZZY_DAYS;
+        candidates.setLong(1, fingerprint(t.getAccountId(), t.getAmount(), t.getNote()));
+        candidates.setString(2, t.getDate().minusDays(window).toString());
+        candidates.setString(3, t.getDate().plusDays(window).toString());
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        try (ResultSet rs = candidates.executeQuery()) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                long distance = Math.abs(LocalDate.parse(rs.getString(2)).toEpochDay() - t.getDate().toEpochDay());
+                if (!claimed.contains(id) && distance < bestDistance) {
+                    best = id;
+                    bestDistance = distance;
+                }
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+        claimed.add(best);
+        Metrics.getInstance().increment(bestDistance == 0 ? "import.duplicates" : "import.duplicates.fuzzy", 1);
+        return true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        candidates.close();
+    }
+
+    /**
+     * Hash of account, amount in cents and normalized note. Stable across runs, since it
+     * is stored in the database.
+     */
+    public static long fingerprint(int accountId, double amount, String note) {
+        long h = 0xcbf29ce484222325L; // FNV-1a 64
+        h = fnv(h, accountId);
+        h = fnv(h, Math.round(amount * 100));
+        for (byte b : normalizeNote(note).getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Lower-cases the note and collapses every run of non-alphanumerics into one space,
+     * so "ACME  Corp." and "acme corp" compare equal.
+     */
+    static String normalizeNote(String note) {
+        if (note == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(note.length());
+        boolean gap = false;
+        for (int i = 0; i < note.length(); i++) {
+            char ch = note.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                if (gap && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(Character.toLowerCase(ch));
+                gap = false;
+            } else {
+                gap = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long fnv(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h ^= (value >>> (i * 8)) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // Rows added outside imports (the entry form, recurring bills, other tools) have no fingerprint yet
+    private void backfill() throws SQLException {
+        try (Metrics.Op op = Metrics.op("backfillFingerprints");
+             PreparedStatement select = conn.prepareStatement(
+                 "SELECT id, account_id, amount, note FROM Transactions WHERE fingerprint IS NULL");
+             PreparedStatement update = conn.prepareStatement("UPDATE Transactions SET fingerprint = ? WHERE id = ?")) {
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    op.row();
+                    update.setLong(1, fingerprint(rs.getInt(2), rs.getDouble(3), rs.getString(4)));
+                    update.setInt(2, rs.getInt(1));
+                    update.addBatch();
+                }
+            }
+            update.executeBatch();
+        }
+    }
+}
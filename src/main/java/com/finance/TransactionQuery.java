@@ -0,0 +1,84 @@
+package com.finance;
+
+import java.time.YearMonth;
+
+/**
+ * Filter and sort order for paged transaction listings. Sorting is always completed by
+ * transaction id so every row has a unique (sort value, id) keyset position.
+ */
+public class TransactionQuery {
+    public enum SortColumn {
+        DATE("t.date"),
+        AMOUNT("t.amount");
+
+        private final String sql;
+
+        SortColumn(String sql) {
+            this.sql = sql;
+        }
+
+        String sql() {
+            return sql;
+        }
+    }
+
+    private YearMonth month;      // null for all months
+    private int accountId;        // 0 for all accounts
+    private int categoryId;       // 0 for all categories
+    private SortColumn sortColumn = SortColumn.DATE;
+    private boolean ascending;
+
+    public TransactionQuery() {
+    }
+
+    public TransactionQuery(YearMonth month, int accountId, int categoryId, SortColumn sortColumn, boolean ascending) {
+        this.month = month;
+        this.accountId = accountId;
+        this.categoryId = categoryId;
+        this.sortColumn = sortColumn != null ? sortColumn : SortColumn.DATE;
+        this.ascending = ascending;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public SortColumn getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public TransactionQuery withMonth(YearMonth month) {
+        return new TransactionQuery(month, accountId, categoryId, sortColumn, ascending);
+    }
+
+    public TransactionQuery withCategory(int categoryId) {
+        return new TransactionQuery(month, accountId, categoryId, sortColumn, ascending);
+    }
+
+    public TransactionQuery withSort(SortColumn sortColumn, boolean ascending) {
+        return new TransactionQuery(month, accountId, categoryId, sortColumn, ascending);
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionQuery{" +
+                "month=" + month +
+                ", accountId=" + accountId +
+                ", categoryId=" + categoryId +
+                ", sortColumn=" + sortColumn +
+                ", ascending=" + ascending +
+                '}';
+    }
+}
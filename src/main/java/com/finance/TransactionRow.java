@@ -0,0 +1,72 @@
+package com.finance;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only transaction joined with its account and category names, as shown in lists.
+ */
+public class TransactionRow {
+    private final int id;
+    private final LocalDate date;
+    private final double amount;
+    private final String note;
+    private final String imagePath;
+    private final String accountName;
+    private final String categoryName;
+    private final CategoryType categoryType;
+
+    public TransactionRow(int id, LocalDate date, double amount, String note, String imagePath,
+                          String accountName, String categoryName, CategoryType categoryType) {
+        this.id = id;
+        this.date = date;
+        this.amount = amount;
+        this.note = note;
+        this.imagePath = imagePath;
+        this.accountName = accountName;
+        this.categoryName = categoryName;
+        this.categoryType = categoryType;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public CategoryType getCategoryType() {
+        return categoryType;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionRow{" +
+                "id=" + id +
+                ", date=" + date +
+                ", amount=" + amount +
+                ", accountName='" + accountName + '\'' +
+                ", categoryName='" + categoryName + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class AggregateCacheTest {
+    private static final YearMonth MARCH = YearMonth.of(2026, 3);
+    private static final YearMonth APRIL = YearMonth.of(2026, 4);
+
+    @Test
+    public void testInvalidationAndEviction() {
+        AggregateCache cache = new AggregateCache(3);
+        cache.put("totals", MARCH, Map.of("Groceries", 10.0), cache.generation());
+        cache.put("counts", MARCH, 4, cache.generation());
+        cache.put("totals", APRIL, Map.of("Rent", 900.0), cache.generation());
+        assertEquals(Map.of("Groceries", 10.0), cache.get("totals", MARCH));
+        assertNull(cache.get("totals", YearMonth.of(2026, 5)));
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+
+        cache.invalidate(MARCH);
+        assertNull(cache.get("totals", MARCH));
+        assertNull(cache.get("counts", MARCH), "Every query for the month is dropped");
+        assertNotNull(cache.get("totals", APRIL), "Other months stay");
+
+        // April was used last, so the earliest of the others goes first
+        cache.put("a", MARCH, 1, cache.generation());
+        cache.put("b", MARCH, 2, cache.generation());
+        cache.get("totals", APRIL);
+        cache.put("c", MARCH, 3, cache.generation());
+        assertEquals(3, cache.size());
+        assertNull(cache.get("a", MARCH));
+        assertNotNull(cache.get("totals", APRIL));
+    }
+
+    @Test
+    public void testResultReadBeforeAWriteIsNotStored() {
+        AggregateCache cache = new AggregateCache(10);
+        long generation = cache.generation();
+        // A write to another month commits while this month's query is running
+        cache.invalidate(APRIL);
+        cache.put("totals", MARCH, Map.of("Groceries", 10.0), generation);
+        assertNull(cache.get("totals", MARCH));
+
+        cache.put("totals", MARCH, Map.of("Groceries", 10.0), cache.generation());
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,107 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ApiServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ApiServer server;
+
+    @BeforeEach
+    public void start() throws Exception {
+        DatabaseHelper.getInstance().initializeDatabase();
+        server = new ApiServer(new FinanceService(), 0, 1);
+        server.start();
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop();
+    }
+
+    private HttpResponse<String> get(String path, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path));
+        if (ifNoneMatch != null) {
+            b.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(b.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testListsAndETag() throws Exception {
+        HttpResponse<String> accounts = get("/api/accounts", null);
+        assertEquals(200, accounts.statusCode());
+        assertTrue(accounts.body().startsWith("[") && accounts.body().endsWith("]"));
+
+        HttpResponse<String> tx = get("/api/transactions?month=all", null);
+        assertEquals(200, tx.statusCode());
+        assertTrue(tx.body().trim().endsWith("]"), "Streamed list is complete");
+
+        String path = "/api/aggregates?month=" + YearMonth.now();
+        HttpResponse<String> first = get(path, null);
+        assertEquals(200, first.statusCode());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> again = get(path, etag);
+        assertEquals(304, again.statusCode());
+        assertEquals("", again.body());
+
+        assertEquals(400, get("/api/aggregates?month=May", null).statusCode());
+    }
+
+    @Test
+    public void testWritesAreRejectedWhenTooManyArePending() throws Exception {
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        server.submitWrite(() -> pending); // takes the only permit
+        try {
+            HttpResponse<String> rejected = post("/api/transactions", "{\"accountId\":1,\"categoryId\":1,\"amount\":1}");
+            assertEquals(503, rejected.statusCode());
+            assertEquals(ApiServer.RETRY_AFTER_SECONDS, rejected.headers().firstValue("Retry-After").orElse(null));
+        } finally {
+            pending.complete(null);
+        }
+
+        assertEquals(400, post("/api/transactions", "{\"accountId\":1}").statusCode());
+    }
+
+    @Test
+    public void testRejectsAmountsThatAreNotFinite() throws Exception {
+        for (String amount : new String[] {"\"NaN\"", "\"Infinity\"", "1e999", "0", "-5"}) {
+            assertEquals(400, post("/api/transactions",
+                    "{\"accountId\":1,\"categoryId\":1,\"amount\":" + amount + "}").statusCode(), amount);
+            assertEquals(400, post("/api/transfers",
+                    "{\"fromAccountId\":1,\"toAccountId\":2,\"amount\":" + amount + "}").statusCode(), amount);
+        }
+        HttpResponse<String> balance = client.send(HttpRequest.newBuilder(
+                        URI.create("http://127.0.0.1:" + server.getPort() + "/api/accounts"))
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"id\":1,\"version\":0,\"balance\":\"NaN\"}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, balance.statusCode());
+    }
+
+    @Test
+    public void testParseJsonObject() {
+        Map<String, String> m = ApiServer.parseJsonObject(" {\"a\": 1.5, \"b\":\"x\\\"y\\u0041\", \"c\":null, \"d\":true} ");
+        assertEquals("1.5", m.get("a"));
+        assertEquals("x\"yA", m.get("b"));
+        assertFalse(m.containsKey("c"));
+        assertEquals("true", m.get("d"));
+        assertThrows(IllegalArgumentException.class, () -> ApiServer.parseJsonObject("{\"a\":[1]}"));
+        assertThrows(IllegalArgumentException.class, () -> ApiServer.parseJsonObject("{\"a\":1"));
+    }
+}
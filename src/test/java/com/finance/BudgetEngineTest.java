@@ -0,0 +1,90 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class BudgetEngineTest {
+
+    private static Category category(int id, String name, double limit, CategoryType type, BudgetPeriod period) {
+        Category c = new Category(id, name, limit, type);
+        c.setBudgetPeriod(period);
+        return c;
+    }
+
+    @Test
+    public void testPeriodsAndRecording() {
+        LocalDate today = LocalDate.of(2026, 3, 12); // a Thursday
+        Map<Integer, Map<LocalDate, Double>> daily = new HashMap<>();
+        Map<LocalDate, Double> groceries = new HashMap<>();
+        groceries.put(LocalDate.of(2026, 2, 20), 100.0);
+        groceries.put(LocalDate.of(2026, 3, 2), 50.0);
+        groceries.put(LocalDate.of(2026, 3, 10), 25.0);
+        daily.put(1, groceries);
+        daily.put(2, new HashMap<>(groceries));
+        daily.put(3, new HashMap<>(groceries));
+
+        BudgetEngine engine = new BudgetEngine();
+        engine.load(List.of(
+                category(1, "Groceries", 200.0, CategoryType.EXPENSE, BudgetPeriod.MONTHLY),
+                category(2, "Weekly", 40.0, CategoryType.EXPENSE, BudgetPeriod.WEEKLY),
+                category(3, "Rolling", 500.0, CategoryType.EXPENSE, BudgetPeriod.ROLLING_30),
+                category(4, "Salary", 0.0, CategoryType.INCOME, BudgetPeriod.MONTHLY)), daily, today);
+
+        assertEquals(75.0, engine.status(1, today).getSpent(), 1e-9);
+        assertEquals(25.0, engine.status(2, today).getSpent(), 1e-9);
+        assertEquals(175.0, engine.status(3, today).getSpent(), 1e-9);
+        assertNull(engine.status(4, today), "Income categories have no budget");
+
+        engine.record(2, today, 10.0);
+        assertEquals(35.0, engine.status(2, today).getSpent(), 1e-9);
+        assertFalse(engine.status(2, today).wouldExceed(5.0));
+        assertTrue(engine.status(2, today).wouldExceed(5.01));
+
+        // Next Monday starts a new week; the rolling window drops Feb 20 after Mar 21
+        LocalDate nextWeek = LocalDate.of(2026, 3, 16);
+        assertEquals(0.0, engine.status(2, nextWeek).getSpent(), 1e-9);
+        assertEquals(75.0, engine.status(3, LocalDate.of(2026, 3, 22)).getSpent(), 1e-9);
+
+        List<BudgetStatus> all = engine.snapshot(today);
+        assertEquals(3, all.size());
+        assertEquals("Groceries", all.get(0).getCategoryName());
+    }
+
+    @Test
+    public void testNewMonthResetsMonthlySpend() {
+        LocalDate today = LocalDate.of(2026, 1, 31);
+        BudgetEngine engine = new BudgetEngine();
+        engine.load(List.of(category(1, "Utilities", 100.0, CategoryType.EXPENSE, BudgetPeriod.MONTHLY)),
+                new HashMap<>(), today);
+        engine.record(1, today, 90.0);
+
+        assertTrue(engine.status(1, today).wouldExceed(20.0));
+        assertFalse(engine.status(1, LocalDate.of(2026, 2, 1)).wouldExceed(20.0));
+
+        engine.updateBudget(1, 10.0, BudgetPeriod.MONTHLY);
+        assertTrue(engine.status(1, LocalDate.of(2026, 2, 1)).wouldExceed(20.0));
+    }
+
+    @Test
+    public void testFutureDatedTransactionsDoNotMoveTheWindow() {
+        LocalDate today = LocalDate.of(2026, 3, 12);
+        Map<Integer, Map<LocalDate, Double>> daily = new HashMap<>();
+        daily.put(1, new HashMap<>(Map.of(LocalDate.of(2026, 3, 2), 50.0, LocalDate.of(2026, 5, 1), 30.0)));
+        BudgetEngine engine = new BudgetEngine();
+        engine.load(List.of(category(1, "Rent", 1000.0, CategoryType.EXPENSE, BudgetPeriod.MONTHLY)), daily, today);
+
+        engine.record(1, today.plusDays(3), 20.0);
+        engine.record(1, today.plusDays(40), 500.0);
+        assertEquals(50.0, engine.status(1, today).getSpent(), 1e-9, "Spend so far this month is kept");
+
+        assertEquals(70.0, engine.status(1, today.plusDays(3)).getSpent(), 1e-9, "Counts once its day comes");
+        assertEquals(500.0, engine.status(1, today.plusDays(40)).getSpent(), 1e-9);
+        assertEquals(30.0, engine.status(1, LocalDate.of(2026, 5, 1)).getSpent(), 1e-9);
+    }
+}
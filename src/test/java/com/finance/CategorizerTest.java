@@ -0,0 +1,86 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CategorizerTest {
+    private static final int GROCERIES = 1;
+    private static final int TRANSPORT = 2;
+    private static final int DINING = 3;
+
+    private static List<Category> categories() {
+        List<Category> categories = new ArrayList<>();
+        categories.add(new Category(GROCERIES, "Groceries", 0, CategoryType.EXPENSE));
+        categories.add(new Category(TRANSPORT, "Transport", 0, CategoryType.EXPENSE));
+        categories.add(new Category(DINING, "Dining", 0, CategoryType.EXPENSE));
+        return categories;
+    }
+
+    private static Categorizer withRules() throws Exception {
+        Categorizer c = new Categorizer();
+        c.loadRules(new StringReader("""
+            # comment
+            groc*, market = Groceries
+            bus, uber = Transport
+            uber eats = Dining
+            """));
+        return c;
+    }
+
+    @Test
+    public void testRulesMatchLongestWholeWordOrPrefix() throws Exception {
+        Categorizer c = withRules();
+        c.load(categories(), new int[0], List.of());
+        assertEquals(GROCERIES, c.classify("Weekly GROCERY run"));
+        assertEquals(TRANSPORT, c.classify("uber to the airport"));
+        assertEquals(DINING, c.classify("Uber Eats order"), "Longest keyword wins");
+        assertEquals(DINING, c.classify("dinner - dining out"), "Category names are keywords");
+        assertEquals(-1, c.classify("rebus puzzle"), "Keywords only match at the start of a word");
+        assertEquals(GROCERIES, c.classify("farmers market, saturday"));
+        assertEquals(-1, c.classify("business lunch"), "Keywords only match whole words");
+        assertEquals(-1, c.classify("marketing agency fee"));
+        assertEquals(-1, c.classify("supergrocer"), "A prefix keyword still starts a word");
+        assertEquals(-1, c.classify(null));
+    }
+
+    @Test
+    public void testModelLearnsFromLabelledNotesIncrementally() throws Exception {
+        Categorizer c = withRules();
+        List<String> notes = new ArrayList<>();
+        int[] labels = new int[12];
+        for (int i = 0; i < 6; i++) {
+            labels[notes.size()] = GROCERIES;
+            notes.add("Aldi weekly shop " + i);
+            labels[notes.size()] = DINING;
+            notes.add("Pizza place with friends " + i);
+        }
+        c.load(categories(), labels, notes);
+        assertEquals(GROCERIES, c.classify("aldi"));
+        assertEquals(DINING, c.classify("pizza night"));
+        assertEquals(-1, c.classify("something unseen"), "Unknown words give no suggestion");
+
+        assertEquals(-1, c.classify("ferry ticket"));
+        for (int i = 0; i < 5; i++) {
+            c.learn(TRANSPORT, "ferry ticket");
+        }
+        assertEquals(TRANSPORT, c.classify("ferry to the island"));
+
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            batch.add(i % 2 == 0 ? "aldi run" : "bus pass");
+        }
+        int[] ids = c.classifyAll(batch);
+        assertEquals(GROCERIES, ids[0]);
+        assertEquals(TRANSPORT, ids[99_999]);
+    }
+
+    @Test
+    public void testWords() {
+        assertEquals(List.of("ab", "c3", "café"), Categorizer.words("AB x 123 c3, Café!"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CategoryIconResolverTest {
+
+    @Test
+    public void testRulesAreMatchedInOrderAndCached() throws Exception {
+        CategoryIconResolver resolver = new CategoryIconResolver();
+        resolver.loadRules(new StringReader("# comment\ngroc = fas-shopping-cart\ntrans, uber = fas-car\nbad line\n"));
+
+        Category groceries = new Category(1, "Weekly Groceries", 100.0, CategoryType.EXPENSE);
+        Category uber = new Category(2, "Uber rides", 50.0, CategoryType.EXPENSE);
+        Category other = new Category(3, "Gifts", 50.0, CategoryType.EXPENSE);
+        resolver.prepare(List.of(groceries, uber, other));
+
+        assertEquals("fas-shopping-cart", resolver.iconFor(groceries));
+        assertEquals("fas-car", resolver.iconFor(uber));
+        assertEquals(CategoryIconResolver.DEFAULT_ICON, resolver.iconFor(other));
+        assertEquals(CategoryIconResolver.DEFAULT_ICON, resolver.iconFor(null));
+    }
+
+    @Test
+    public void testBundledRules() {
+        CategoryIconResolver resolver = CategoryIconResolver.loadDefault();
+        assertEquals("fas-lightbulb", resolver.iconFor(new Category(9, "Utilities", 0.0, CategoryType.EXPENSE)));
+        assertEquals("fas-briefcase", resolver.iconFor(new Category(10, "Salary", 0.0, CategoryType.INCOME)));
+    }
+}
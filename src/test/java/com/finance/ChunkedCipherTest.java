@@ -0,0 +1,94 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ChunkedCipherTest {
+    private static final char[] PASSPHRASE = "correct horse".toCharArray();
+
+    private static byte[] encrypt(byte[] plain) throws IOException {
+        ByteArrayOutputStream sealed = new ByteArrayOutputStream();
+        try (OutputStream out = ChunkedCipher.encrypt(sealed, PASSPHRASE)) {
+            // Odd write sizes so chunk boundaries fall inside writes
+            for (int off = 0; off < plain.length; off += 100_003) {
+                out.write(plain, off, Math.min(100_003, plain.length - off));
+            }
+        }
+        return sealed.toByteArray();
+    }
+
+    private static byte[] decrypt(byte[] sealed, char[] passphrase) throws IOException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ChunkedCipher.decrypt(new ByteArrayInputStream(sealed), plain, passphrase);
+        return plain.toByteArray();
+    }
+
+    @Test
+    public void testRoundTripAcrossChunks() throws Exception {
+        // Compressible text followed by random bytes, which are stored without deflating
+        byte[] plain = new byte[3 * ChunkedCipher.CHUNK_SIZE + 12_345];
+        byte[] text = "2024-01-15,Checking,Groceries,42.50,weekly shop\n".getBytes();
+        for (int i = 0; i < 2 * ChunkedCipher.CHUNK_SIZE; i++) {
+            plain[i] = text[i % text.length];
+        }
+        byte[] noise = new byte[plain.length - 2 * ChunkedCipher.CHUNK_SIZE];
+        new Random(7).nextBytes(noise);
+        System.arraycopy(noise, 0, plain, 2 * ChunkedCipher.CHUNK_SIZE, noise.length);
+
+        byte[] sealed = encrypt(plain);
+        assertTrue(sealed.length < plain.length, "Text chunks are compressed");
+        assertArrayEquals(plain, decrypt(sealed, PASSPHRASE));
+
+        byte[] exact = Arrays.copyOf(plain, ChunkedCipher.CHUNK_SIZE);
+        assertArrayEquals(exact, decrypt(encrypt(exact), PASSPHRASE), "Input ending on a chunk boundary");
+        assertArrayEquals(new byte[0], decrypt(encrypt(new byte[0]), PASSPHRASE));
+    }
+
+    @Test
+    public void testRejectsWrongPassphraseAndDamage() throws Exception {
+        byte[] plain = new byte[2 * ChunkedCipher.CHUNK_SIZE + 10];
+        new Random(1).nextBytes(plain);
+        byte[] sealed = encrypt(plain);
+
+        assertThrows(IOException.class, () -> decrypt(sealed, "wrong".toCharArray()));
+
+        byte[] flipped = sealed.clone();
+        flipped[flipped.length / 2] ^= 1;
+        assertThrows(IOException.class, () -> decrypt(flipped, PASSPHRASE));
+
+        // Cutting the file after a whole chunk must not look like a complete, shorter file
+        int firstFrame = 36 + 5 + ChunkedCipher.CHUNK_SIZE + 16;
+        assertThrows(IOException.class, () -> decrypt(Arrays.copyOf(sealed, firstFrame), PASSPHRASE));
+        assertThrows(IOException.class, () -> decrypt("plain text".getBytes(), PASSPHRASE));
+    }
+
+    @Test
+    public void testFailedWriteDoesNotDecrypt(@TempDir Path dir) throws Exception {
+        byte[] plain = new byte[ChunkedCipher.CHUNK_SIZE + ChunkedCipher.CHUNK_SIZE / 2];
+        new Random(3).nextBytes(plain);
+        ChunkedCipher.Content failing = out -> {
+            out.write(plain);
+            throw new IOException("disk full");
+        };
+
+        // What reached the target before the writer broke off must not pass for a whole file
+        ByteArrayOutputStream sealed = new ByteArrayOutputStream();
+        assertThrows(IOException.class, () -> ChunkedCipher.encrypt(sealed, PASSPHRASE, failing));
+        assertThrows(IOException.class, () -> decrypt(sealed.toByteArray(), PASSPHRASE));
+
+        Path target = dir.resolve("report.xlsx.enc");
+        assertThrows(IOException.class, () -> ChunkedCipher.encryptFile(target, PASSPHRASE, failing));
+        assertFalse(Files.exists(target), "Partial file is deleted");
+    }
+}
@@ -0,0 +1,55 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ConnectionPoolTest {
+
+    @Test
+    public void testNestedAcquireSharesTransaction(@TempDir Path dir) throws Exception {
+        ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("pool.db"), 2, 1000);
+        try (Connection outer = pool.acquire(); Statement stmt = outer.createStatement()) {
+            stmt.execute("CREATE TABLE t (x INTEGER)");
+            outer.setAutoCommit(false);
+            stmt.execute("INSERT INTO t VALUES (1)");
+            try (Connection inner = pool.acquire(); Statement s2 = inner.createStatement();
+                 ResultSet rs = s2.executeQuery("SELECT COUNT(*) FROM t")) {
+                assertEquals(1, rs.getInt(1), "Nested acquire sees the open transaction");
+            }
+            assertFalse(outer.isClosed(), "Closing the nested handle keeps the outer one open");
+            assertEquals(1, pool.getActiveCount());
+            // Returned without commit: the pool rolls back
+        }
+        assertEquals(0, pool.getActiveCount());
+        try (Connection c = pool.acquire(); Statement stmt = c.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+            assertTrue(c.getAutoCommit());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    public void testAcquireTimesOutWhenExhausted(@TempDir Path dir) throws Exception {
+        ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("pool.db"), 1, 100);
+        try (Connection held = pool.acquire()) {
+            CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+                try (Connection c = pool.acquire()) {
+                    fail("Pool should be exhausted");
+                } catch (SQLException expected) {
+                    // timed out
+                }
+            });
+            other.get();
+            assertFalse(held.isClosed());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class DashboardRefreshSchedulerTest {
+
+    @Test
+    public void testBurstIsCoalescedIntoOneRefreshPerRegion() throws Exception {
+        DashboardRefreshScheduler scheduler = new DashboardRefreshScheduler(Runnable::run, 100, 2000);
+        AtomicInteger chartLoads = new AtomicInteger();
+        AtomicInteger balanceLoads = new AtomicInteger();
+        CountDownLatch applied = new CountDownLatch(2);
+        scheduler.register(DashboardRefreshScheduler.Region.CHART, () -> {
+            chartLoads.incrementAndGet();
+            return applied::countDown;
+        });
+        scheduler.register(DashboardRefreshScheduler.Region.BALANCE, () -> {
+            balanceLoads.incrementAndGet();
+            return applied::countDown;
+        });
+
+        for (int i = 0; i < 20; i++) {
+            scheduler.markDirty(DashboardRefreshScheduler.Region.CHART);
+        }
+        scheduler.markDirty(DashboardRefreshScheduler.Region.BALANCE, DashboardRefreshScheduler.Region.CHART);
+
+        assertTrue(applied.await(5, TimeUnit.SECONDS), "Both regions should refresh");
+        Thread.sleep(300);
+        assertEquals(1, chartLoads.get());
+        assertEquals(1, balanceLoads.get());
+
+        DashboardRefreshScheduler.Stats stats = scheduler.getStats(DashboardRefreshScheduler.Region.CHART);
+        assertEquals(21, stats.getMarks());
+        assertEquals(1, stats.getRefreshes());
+        assertTrue(stats.getAverageLatencyMillis() >= 100, "Latency includes the debounce wait");
+    }
+}
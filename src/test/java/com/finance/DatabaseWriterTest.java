@@ -0,0 +1,141 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DatabaseWriterTest {
+
+    private static Connection get(ConnectionPool pool) {
+        try {
+            return pool.acquire();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void testQueuedCommandsShareOneCommitAndFailAlone(@TempDir Path dir) throws Exception {
+        ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("writer.db"), 2, 1000);
+        try (Connection c = pool.acquire(); Statement stmt = c.createStatement()) {
+            stmt.execute("CREATE TABLE t (x INTEGER)");
+        }
+        DatabaseWriter writer = new DatabaseWriter(() -> get(pool), 64);
+
+        long batchesBefore = Metrics.getInstance().getCounter("db.writer.batches");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = writer.submit("test.block", conn -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        running.await();
+
+        List<CompletableFuture<Integer>> inserts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int x = i;
+            inserts.add(writer.submit("test.insert", conn -> {
+                try (PreparedStatement p = conn.prepareStatement("INSERT INTO t VALUES (?)")) {
+                    p.setInt(1, x);
+                    p.executeUpdate();
+                }
+                if (x == 7) {
+                    throw new DatabaseWriter.Abort("rejected");
+                }
+                return x;
+            }));
+        }
+        release.countDown();
+        blocker.join();
+        for (int i = 0; i < inserts.size(); i++) {
+            if (i == 7) {
+                CompletionException e = assertThrows(CompletionException.class, inserts.get(i)::join);
+                assertInstanceOf(DatabaseWriter.Abort.class, e.getCause());
+            } else {
+                assertEquals(i, inserts.get(i).join());
+            }
+        }
+
+        assertEquals(2, Metrics.getInstance().getCounter("db.writer.batches") - batchesBefore,
+                "Everything queued behind the blocker commits together");
+        try (Connection c = pool.acquire(); Statement stmt = c.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*), SUM(x) FROM t")) {
+            assertEquals(19, rs.getInt(1), "Only the aborted command was rolled back");
+            assertEquals(190 - 7, rs.getInt(2));
+        }
+    }
+
+    @Test
+    public void testWriteByAnotherConnectionBeforeFirstPollIsSeen(@TempDir Path dir) throws Exception {
+        ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("watch.db"), 2, 1000);
+        try (Connection c = pool.acquire(); Statement stmt = c.createStatement()) {
+            stmt.execute("CREATE TABLE t (x INTEGER)");
+        }
+        CountDownLatch changed = new CountDownLatch(1);
+        Runnable unsubscribe = EventBus.getInstance().subscribe(FinanceEvents.ExternalChangeEvent.class,
+                e -> changed.countDown());
+        try {
+            new DatabaseWriter(() -> get(pool), 64);
+            // Well before the first idle poll, which used to only record the baseline
+            Thread.sleep(200);
+            try (Connection c = pool.acquire(); Statement stmt = c.createStatement()) {
+                stmt.execute("INSERT INTO t VALUES (1)");
+            }
+            assertTrue(changed.await(5, java.util.concurrent.TimeUnit.SECONDS));
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+    @Test
+    public void testCommandSubmittedInsideACommandCompletesWithIt(@TempDir Path dir) throws Exception {
+        ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("nested.db"), 2, 1000);
+        try (Connection c = pool.acquire(); Statement stmt = c.createStatement()) {
+            stmt.execute("CREATE TABLE t (x INTEGER)");
+        }
+        DatabaseWriter writer = new DatabaseWriter(() -> get(pool), 64);
+        DatabaseWriter.Command<Integer> insert = conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                return stmt.executeUpdate("INSERT INTO t VALUES (1)");
+            }
+        };
+
+        List<CompletableFuture<Integer>> nested = new ArrayList<>();
+        boolean doneInside = writer.submit("test.outer", conn -> {
+            nested.add(writer.submit("test.inner", insert));
+            return nested.get(0).isDone();
+        }).join();
+        assertFalse(doneInside, "Not complete before the outer command commits");
+        assertEquals(1, nested.get(0).join());
+
+        CompletableFuture<Integer> rolledBack = writer.submit("test.outer", conn -> {
+            CompletableFuture<Integer> inner = writer.submit("test.inner", insert);
+            nested.add(inner);
+            throw new DatabaseWriter.Abort("rejected");
+        }).handle((v, e) -> 0).thenCompose(v -> nested.get(1));
+        CompletionException e = assertThrows(CompletionException.class, rolledBack::join);
+        assertInstanceOf(DatabaseWriter.Abort.class, e.getCause(), "Fails with the command that submitted it");
+        try (Connection c = pool.acquire(); Statement stmt = c.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+            assertEquals(1, rs.getInt(1));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FinanceCliTest {
+
+    private static String[] run(String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int code = new FinanceCli(new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8)).run(args);
+        return new String[]{Integer.toString(code), out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8)};
+    }
+
+    @Test
+    public void testImportThenReport(@TempDir Path dir) throws Exception {
+        FinanceService svc = new FinanceService();
+        Account account = svc.getAllAccounts().get(0);
+        Category category = svc.getAllCategories().stream().filter(c -> c.getType() == CategoryType.EXPENSE).findFirst().get();
+        String marker = "cli" + System.nanoTime();
+        Path csv = dir.resolve("import.csv");
+        Files.writeString(csv, "date,account,category,amount,note\n"
+                + LocalDate.now() + "," + account.getName() + "," + category.getId() + ",12.50,\"" + marker + ", first\"\n"
+                + LocalDate.now() + "," + account.getId() + "," + category.getName() + ",7.5," + marker + "\n");
+        double before = svc.getTotalBalance();
+
+        String[] imported = run("import", csv.toString());
+        assertEquals("0", imported[0], imported[2]);
+        assertEquals(before - 20.0, svc.getTotalBalance(), 1e-6);
+
+        String[] report = run("report", "--month", YearMonth.now().toString(), "--format", "json");
+        assertEquals("0", report[0], report[2]);
+        assertTrue(report[1].trim().startsWith("[") && report[1].trim().endsWith("]"));
+        assertTrue(report[1].contains("\"note\":\"" + marker + ", first\""), "Notes are JSON strings");
+
+        String[] csvReport = run("report", "--month", YearMonth.now().toString());
+        assertTrue(csvReport[1].contains("\"" + marker + ", first\""), "Commas in notes are quoted");
+    }
+
+    @Test
+    public void testReimportSkipsStoredRows(@TempDir Path dir) throws Exception {
+        FinanceService svc = new FinanceService();
+        Account account = svc.getAllAccounts().get(0);
+        String marker = "dup" + System.nanoTime();
+        LocalDate day = LocalDate.now().minusDays(10);
+        String header = "date,account,category,amount,note\n";
+        String coffee = day + "," + account.getId() + ",Groceries,3.20," + marker + " coffee\n";
+        Path first = dir.resolve("first.csv");
+        // Two genuine identical purchases and one other row
+        Files.writeString(first, header + coffee + coffee + day + "," + account.getId() + ",Groceries,9.99," + marker + " bread\n");
+        double before = svc.getTotalBalance();
+
+        String[] imported = run("import", first.toString());
+        assertEquals("0", imported[0], imported[2]);
+        assertTrue(imported[1].startsWith("Imported 3 "), imported[1]);
+
+        // Overlapping statement: the same rows, one booked two days later with a different
+        // note spelling, plus one new row
+        Path second = dir.resolve("second.csv");
+        Files.writeString(second, header + coffee + day.plusDays(2) + "," + account.getId() + ",Groceries,3.2,\"" + marker.toUpperCase() + "  COFFEE.\"\n"
+                + day + "," + account.getId() + ",Groceries,9.99," + marker + " bread\n"
+                + day + "," + account.getId() + ",Groceries,1.00," + marker + " gum\n");
+        imported = run("import", second.toString());
+        assertEquals("0", imported[0], imported[2]);
+        assertTrue(imported[1].startsWith("Imported 1 transactions, skipped 3"), imported[1]);
+        assertEquals(before - 3.20 * 2 - 9.99 - 1.00, svc.getTotalBalance(), 1e-6);
+    }
+
+    @Test
+    public void testVerifyAndUsage() {
+        assertEquals("0", run("verify")[0]);
+        assertEquals("2", run()[0]);
+        assertEquals("2", run("report", "--format", "xml")[0]);
+    }
+
+    @Test
+    public void testParseCsvLine() {
+        assertEquals(List.of("a", "b, c", "say \"hi\"", ""), FinanceCli.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+        assertEquals("\"a\\\"b\\n\"", FinanceCli.jsonString("a\"b\n"));
+    }
+}
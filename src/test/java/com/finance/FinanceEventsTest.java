@@ -0,0 +1,84 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class FinanceEventsTest {
+
+    @Test
+    public void testCrossedThreshold() {
+        assertEquals(0, FinanceEvents.crossedThreshold(10, 40, 100));
+        assertEquals(50, FinanceEvents.crossedThreshold(40, 50, 100));
+        assertEquals(80, FinanceEvents.crossedThreshold(40, 85, 100));
+        assertEquals(100, FinanceEvents.crossedThreshold(10, 120, 100));
+        assertEquals(0, FinanceEvents.crossedThreshold(100, 130, 100), "Already over budget");
+    }
+
+    @Test
+    public void testPublishIsAsynchronous() throws Exception {
+        CountDownLatch delivered = new CountDownLatch(1);
+        AtomicReference<Thread> listenerThread = new AtomicReference<>();
+        Runnable unsubscribe = EventBus.getInstance().subscribe(FinanceEvents.TransactionAddedEvent.class, e -> {
+            listenerThread.set(Thread.currentThread());
+            delivered.countDown();
+        });
+        try {
+            EventBus.getInstance().publish(new FinanceEvents.TransactionAddedEvent(1, 1, 5.0, LocalDate.now()));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS), "Event should be delivered");
+            assertNotSame(Thread.currentThread(), listenerThread.get(), "Listeners run off the publishing thread");
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+    @Test
+    public void testExternalChangeClearsSharedCaches() throws Exception {
+        BudgetEngine engine = BudgetEngine.getInstance();
+        engine.load(java.util.List.of(), java.util.Map.of(), LocalDate.now());
+        AggregateCache aggregates = AggregateCache.getInstance();
+        aggregates.put("test", java.time.YearMonth.now(), 1, aggregates.generation());
+
+        // Listeners run in subscription order, so this one runs after the caches' own
+        CountDownLatch delivered = new CountDownLatch(1);
+        Runnable unsubscribe = EventBus.getInstance().subscribe(FinanceEvents.ExternalChangeEvent.class,
+                e -> delivered.countDown());
+        try {
+            EventBus.getInstance().publish(new FinanceEvents.ExternalChangeEvent());
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertFalse(engine.isLoaded(), "No GUI needed for the budget engine to reload");
+            assertNull(aggregates.get("test", java.time.YearMonth.now()));
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+    @Test
+    public void testThresholdComesFromStatusesCapturedAtPosting() throws Exception {
+        FinanceEvents.installDefaultListeners(new FinanceService());
+        java.util.List<Integer> crossed = new java.util.concurrent.CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        Runnable unsubscribe = EventBus.getInstance().subscribe(FinanceEvents.BudgetThresholdEvent.class, e -> {
+            if (e.getStatus().getCategoryId() == -7) {
+                crossed.add(e.getThresholdPercent());
+                delivered.countDown();
+            }
+        });
+        try {
+            // A backdated transaction carries no statuses, whatever its amount
+            EventBus.getInstance().publish(new FinanceEvents.TransactionAddedEvent(1, -7, 500.0, LocalDate.now().minusYears(1)));
+            BudgetStatus before = new BudgetStatus(-7, "Test", 100.0, BudgetPeriod.MONTHLY, 70.0);
+            BudgetStatus after = new BudgetStatus(-7, "Test", 100.0, BudgetPeriod.MONTHLY, 85.0);
+            EventBus.getInstance().publish(new FinanceEvents.TransactionAddedEvent(1, -7, 15.0, LocalDate.now(), before, after));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(java.util.List.of(80), crossed);
+        } finally {
+            unsubscribe.run();
+        }
+    }
+}
@@ -4,7 +4,11 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -60,4 +64,127 @@ public class FinanceServiceTest {
             assertNotNull(wb.getSheet("Transactions"), "Transactions sheet should exist");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testNoteSearchPaging() {
+        Account account = svc.getAllAccounts().get(0);
+        Category category = svc.getAllCategories().get(0);
+        String word = "zqx" + System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(svc.addTransaction(account.getId(), category.getId(), 1.0 + i, LocalDate.now(),
+                    "Paid " + word + " invoice #" + i, null));
+        }
+        Set<Integer> all = new HashSet<>();
+        for (NoteSearchHit hit : svc.searchNotes(word, null, 10)) {
+            all.add(hit.getTransactionId());
+        }
+        assertEquals(5, all.size());
+
+        // Both pages use the same prefix query, so only the cursor moves
+        String prefix = word.substring(0, word.length() - 2);
+        List<NoteSearchHit> first = svc.searchNotes(prefix, null, 3);
+        assertEquals(3, first.size(), "Prefix search should match");
+        List<NoteSearchHit> second = svc.searchNotes(prefix, first.get(2), 3);
+        assertEquals(2, second.size(), "Second page continues after the first");
+        Set<Integer> paged = new HashSet<>();
+        for (NoteSearchHit hit : first) {
+            paged.add(hit.getTransactionId());
+        }
+        for (NoteSearchHit hit : second) {
+            assertTrue(paged.add(hit.getTransactionId()), "Pages do not overlap");
+        }
+        assertEquals(all, paged, "Together the pages cover every match");
+        assertTrue(svc.searchNotes(prefix, second.get(1), 3).isEmpty());
+
+        assertTrue(svc.searchNotes("\"(*)", null, 10).isEmpty(), "Operators only should not match or fail");
+        assertEquals("\"groc\"* \"bill\"*", FinanceService.toMatchQuery("groc, bill!"));
+    }
+
+    @Test
+    public void testKeysetPagesMatchOffsetPages() {
+        Account account = svc.getAllAccounts().get(0);
+        Category category = svc.getAllCategories().get(0);
+        for (int i = 0; i < 7; i++) {
+            assertTrue(svc.addTransaction(account.getId(), category.getId(), 3.0, LocalDate.now().minusDays(i % 3), "page test", null));
+        }
+
+        TransactionQuery q = new TransactionQuery(null, 0, category.getId(), TransactionQuery.SortColumn.AMOUNT, true);
+        int total = svc.countTransactions(q);
+        assertTrue(total >= 7);
+
+        List<TransactionRow> keyset = new java.util.ArrayList<>();
+        TransactionRow after = null;
+        while (true) {
+            List<TransactionRow> page = svc.getTransactionPage(q, after, 3);
+            if (page.isEmpty()) break;
+            keyset.addAll(page);
+            after = page.get(page.size() - 1);
+        }
+        List<TransactionRow> offset = svc.getTransactionPageAt(q, 0, total);
+
+        assertEquals(total, keyset.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(offset.get(i).getId(), keyset.get(i).getId());
+        }
+    }
+
+    @Test
+    public void testMonthlyExpensesMatchSingleMonthTotals() {
+        YearMonth now = YearMonth.now();
+        var history = svc.getMonthlyExpensesByCategory(now.minusMonths(2), now);
+        assertEquals(List.of(now.minusMonths(2), now.minusMonths(1), now), List.copyOf(history.keySet()));
+        assertEquals(svc.getExpensesByCategory(now), history.get(now));
+        assertEquals(svc.getExpensesByCategory(now.minusMonths(1)), history.get(now.minusMonths(1)));
+    }
+
+    @Test
+    public void testCachedMonthTotalsFollowNewTransactions() {
+        Account account = svc.getAllAccounts().get(0);
+        Category category = svc.getAllCategories().stream()
+                .filter(c -> c.getType() == CategoryType.EXPENSE).findFirst().orElseThrow();
+        YearMonth month = YearMonth.now().minusMonths(5);
+        double before = svc.getExpensesByCategory(month).getOrDefault(category.getName(), 0.0);
+        long queries = Metrics.getInstance().getCounter(Metrics.QUERIES);
+        svc.getExpensesByCategory(month);
+        assertEquals(queries, Metrics.getInstance().getCounter(Metrics.QUERIES), "Second read comes from the cache");
+
+        assertTrue(svc.addTransaction(account.getId(), category.getId(), 12.5, month.atDay(3), "cache test", null));
+        assertEquals(before + 12.5, svc.getExpensesByCategory(month).get(category.getName()), 1e-9);
+        assertEquals(before + 12.5, svc.getMonthlyExpensesByCategory(month.minusMonths(1), month.plusMonths(1))
+                .get(month).get(category.getName()), 1e-9);
+    }
+
+    @Test
+    public void testTransferAcrossCurrenciesIsRejected() {
+        List<Account> accounts = svc.getAllAccounts();
+        Account from = accounts.get(0);
+        Account to = accounts.get(1);
+        assertTrue(svc.setAccountCurrency(to.getId(), "JPY"));
+        try {
+            assertEquals(-1, svc.transfer(from.getId(), to.getId(), 10.0, LocalDate.now(), "cross currency"));
+        } finally {
+            assertTrue(svc.setAccountCurrency(to.getId(), to.getCurrency()));
+        }
+        assertTrue(DatabaseHelper.getInstance().verifyIntegrity().isEmpty());
+    }
+
+    @Test
+    public void testReimportSkipsStoredRowsButNotNotelessNeighbours() {
+        int account = svc.getAllAccounts().get(0).getId();
+        int category = svc.getAllCategories().get(0).getId();
+        double amount = 5000 + System.nanoTime() % 100_000 / 100.0;
+        LocalDate day = LocalDate.now().minusDays(10);
+        assertEquals(2, svc.importTransactions(List.of(
+                new Transaction(account, category, amount, day, "Corner Cafe", null),
+                new Transaction(account, category, amount, day, null, null))));
+
+        // The same statement again, booked two days later
+        LocalDate booked = day.plusDays(2);
+        assertEquals(1, svc.importTransactions(List.of(
+                new Transaction(account, category, amount, booked, "CORNER CAFE.", null),
+                new Transaction(account, category, amount, booked, null, null))),
+                "Only rows with a note match a few days off");
+        assertEquals(0, svc.importTransactions(List.of(new Transaction(account, category, amount, day, "", null))),
+                "A row without a note still matches on the same day");
+    }
+}
@@ -0,0 +1,69 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FxRatesTest {
+    private static final LocalDate JAN = LocalDate.of(2024, 1, 1);
+    private static final LocalDate FEB = LocalDate.of(2024, 2, 1);
+
+    private static FxRates rates() {
+        FxRates fx = new FxRates();
+        TreeMap<LocalDate, Double> eur = new TreeMap<>(Map.of(JAN, 1.10, FEB, 1.20));
+        TreeMap<LocalDate, Double> gbp = new TreeMap<>(Map.of(JAN, 1.25));
+        fx.load(Map.of("EUR", eur, "GBP", gbp));
+        return fx;
+    }
+
+    @Test
+    public void testLatestRateOnOrBeforeTheDay() {
+        FxRates fx = rates();
+        assertEquals(1.10, fx.rate("EUR", JAN), 1e-12);
+        assertEquals(1.10, fx.rate("EUR", FEB.minusDays(1)), 1e-12);
+        assertEquals(1.20, fx.rate("EUR", FEB.plusDays(40)), 1e-12);
+        assertEquals(1.10, fx.rate("EUR", JAN.minusDays(5)), 1e-12, "Older days use the first known rate");
+        assertEquals(1.0, fx.rate("USD", JAN), 1e-12, "Currencies without rates are the pivot");
+    }
+
+    @Test
+    public void testConvert() {
+        FxRates fx = rates();
+        assertEquals(110.0, fx.convert(100, "EUR", "USD", JAN), 1e-9);
+        assertEquals(100 * 1.20 / 1.25, fx.convert(100, "EUR", "GBP", FEB), 1e-9);
+        assertEquals(42.0, fx.convert(42, "EUR", "EUR", FEB), 1e-12);
+
+        long missing = Metrics.getInstance().getCounter("fx.rates.missing");
+        fx.convert(100, "USD", "EUR", JAN);
+        assertEquals(missing, Metrics.getInstance().getCounter("fx.rates.missing"), "One currency may be the pivot");
+        fx.convert(100, "JPY", "EUR", JAN);
+        assertEquals(missing + 1, Metrics.getInstance().getCounter("fx.rates.missing"), "A second one cannot");
+
+        String[] currencies = {"USD", "EUR", "GBP"};
+        int[] currencyIndex = {0, 1, 1, 2};
+        int[] days = {(int) JAN.toEpochDay(), (int) JAN.toEpochDay(), (int) FEB.toEpochDay(), (int) FEB.toEpochDay()};
+        double[] amounts = {10, 10, 10, 10, 99};
+        fx.convert(currencies, currencyIndex, days, amounts, 4, "USD");
+        assertArrayEquals(new double[] {10, 11, 12, 12.5, 99}, amounts, 1e-9);
+    }
+
+    @Test
+    public void testReadCsv(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rates.csv");
+        Files.writeString(file, "date,currency,rate\n2024-01-01,eur,1.1\n\n2024-02-01,EUR,1.2\n2024-01-01,GBP,1.25\n");
+        Map<String, SortedMap<LocalDate, Double>> rates = FxRates.readCsv(file);
+        assertEquals(2, rates.get("EUR").size());
+        assertEquals(1.25, rates.get("GBP").get(JAN));
+
+        Files.writeString(file, "date,currency,rate\n2024-01-01,XYZ1,1.1\n");
+        assertThrows(IllegalArgumentException.class, () -> FxRates.readCsv(file));
+    }
+}
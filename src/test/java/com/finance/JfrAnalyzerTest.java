@@ -0,0 +1,40 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+
+public class JfrAnalyzerTest {
+
+    @Test
+    public void testQueryEventsAreRecordedAndSummarized() throws Exception {
+        Path file = Files.createTempFile("finance-test", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(JfrEvents.QueryEvent.NAME);
+            recording.start();
+            for (int i = 0; i < 3; i++) {
+                try (Metrics.Op op = Metrics.op("jfrTest.fast")) {
+                    op.rows(2);
+                }
+            }
+            try (Metrics.Op op = Metrics.op("jfrTest.slow")) {
+                Thread.sleep(20);
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        JfrAnalyzer.Summary summary = JfrAnalyzer.analyze(file);
+        assertEquals(3, summary.count("jfrTest.fast"));
+        assertEquals(1, summary.count("jfrTest.slow"));
+        List<JfrAnalyzer.Operation> slowest = summary.slowest(1);
+        assertEquals("jfrTest.slow", slowest.get(0).getSqlId());
+        assertEquals(Thread.currentThread().getName(), slowest.get(0).getThread());
+        Files.deleteIfExists(file);
+    }
+}
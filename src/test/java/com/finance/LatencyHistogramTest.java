@@ -0,0 +1,44 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsAreContiguousAndPrecise() {
+        for (long v = 0; v < 1_000_000; v += 37) {
+            int idx = LatencyHistogram.indexOf(v);
+            assertTrue(LatencyHistogram.lowestValueIn(idx) <= v && v <= LatencyHistogram.highestValueIn(idx), "value " + v);
+            assertTrue(LatencyHistogram.highestValueIn(idx) - LatencyHistogram.lowestValueIn(idx) <= Math.max(0, v / 16));
+        }
+        assertEquals(LatencyHistogram.highestValueIn(40) + 1, LatencyHistogram.lowestValueIn(41));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i);
+        }
+        assertEquals(1000, h.getCount());
+        assertEquals(1000, h.getMaxMicros());
+        assertEquals(500.5, h.getMeanMicros(), 1e-9);
+        assertEquals(500, h.getPercentileMicros(50), 500 / 16.0);
+        assertEquals(990, h.getPercentileMicros(99), 990 / 16.0);
+        assertEquals(1000, h.getPercentileMicros(100));
+    }
+
+    @Test
+    public void testOpRecordsTimerQueriesAndRows() {
+        Metrics metrics = new Metrics();
+        try (Metrics.Op op = new Metrics.Op(metrics, "test.op")) {
+            op.row();
+            op.rows(4);
+        }
+        assertEquals(1, metrics.timer("test.op").getCount());
+        assertEquals(1, metrics.getCounter(Metrics.QUERIES));
+        assertEquals(5, metrics.getCounter(Metrics.ROWS_SCANNED));
+    }
+}
@@ -0,0 +1,51 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogTest {
+
+    @AfterEach
+    public void restore() {
+        Log.setLevel(Log.Level.INFO);
+        Log.configure(Paths.get("logs"), Log.DEFAULT_MAX_FILE_BYTES, Log.DEFAULT_MAX_FILES, true);
+    }
+
+    @Test
+    public void testStructuredLinesAndLevels(@TempDir Path dir) throws Exception {
+        Log.configure(dir, Log.DEFAULT_MAX_FILE_BYTES, 3, false);
+        Log.setLevel(Log.Level.INFO);
+
+        Log.debug("hidden debug line");
+        Log.info("Saved transaction", "account", 3, "note", "weekly groceries");
+        Log.error("Query failed", new IllegalStateException("boom"), "sql", "getTotalBalance");
+        Log.flush();
+
+        String text = Files.readString(dir.resolve("finance.log"));
+        assertFalse(text.contains("hidden debug line"), "DEBUG is off at INFO");
+        assertTrue(text.contains("INFO  [main] Saved transaction account=3 note=\"weekly groceries\""), text);
+        assertTrue(text.contains("ERROR [main] Query failed sql=getTotalBalance error=boom"), text);
+        assertTrue(text.contains("java.lang.IllegalStateException: boom"), "Stack trace is written");
+    }
+
+    @Test
+    public void testFilesRoll(@TempDir Path dir) throws Exception {
+        Log.configure(dir, 200, 2, false);
+        for (int i = 0; i < 20; i++) {
+            Log.info("Rolling test line", "i", i);
+            Log.flush();
+        }
+
+        assertTrue(Files.exists(dir.resolve("finance.log")));
+        assertTrue(Files.exists(dir.resolve("finance.1.log")));
+        assertTrue(Files.exists(dir.resolve("finance.2.log")));
+        assertFalse(Files.exists(dir.resolve("finance.3.log")), "Only maxFiles rolled files are kept");
+    }
+}
@@ -0,0 +1,56 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class MonthPrefetcherTest {
+    private static final YearMonth NOW = YearMonth.of(2026, 6);
+
+    @Test
+    public void testCandidatesAreNeighboursThenRecentPicks() {
+        assertEquals(List.of(YearMonth.of(2026, 2), YearMonth.of(2026, 4), YearMonth.of(2025, 12)),
+                MonthPrefetcher.candidates(YearMonth.of(2026, 3),
+                        List.of(YearMonth.of(2026, 3), YearMonth.of(2026, 4), YearMonth.of(2025, 12)), NOW));
+        assertEquals(List.of(YearMonth.of(2026, 5)), MonthPrefetcher.candidates(NOW, List.of(), NOW),
+                "No future months");
+    }
+
+    @Test
+    public void testNextSelectionCancelsRunningPrefetch() throws Exception {
+        List<YearMonth> loaded = new CopyOnWriteArrayList<>();
+        CountDownLatch inFirstLoad = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MonthPrefetcher prefetcher = new MonthPrefetcher(month -> {
+            loaded.add(month);
+            if (loaded.size() == 1) {
+                inFirstLoad.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 0);
+
+        YearMonth march = YearMonth.now().minusMonths(3);
+        Thread first = prefetcher.selected(march);
+        assertTrue(inFirstLoad.await(5, TimeUnit.SECONDS));
+        Thread second = prefetcher.selected(march.minusMonths(6));
+        release.countDown();
+        first.join(5_000);
+        second.join(5_000);
+
+        // The first prefetch stops after the month it was loading; the second one runs fully
+        assertEquals(march.minusMonths(1), loaded.get(0));
+        assertFalse(loaded.contains(march.plusMonths(1)));
+        assertTrue(loaded.containsAll(List.of(march.minusMonths(7), march.minusMonths(5), march)));
+        assertEquals(4, loaded.size());
+    }
+}
@@ -0,0 +1,141 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs several JVMs against one database file at once and checks that every balance
+ * change from every process survives.
+ */
+public class MultiProcessStressTest {
+    static final int PROCESSES = 3;
+    static final int THREADS = 2;
+    static final int ITERATIONS = 40;
+    static final int ADJUST_EVERY = 5;
+    static final double ADJUSTMENT = 10.0;
+
+    @Test
+    public void testConcurrentProcessesLoseNoBalance(@TempDir Path dir) throws Exception {
+        Path db = dir.resolve("stress.db");
+        assertEquals(0, start(db, dir.resolve("init.log"), "init").waitFor(), () -> read(dir.resolve("init.log")));
+
+        int accountId;
+        int categoryId;
+        double balance;
+        long version;
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db); Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT id, balance, version FROM Accounts ORDER BY id LIMIT 1")) {
+                accountId = rs.getInt(1);
+                balance = rs.getDouble(2);
+                version = rs.getLong(3);
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT id FROM Categories WHERE type = 'EXPENSE' ORDER BY id LIMIT 1")) {
+                categoryId = rs.getInt(1);
+            }
+        }
+
+        List<Process> children = new ArrayList<>();
+        for (int i = 0; i < PROCESSES; i++) {
+            children.add(start(db, dir.resolve("child" + i + ".log"), "write", Integer.toString(accountId), Integer.toString(categoryId)));
+        }
+        for (int i = 0; i < PROCESSES; i++) {
+            Process p = children.get(i);
+            assertTrue(p.waitFor(3, TimeUnit.MINUTES), "Child " + i + " finished");
+            Path log = dir.resolve("child" + i + ".log");
+            assertEquals(0, p.exitValue(), () -> read(log));
+        }
+
+        int adds = PROCESSES * THREADS * ITERATIONS;
+        int adjustments = PROCESSES * THREADS * (ITERATIONS / ADJUST_EVERY);
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db); Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Transactions WHERE note = 'stress'")) {
+                assertEquals(adds, rs.getInt(1));
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT balance, version FROM Accounts WHERE id = " + accountId)) {
+                assertEquals(balance - adds + adjustments * ADJUSTMENT, rs.getDouble(1), 1e-6, "No balance change was lost");
+                assertEquals(version + adds + adjustments, rs.getLong(2), "Every change bumped the version once");
+            }
+        }
+    }
+
+    private static Process start(Path db, Path log, String... args) throws Exception {
+        List<String> cmd = new ArrayList<>(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "-D" + DatabaseHelper.DB_PATH_PROPERTY + "=" + db,
+                Child.class.getName()));
+        cmd.addAll(List.of(args));
+        return new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+    }
+
+    private static String read(Path log) {
+        try {
+            return Files.readString(log);
+        } catch (Exception e) {
+            return e.toString();
+        }
+    }
+
+    /**
+     * Child process: "init" creates the schema; "write accountId categoryId" adds expenses
+     * and makes optimistic balance adjustments from several threads.
+     */
+    public static class Child {
+        public static void main(String[] args) throws Exception {
+            DatabaseHelper.getInstance().initializeDatabase();
+            if (args[0].equals("init")) {
+                System.exit(0);
+            }
+            int accountId = Integer.parseInt(args[1]);
+            int categoryId = Integer.parseInt(args[2]);
+            FinanceService service = new FinanceService();
+            AtomicInteger failures = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        if (!service.addTransaction(accountId, categoryId, 1.0, LocalDate.now(), "stress", null)) {
+                            failures.incrementAndGet();
+                        }
+                        if (i % ADJUST_EVERY == 0 && !adjust(service, accountId)) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+            Log.flush();
+            System.out.println("failures=" + failures.get());
+            System.exit(failures.get() == 0 ? 0 : 1);
+        }
+
+        // Read-modify-write with the version check, retried on conflict
+        private static boolean adjust(FinanceService service, int accountId) {
+            for (int attempt = 0; attempt < 1000; attempt++) {
+                Account account = service.getAllAccounts().stream()
+                        .filter(a -> a.getId() == accountId).findFirst().orElseThrow();
+                if (service.setAccountBalance(account, account.getBalance() + ADJUSTMENT)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReceiptStoreTest {
+    @TempDir
+    Path dir;
+
+    private Path writeImage(String name, int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x += 7) {
+            image.setRGB(x, x % height, 0xff8800);
+        }
+        Path file = dir.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    @Test
+    public void testSameContentIsStoredOnce() throws Exception {
+        ReceiptStore store = new ReceiptStore(dir.resolve("receipts"), ReceiptStore.DEFAULT_CACHE_BYTES);
+        Path a = writeImage("a.png", 40, 30);
+        Path copy = Files.copy(a, dir.resolve("copy.PNG"));
+
+        String key = store.store(a);
+        assertTrue(key.matches("[0-9a-f]{2}/[0-9a-f]{64}\\.png"), key);
+        assertEquals(key, store.storeAsync(copy).join(), "Same bytes give the same key");
+        assertArrayEquals(Files.readAllBytes(a), Files.readAllBytes(store.resolve(key)));
+        try (Stream<Path> files = Files.list(store.resolve(key).getParent())) {
+            assertEquals(1, files.count());
+        }
+        assertNotEquals(key, store.store(writeImage("b.png", 41, 30)));
+    }
+
+    @Test
+    public void testThumbnailIsScaledPersistedAndCached() throws Exception {
+        ReceiptStore store = new ReceiptStore(dir.resolve("receipts"), ReceiptStore.DEFAULT_CACHE_BYTES);
+        String key = store.store(writeImage("big.png", 2400, 1200));
+        assertNull(store.cachedThumbnail(key), "Nothing is loaded before it is asked for");
+
+        byte[] png = store.thumbnail(key).join();
+        BufferedImage thumb = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(ReceiptStore.THUMBNAIL_SIZE, thumb.getWidth());
+        assertEquals(ReceiptStore.THUMBNAIL_SIZE / 2, thumb.getHeight());
+        assertSame(png, store.cachedThumbnail(key));
+
+        ReceiptStore restarted = new ReceiptStore(dir.resolve("receipts"), ReceiptStore.DEFAULT_CACHE_BYTES);
+        assertArrayEquals(png, restarted.thumbnail(key).join(), "Thumbnail is read back from disk");
+    }
+
+    @Test
+    public void testNonImageHasNoThumbnail() throws Exception {
+        ReceiptStore store = new ReceiptStore(dir.resolve("receipts"), ReceiptStore.DEFAULT_CACHE_BYTES);
+        Path text = Files.writeString(dir.resolve("receipt.txt"), "not an image");
+        assertNull(store.thumbnail(store.store(text)).join());
+        assertNull(store.thumbnail("00/missing.png").join());
+    }
+
+    @Test
+    public void testLoadsThatFinishAtOnceCleanUpAfterThemselves() {
+        ReceiptStore store = new ReceiptStore(dir.resolve("receipts"), ReceiptStore.DEFAULT_CACHE_BYTES);
+        // Missing receipts load in no time, often before thumbnail() returns
+        for (int i = 0; i < 500; i++) {
+            String key = "00/missing-" + i + ".png";
+            assertNull(store.thumbnail(key).join());
+            assertNull(store.thumbnail(key).join(), "A finished load is not handed out again");
+        }
+    }
+
+    @Test
+    public void testCacheIsBoundedByBytes() {
+        ReceiptStore.ByteLru lru = new ReceiptStore.ByteLru(1000);
+        lru.put("a", new byte[400]);
+        lru.put("b", new byte[400]);
+        assertNotNull(lru.get("a")); // "b" is now the least recently used
+        lru.put("c", new byte[400]);
+        assertNull(lru.get("b"));
+        assertNotNull(lru.get("a"));
+        assertEquals(800, lru.bytes());
+        lru.put("huge", new byte[5000]);
+        assertNotNull(lru.get("huge"), "An entry larger than the budget still stays until the next put");
+        assertEquals(5000, lru.bytes());
+    }
+}
@@ -0,0 +1,76 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RecurringCalendarTest {
+
+    private static RecurringExpense expense(int id, String name, RecurrenceFrequency frequency, int interval,
+                                            LocalDate anchor, int dueDay) {
+        RecurringExpense e = new RecurringExpense(id, name, 10.0, dueDay);
+        e.setFrequency(frequency);
+        e.setInterval(interval);
+        e.setAnchorDate(anchor);
+        e.setNextDue(e.occurrenceAfter(LocalDate.of(2026, 1, 1).minusDays(1)));
+        return e;
+    }
+
+    @Test
+    public void testFrequencies() {
+        LocalDate anchor = LocalDate.of(2026, 1, 31);
+        assertEquals(LocalDate.of(2026, 2, 7), RecurrenceFrequency.WEEKLY.nextAfter(anchor, 31, 1, anchor));
+        assertEquals(LocalDate.of(2026, 2, 14), RecurrenceFrequency.WEEKLY.nextAfter(anchor, 31, 2, anchor));
+        assertEquals(LocalDate.of(2026, 2, 28), RecurrenceFrequency.MONTHLY.nextAfter(anchor, 31, 1, anchor));
+        assertEquals(LocalDate.of(2026, 3, 31), RecurrenceFrequency.MONTHLY.nextAfter(anchor, 31, 1, LocalDate.of(2026, 2, 28)));
+        assertEquals(LocalDate.of(2026, 4, 30), RecurrenceFrequency.MONTHLY.nextAfter(anchor, 31, 3, anchor));
+        assertEquals(LocalDate.of(2027, 1, 31), RecurrenceFrequency.YEARLY.nextAfter(anchor, 31, 1, anchor));
+        assertEquals(LocalDate.of(2026, 2, 10), RecurrenceFrequency.CUSTOM.nextAfter(anchor, 31, 10, anchor));
+        assertEquals(anchor, RecurrenceFrequency.CUSTOM.nextAfter(anchor, 31, 10, LocalDate.of(2026, 1, 1)));
+    }
+
+    @Test
+    public void testUpcomingMatchesFullScan() {
+        List<RecurringExpense> expenses = new ArrayList<>();
+        RecurrenceFrequency[] kinds = RecurrenceFrequency.values();
+        for (int i = 1; i <= 500; i++) {
+            RecurrenceFrequency f = kinds[i % kinds.length];
+            expenses.add(expense(i, "Bill " + i, f, 1 + i % 3, LocalDate.of(2026, 1, 1).plusDays(i % 90), 1 + i % 31));
+        }
+        RecurringCalendar calendar = new RecurringCalendar(expenses);
+
+        LocalDate from = LocalDate.of(2026, 3, 1);
+        List<RecurringScheduler.Occurrence> upcoming = calendar.upcoming(from, 10);
+        List<RecurringScheduler.Occurrence> expected =
+                RecurringScheduler.computeOccurrences(expenses, from.minusDays(1), from.plusDays(10));
+
+        assertEquals(expected.size(), upcoming.size());
+        for (int i = 0; i < upcoming.size(); i++) {
+            assertEquals(expected.get(i).getDueDate(), upcoming.get(i).getDueDate());
+        }
+        assertEquals(500, calendar.size(), "Listing upcoming bills must not modify the calendar");
+    }
+
+    @Test
+    public void testPollDueAdvancesAndSkipsBeforeFloor() {
+        RecurringExpense weekly = expense(1, "Gym", RecurrenceFrequency.WEEKLY, 1, LocalDate.of(2026, 1, 1), 1);
+        RecurringExpense monthly = expense(2, "Rent", RecurrenceFrequency.MONTHLY, 1, null, 15);
+        RecurringCalendar calendar = new RecurringCalendar(List.of(weekly, monthly));
+
+        List<RecurringScheduler.Occurrence> due = calendar.pollDue(LocalDate.of(2026, 1, 20), LocalDate.of(2026, 1, 10));
+
+        // Gym on Jan 1 and Jan 8 fall before the floor; Jan 15 (both) is due
+        assertEquals(2, due.size());
+        assertEquals(LocalDate.of(2026, 1, 15), due.get(0).getDueDate());
+        assertEquals(LocalDate.of(2026, 1, 22), weekly.getNextDue());
+        assertEquals(LocalDate.of(2026, 2, 15), monthly.getNextDue());
+        assertSame(weekly, calendar.peek());
+
+        calendar.remove(1);
+        assertSame(monthly, calendar.peek());
+    }
+}
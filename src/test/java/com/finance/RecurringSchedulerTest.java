@@ -0,0 +1,62 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RecurringSchedulerTest {
+
+    @Test
+    public void testDueDateClampsToEndOfMonth() {
+        assertEquals(LocalDate.of(2026, 4, 30), RecurringScheduler.dueDateIn(YearMonth.of(2026, 4), 31));
+        assertEquals(LocalDate.of(2026, 2, 28), RecurringScheduler.dueDateIn(YearMonth.of(2026, 2), 30));
+        assertEquals(LocalDate.of(2028, 2, 29), RecurringScheduler.dueDateIn(YearMonth.of(2028, 2), 31));
+        assertEquals(LocalDate.of(2026, 3, 15), RecurringScheduler.dueDateIn(YearMonth.of(2026, 3), 15));
+    }
+
+    @Test
+    public void testCatchUpFindsMissedOccurrences() {
+        RecurringExpense rent = new RecurringExpense(1, "Rent", 900.0, 1);
+        RecurringExpense phone = new RecurringExpense(2, "Phone", 30.0, 31);
+
+        // App last ran on Jan 20 and is opened again on Mar 5
+        List<RecurringScheduler.Occurrence> due = RecurringScheduler.computeOccurrences(
+                List.of(rent, phone), LocalDate.of(2026, 1, 20), LocalDate.of(2026, 3, 5));
+
+        assertEquals(4, due.size(), "Jan 31, Feb 1, Feb 28 and Mar 1 should be due");
+        assertEquals(LocalDate.of(2026, 1, 31), due.get(0).getDueDate());
+        assertEquals(LocalDate.of(2026, 2, 1), due.get(1).getDueDate());
+        assertEquals(LocalDate.of(2026, 2, 28), due.get(2).getDueDate());
+        assertEquals("Phone", due.get(2).getExpense().getName());
+        assertEquals(LocalDate.of(2026, 3, 1), due.get(3).getDueDate());
+    }
+
+    @Test
+    public void testAddedExpenseShowsUpInCachedCalendar() {
+        DatabaseHelper.getInstance().initializeDatabase();
+        FinanceService service = new FinanceService();
+        RecurringScheduler scheduler = new RecurringScheduler(service);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        String name = "Streaming " + System.nanoTime();
+        assertTrue(scheduler.upcoming(40).stream().noneMatch(o -> o.getExpense().getName().equals(name)));
+
+        // No account or category, so a catch-up run elsewhere only reminds and never posts it
+        assertTrue(service.addRecurringExpense(new RecurringExpense(name, 9.99, tomorrow.getDayOfMonth())));
+        assertTrue(scheduler.upcoming(40).stream().anyMatch(o -> o.getExpense().getName().equals(name)
+                && o.getDueDate().equals(tomorrow)));
+    }
+
+    @Test
+    public void testWatermarkDayIsNotPostedTwice() {
+        RecurringExpense rent = new RecurringExpense(1, "Rent", 900.0, 10);
+
+        assertTrue(RecurringScheduler.computeOccurrences(
+                List.of(rent), LocalDate.of(2026, 5, 10), LocalDate.of(2026, 5, 10)).isEmpty());
+        assertEquals(1, RecurringScheduler.computeOccurrences(
+                List.of(rent), LocalDate.of(2026, 5, 9), LocalDate.of(2026, 5, 10)).size());
+    }
+}
@@ -0,0 +1,154 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SyncEngineTest {
+    @TempDir
+    Path dir;
+
+    private static void sql(DatabaseHelper db, String sql) throws Exception {
+        try (Connection conn = db.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    private static String query(DatabaseHelper db, String sql) throws Exception {
+        try (Connection conn = db.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    // Posts an expense the way FinanceService does: the row plus the balance change
+    private static void spend(DatabaseHelper db, double amount, String note) throws Exception {
+        sql(db, "INSERT INTO Transactions (account_id, category_id, amount, date, note) "
+                + "SELECT a.id, c.id, " + amount + ", '2024-05-01', '" + note + "' FROM Accounts a, Categories c "
+                + "WHERE a.name = 'Cash' AND c.name = 'Groceries'");
+        sql(db, "UPDATE Accounts SET balance = balance - " + amount + " WHERE name = 'Cash'");
+    }
+
+    @Test
+    public void testDevicesConvergeByExchangingChanges() throws Exception {
+        DatabaseHelper a = new DatabaseHelper(dir.resolve("a.db").toString());
+        a.initializeDatabase();
+        spend(a, 10, "before copy");
+        // The second device starts from a copy, the way the file used to be moved around
+        sql(a, "VACUUM INTO '" + dir.resolve("b.db") + "'");
+        DatabaseHelper b = new DatabaseHelper(dir.resolve("b.db").toString());
+        b.initializeDatabase();
+        SyncEngine syncA = new SyncEngine(new DatabaseWriter(a::getConnection, 64), a::getConnection, "laptop");
+        SyncEngine syncB = new SyncEngine(new DatabaseWriter(b::getConnection, 64), b::getConnection, "desktop");
+        Path shared = dir.resolve("shared");
+        syncA.sync(shared);
+        syncB.sync(shared);
+
+        spend(a, 20, "on a");
+        spend(b, 5, "on b");
+        sql(b, "UPDATE Categories SET name = 'Bills' WHERE name = 'Utilities'");
+        sql(a, "UPDATE Transactions SET note = 'edited on a' WHERE note = 'before copy'");
+        Thread.sleep(5);
+        sql(b, "UPDATE Transactions SET note = 'edited on b' WHERE note = 'before copy'");
+
+        SyncEngine.SyncResult first = syncA.sync(shared);
+        assertEquals(2, first.getSent(), "Only rows changed since the last sync are sent");
+        syncB.sync(shared);
+        syncA.sync(shared);
+
+        for (DatabaseHelper db : new DatabaseHelper[] {a, b}) {
+            assertEquals("3", query(db, "SELECT COUNT(*) FROM Transactions"));
+            assertEquals("1", query(db, "SELECT COUNT(*) FROM Transactions WHERE note = 'on a'"));
+            assertEquals("1", query(db, "SELECT COUNT(*) FROM Transactions WHERE note = 'on b'"));
+            assertEquals("edited on b", query(db, "SELECT note FROM Transactions WHERE amount = 10"), "Last writer wins");
+            assertEquals("Bills", query(db, "SELECT name FROM Categories WHERE name IN ('Bills', 'Utilities')"));
+            assertEquals(100 - 10 - 20 - 5, Double.parseDouble(query(db, "SELECT balance FROM Accounts WHERE name = 'Cash'")),
+                    1e-9, "Concurrent postings both count");
+        }
+
+        sql(b, "DELETE FROM Transactions WHERE note = 'on a'");
+        sql(b, "UPDATE Accounts SET balance = balance + 20 WHERE name = 'Cash'");
+        syncB.sync(shared);
+        SyncEngine.SyncResult deleted = syncA.sync(shared);
+        assertEquals(1, deleted.getApplied());
+        assertEquals("0", query(a, "SELECT COUNT(*) FROM Transactions WHERE note = 'on a'"));
+        assertEquals(100 - 10 - 5, Double.parseDouble(query(a, "SELECT balance FROM Accounts WHERE name = 'Cash'")), 1e-9);
+
+        SyncEngine.SyncResult idle = syncB.sync(shared);
+        assertEquals(0, idle.getSent());
+        assertEquals(0, idle.getApplied(), "Applied changes are not echoed back");
+    }
+
+    @Test
+    public void testSeparateInstallsShareSeedRowsAndBalanceEdits() throws Exception {
+        DatabaseHelper a = new DatabaseHelper(dir.resolve("a.db").toString());
+        a.initializeDatabase();
+        DatabaseHelper b = new DatabaseHelper(dir.resolve("b.db").toString());
+        b.initializeDatabase();
+        SyncEngine syncA = new SyncEngine(new DatabaseWriter(a::getConnection, 64), a::getConnection, "laptop");
+        SyncEngine syncB = new SyncEngine(new DatabaseWriter(b::getConnection, 64), b::getConnection, "desktop");
+        Path shared = dir.resolve("shared");
+        spend(a, 10, "on a");
+        syncA.sync(shared);
+        syncB.sync(shared);
+        syncA.sync(shared);
+
+        // Setting a balance by hand, the way FinanceService does
+        sql(b, "INSERT INTO BalanceAdjustments (account_id, amount, date, reason) "
+                + "SELECT id, 250 - balance, '2024-05-02', 'set' FROM Accounts WHERE name = 'Checking'");
+        sql(b, "UPDATE Accounts SET balance = 250 WHERE name = 'Checking'");
+        syncB.sync(shared);
+        syncA.sync(shared);
+
+        for (DatabaseHelper db : new DatabaseHelper[] {a, b}) {
+            assertEquals("3", query(db, "SELECT COUNT(*) FROM Accounts"), "Seeded accounts are not duplicated");
+            assertEquals("4", query(db, "SELECT COUNT(*) FROM Categories"));
+            assertEquals(90, Double.parseDouble(query(db, "SELECT balance FROM Accounts WHERE name = 'Cash'")), 1e-9);
+            assertEquals(250, Double.parseDouble(query(db, "SELECT balance FROM Accounts WHERE name = 'Checking'")), 1e-9);
+        }
+    }
+
+    @Test
+    public void testResetAndClearLeavesEveryDeviceAtZero() throws Exception {
+        DatabaseHelper a = DatabaseHelper.getInstance();
+        a.initializeDatabase();
+        FinanceService svc = new FinanceService();
+        int account = svc.getAllAccounts().get(0).getId();
+        int salary = svc.getAllCategories().stream().filter(c -> c.getType() == CategoryType.INCOME)
+                .findFirst().orElseThrow().getId();
+        assertTrue(svc.addTransaction(account, salary, 100, LocalDate.now(), "paycheck", null));
+        sql(a, "VACUUM INTO '" + dir.resolve("b.db") + "'");
+        DatabaseHelper b = new DatabaseHelper(dir.resolve("b.db").toString());
+        b.initializeDatabase();
+        SyncEngine syncA = new SyncEngine(DatabaseWriter.getInstance(), a::getConnection, "laptop");
+        SyncEngine syncB = new SyncEngine(new DatabaseWriter(b::getConnection, 64), b::getConnection, "desktop");
+        Path shared = dir.resolve("shared");
+        syncA.sync(shared);
+        syncB.sync(shared);
+
+        assertTrue(svc.clearAllTransactions());
+        assertTrue(svc.resetAllAccountBalances());
+        syncA.sync(shared);
+        syncB.sync(shared);
+
+        for (DatabaseHelper db : new DatabaseHelper[] {a, b}) {
+            assertEquals("0", query(db, "SELECT COUNT(*) FROM Transactions"));
+            assertEquals(0, Double.parseDouble(query(db, "SELECT COALESCE(SUM(ABS(balance)), 0) FROM Accounts")), 1e-9);
+        }
+    }
+
+    @Test
+    public void testNewerChangeWins() {
+        assertTrue(SyncEngine.isNewer("2024-05-01T10:00:00.002Z", "a", "2024-05-01T10:00:00.001Z", "z"));
+        assertFalse(SyncEngine.isNewer("2024-05-01T10:00:00.001Z", "z", "2024-05-01T10:00:00.002Z", "a"));
+        assertTrue(SyncEngine.isNewer("2024-05-01T10:00:00.001Z", "b", "2024-05-01T10:00:00.001Z", "a"), "Device id breaks ties");
+        assertFalse(SyncEngine.isNewer("2024-05-01T10:00:00.001Z", "a", "2024-05-01T10:00:00.001Z", "a"), "Same change again");
+    }
+}
@@ -0,0 +1,110 @@
+package com.finance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hammers transfers from many threads while a reader watches the total: money only
+ * moves between accounts, so the total must never change, and every account must end
+ * up exactly where its journal legs say.
+ */
+public class TransferStressTest {
+    static final int THREADS = 8;
+    static final int TRANSFERS_PER_THREAD = 250;
+
+    @Test
+    public void testConcurrentTransfersAlwaysReconcile() throws Exception {
+        DatabaseHelper dbHelper = DatabaseHelper.getInstance();
+        dbHelper.initializeDatabase();
+        FinanceService service = new FinanceService();
+        List<Account> accounts = service.getAllAccounts();
+        assertTrue(accounts.size() >= 2, "Needs two accounts to transfer between");
+
+        Map<Integer, Double> before = new HashMap<>();
+        for (Account a : accounts) {
+            before.put(a.getId(), a.getBalance());
+        }
+        double total = service.getTotalBalance();
+        long lastJournalId;
+        try (Connection conn = dbHelper.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM Journal")) {
+            lastJournalId = rs.getLong(1);
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger reads = new AtomicInteger();
+        List<Double> drift = new ArrayList<>();
+        Thread reader = Thread.ofPlatform().start(() -> {
+            while (!done.get()) {
+                double seen = service.getTotalBalance();
+                if (Math.abs(seen - total) > 1e-6) {
+                    synchronized (drift) {
+                        drift.add(seen);
+                    }
+                }
+                reads.incrementAndGet();
+            }
+        });
+
+        AtomicInteger failures = new AtomicInteger();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            writers.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = accounts.get(random.nextInt(accounts.size())).getId();
+                    int to = accounts.get(random.nextInt(accounts.size())).getId();
+                    if (from == to) {
+                        continue;
+                    }
+                    double amount = random.nextInt(1, 10_000) / 100.0;
+                    if (service.transfer(from, to, amount, LocalDate.now(), "stress") < 0) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread t : writers) {
+            t.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertEquals(0, failures.get(), "Every transfer posted");
+        assertTrue(reads.get() > 0);
+        assertTrue(drift.isEmpty(), () -> "Total drifted mid-run: " + drift);
+        assertEquals(total, service.getTotalBalance(), 1e-6);
+
+        try (Connection conn = dbHelper.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "SELECT account_id, SUM(amount) FROM JournalLegs WHERE journal_id > ? GROUP BY account_id")) {
+            pstmt.setLong(1, lastJournalId);
+            Map<Integer, Double> posted = new HashMap<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    posted.put(rs.getInt(1), rs.getDouble(2));
+                }
+            }
+            for (Account a : service.getAllAccounts()) {
+                double expected = before.get(a.getId()) + posted.getOrDefault(a.getId(), 0.0);
+                assertEquals(expected, a.getBalance(), 1e-6, "Account " + a.getId() + " matches its legs");
+            }
+        }
+        assertFalse(String.join("\n", dbHelper.verifyIntegrity()).contains("do not balance"),
+                "No unbalanced journal entries");
+    }
+}